@@ -36,6 +36,22 @@ import java.lang.annotation.*;
 @Documented
 @Inherited // 상속가능한 구조로 사용.
 public @interface AccountLock {
-    // 일정시간동안 Lock을 기다리는 메서드
-    long tryLockTime() default 5000L;
+    // 일정시간동안 Lock을 기다리는 메서드 (ms)
+    // 기존에 실제로 적용되던 대기시간(1초)을 기본값으로 사용.
+    long tryLockTime() default 1000L;
+
+    // Lock 점유시간 (ms)
+    // 명시적으로 unlock()하지 않으면 점유시간 이후 자동으로 해제된다.
+    // 기본값(-1)은 점유시간을 고정하지 않고 watchdog이 lock을 잡고있는 동안 짧은 주기로 자동 연장한다.
+    // (서버가 멈추면 연장이 멈춰 account.lock.watchdog-timeout 이후 바로 해제됨)
+    long leaseTime() default -1L;
+
+    // 공정 Lock 여부
+    // true면 먼저 기다리기 시작한 요청 순서대로 Lock을 얻는다. (대신 Redis 부하는 조금 늘어남)
+    boolean fair() default false;
+
+    // 조건부 update 모드(account.debit.atomic=true)에서 lock 생략 여부
+    // true면 조건부 update 모드일 때 lock을 잡지 않는다.
+    // (검증과 차감을 DB update 한번으로 처리해 lock 없이도 잔액이 음수가 되지 않는 메서드에만 사용)
+    boolean skipOnAtomicDebit() default false;
 }
@@ -0,0 +1,32 @@
+package com.example.account.aop;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ @AccountLock 에 설정된 값을 Lock 취득 시 사용하기 위한 정책 객체.
+ 어노테이션 값은 메서드마다 고정이기 때문에 LockAopAspect에서 메서드별로 한번만 만들어 캐싱해 사용한다.
+ */
+@Getter
+@AllArgsConstructor
+public class LockPolicy {
+    // @AccountLock 기본값과 동일 (어노테이션 없이 lock을 잡는 경우 사용)
+    public static final LockPolicy DEFAULT = new LockPolicy(1000L, -1L, false);
+
+    private final long waitTime;  // Lock 취득 대기시간(ms)
+    private final long leaseTime; // Lock 점유시간(ms), 0 이하면 watchdog 자동연장
+    private final boolean fair;   // 공정 Lock 여부
+    private final boolean skipOnAtomicDebit; // 조건부 update 모드에서 lock 생략 여부
+
+    public LockPolicy(long waitTime, long leaseTime, boolean fair) {
+        this(waitTime, leaseTime, fair, false);
+    }
+
+    public static LockPolicy from(AccountLock accountLock) {
+        return new LockPolicy(
+                accountLock.tryLockTime(),
+                accountLock.leaseTime(),
+                accountLock.fair(),
+                accountLock.skipOnAtomicDebit());
+    }
+}
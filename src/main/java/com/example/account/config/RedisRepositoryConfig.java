@@ -15,10 +15,25 @@ public class RedisRepositoryConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    // lock 점유시간을 지정하지 않은 경우(leaseTime=-1) watchdog이 사용하는 점유시간 (ms)
+    // lock을 잡고있는 동안 1/3 주기로 점유시간을 연장하고, 서버가 멈추면 이 시간 후 lock이 해제된다.
+    @Value("${account.lock.watchdog-timeout:10000}")
+    private long lockWatchdogTimeout;
+
+    // Redis 명령 응답 대기시간 (ms)
+    // Redis가 느려져도 요청 스레드가 오래 묶이지 않도록 짧게 두고 재시도도 한번만 한다.
+    // (오류가 이어지면 LockCircuitBreaker가 Redis 호출을 차단)
+    @Value("${account.lock.redis-timeout:1000}")
+    private int redisTimeout;
+
     @Bean // Bean의 name 속성 미설정 시 메서드명이 빈이름.
     public RedissonClient redissonClient() {
         Config config = new Config();
-        config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
+        config.useSingleServer()
+                .setAddress("redis://" + redisHost + ":" + redisPort)
+                .setTimeout(redisTimeout)
+                .setRetryAttempts(1);
+        config.setLockWatchdogTimeout(lockWatchdogTimeout);
 
         // redisClient 반환
         // : config 설정을 사용해 Redis 생성해 빈으로 등록.
@@ -0,0 +1,18 @@
+package com.example.account.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+// @EnableTransactionManagement(order = ...)
+// : 트랜잭션 AOP의 적용순서 지정.
+//   계좌 Lock AOP(LockAopAspect, Ordered.LOWEST_PRECEDENCE - 1)보다 나중에(안쪽에서) 트랜잭션을 시작하도록 해
+//   Lock은 트랜잭션 시작 전에 점유하고, 트랜잭션 commit/rollback 이후에 해제되도록 한다.
+//   Lock을 기다리는 동안에는 DB 커넥션을 잡지 않으므로 대기 요청이 커넥션 풀을 소진하지 않는다.
+//   (순서를 지정하지 않으면 둘 다 LOWEST_PRECEDENCE 라 적용순서가 보장되지 않음)
+
+@Configuration
+@EnableTransactionManagement(order = Ordered.LOWEST_PRECEDENCE)
+public class TransactionConfiguration {
+
+}
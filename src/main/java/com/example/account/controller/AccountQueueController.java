@@ -0,0 +1,31 @@
+package com.example.account.controller;
+
+import com.example.account.dto.AccountQueueStatus;
+import com.example.account.service.AccountSequencer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 계좌별 순서대기열 상태 controller
+ * hot 계좌에 요청이 얼마나 쌓여있는지 모니터링하기 위해 사용한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class AccountQueueController {
+    private final AccountSequencer accountSequencer;
+
+    @GetMapping("/transaction/queue")
+    public AccountQueueStatus getQueueStatus(
+            @RequestParam(value = "account_number", required = false) String accountNumber) {
+        return AccountQueueStatus.builder()
+                .queuedAccountCount(accountSequencer.getQueuedAccountCount())
+                .totalQueueDepth(accountSequencer.getTotalQueueDepth())
+                .rejectedCount(accountSequencer.getRejectedCount())
+                .accountNumber(accountNumber)
+                .queueDepth(accountNumber == null
+                        ? null : accountSequencer.getQueueDepth(accountNumber))
+                .build();
+    }
+}
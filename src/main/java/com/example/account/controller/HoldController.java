@@ -0,0 +1,57 @@
+package com.example.account.controller;
+
+import com.example.account.dto.CaptureHold;
+import com.example.account.dto.HoldBalance;
+import com.example.account.dto.ReleaseHold;
+import com.example.account.service.HoldService;
+import com.example.account.service.OptimisticRetryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+/**
+ * 잔액 홀드 관련 controller
+ * 1. 잔액 홀드 (홀드 아이디 반환)
+ * 2. 홀드 매입 (전체 또는 부분)
+ * 3. 홀드 해제
+ * 만료시각까지 매입, 해제하지 않은 홀드는 자동해제된다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class HoldController {
+    private final HoldService holdService;
+    // 낙관적 lock 모드에서 version 충돌 시 재시도
+    private final OptimisticRetryService optimisticRetryService;
+
+    @PostMapping("/transaction/hold")
+    public HoldBalance.Response holdBalance(
+            @Valid @RequestBody HoldBalance.Request request) {
+        return HoldBalance.Response.from(optimisticRetryService.execute(() ->
+                holdService.hold(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getAmount())));
+    }
+
+    @PostMapping("/transaction/hold/capture")
+    public CaptureHold.Response captureHold(
+            @Valid @RequestBody CaptureHold.Request request) {
+        return CaptureHold.Response.from(optimisticRetryService.execute(() ->
+                holdService.captureHold(
+                        request.getHoldId(),
+                        request.getAccountNumber(),
+                        request.getAmount())));
+    }
+
+    @PostMapping("/transaction/hold/release")
+    public ReleaseHold.Response releaseHold(
+            @Valid @RequestBody ReleaseHold.Request request) {
+        return ReleaseHold.Response.from(optimisticRetryService.execute(() ->
+                holdService.releaseHold(
+                        request.getHoldId(),
+                        request.getAccountNumber())));
+    }
+}
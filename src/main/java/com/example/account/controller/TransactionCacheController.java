@@ -0,0 +1,22 @@
+package com.example.account.controller;
+
+import com.example.account.dto.TransactionCacheStatus;
+import com.example.account.service.TransactionQueryCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 거래조회 캐시 상태 controller
+ * 거래조회가 몰릴 때 캐시에서 얼마나 응답하고 있는지 모니터링하기 위해 사용한다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class TransactionCacheController {
+    private final TransactionQueryCache transactionQueryCache;
+
+    @GetMapping("/transaction/cache")
+    public TransactionCacheStatus getCacheStatus() {
+        return transactionQueryCache.getStatus();
+    }
+}
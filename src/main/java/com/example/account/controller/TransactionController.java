@@ -1,38 +1,73 @@
 package com.example.account.controller;
 
-import com.example.account.aop.AccountLock;
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.QueryTransactionResponse;
+import com.example.account.dto.TransactionHistory;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
 import com.example.account.exception.AccountException;
+import com.example.account.service.BalanceEngine;
+import com.example.account.service.DebitGroupCommitService;
+import com.example.account.service.FailedTransactionJournal;
+import com.example.account.service.IdempotencyService;
+import com.example.account.service.OptimisticRetryService;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 
+import static com.example.account.type.ErrorCode.INVALID_REQUEST;
+import static com.example.account.type.ErrorCode.TRANSACTION_RESULT_UNKNOWN;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
 /**
  * 잔액 관련 controller
  * 1. 잔액 사용
  * 2. 잔액 사용 취소
  * 3. 거래 확인
+ * 4. 잔액 사용 일괄요청
+ * 5. 계좌 거래내역 조회
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
     private final TransactionService transactionService;
+    // 낙관적 lock 모드에서 version 충돌 시 거래 재시도
+    private final OptimisticRetryService optimisticRetryService;
+    private final TransactionBatchService transactionBatchService;
+    private final DebitGroupCommitService debitGroupCommitService;
+    private final FailedTransactionJournal failedTransactionJournal;
+    // 단일 스레드 잔액 엔진 (켜져 있으면 잔액 사용/사용 취소는 엔진이 처리)
+    private final BalanceEngine balanceEngine;
+    // 멱등키(Idempotency-Key 헤더) 중복요청 처리
+    private final IdempotencyService idempotencyService;
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
-    // @AccountLock
-    // 동시성 이슈 해결을 위해 거래 시 Lock을 걸고 해제하도록 함.
-    // 하지만 단지 어노테이션만 붙여준다고 어떤 기능을 수행하는 것은 아니다.
-    // 어노테이션이 달려있는 부분에서 동작을 하게되는 AOP Aspect를 만들어 동시성 제어를 하도록 한다.
+    // 계좌 Lock(@AccountLock)은 TransactionService의 거래 메서드에 걸려있다.
+    // Lock은 잔액을 변경하는 트랜잭션 동안만 점유하고, 요청 처리(Thread.sleep(3000L), JSON 변환)나
+    // 실패거래 기록(FailedTransactionJournal)은 Lock 없이 수행된다.
+    // 멱등키가 있으면 같은 키로 다시 들어온 요청(타임아웃 후 재시도 등)은
+    // Lock, DB 없이 처음 요청의 응답(또는 실패)을 그대로 돌려준다. (실패거래도 다시 저장하지 않음)
     @PostMapping("/transaction/use")
-    @AccountLock // 동시성 이슈 해결을 위해 거래 시 Lock을 걸고 해제하도록 함.
     public UseBalance.Response useBalance(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody UseBalance.Request request) throws InterruptedException {
+        return idempotencyService.execute("use", idempotencyKey,
+                request.getUserId() + ":" + request.getAccountNumber() + ":" + request.getAmount(),
+                UseBalance.Response.class,
+                () -> processUseBalance(request));
+    }
 
+    private UseBalance.Response processUseBalance(
+            UseBalance.Request request) throws InterruptedException {
         try {
             // 거래중복방지 AOP 추가 후 Thread.sleep(5000L); 호출시 아래의 에러발생
             //java.lang.IllegalMonitorStateException:
@@ -40,44 +75,104 @@ public class TransactionController {
             // 아직 Lock이 점유되지 않았는데 해제되어 문제발생.
             // Thread.sleep(3000L); 으로 변경하고
             // LockService.java 의 lock.tryLock(1, 5, TimeUnit.SECONDS) 부분에서 5->15로 변경
+            // -> 현재는 점유시간을 watchdog이 자동 연장하므로 처리시간이 길어져도 lock이 먼저 풀리지 않는다.
+            // -> Lock을 TransactionService.useBalance 로 옮겨 sleep 하는 동안은 lock을 점유하지 않는다.
             Thread.sleep(3000L);
-            return UseBalance.Response.from(transactionService.useBalance(
-                    request.getUserId(),
-                    request.getAccountNumber(),
-                    request.getAmount()));
+            // 잔액 엔진 모드면 Lock 없이 엔진 스레드가 처리 (저널 기록 후 응답)
+            if (balanceEngine.isEnabled()) {
+                return UseBalance.Response.from(balanceEngine.useBalance(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getAmount()));
+            }
+            // 그룹 커밋 모드면 다른 요청과 모아서 한 트랜잭션으로 처리 (commit 후 응답)
+            if (debitGroupCommitService.isEnabled()) {
+                return UseBalance.Response.from(debitGroupCommitService.useBalance(
+                        request.getUserId(),
+                        request.getAccountNumber(),
+                        request.getAmount()));
+            }
+            return UseBalance.Response.from(optimisticRetryService.execute(() ->
+                    transactionService.useBalance(
+                            request.getUserId(),
+                            request.getAccountNumber(),
+                            request.getAmount())));
 
         } catch (AccountException e) {
+            // 처리결과를 알 수 없는 경우(응답 대기시간 초과)는 이후 성공할 수 있으므로 실패거래로 저장하지 않는다.
+            if (e.getErrorCode() == TRANSACTION_RESULT_UNKNOWN) {
+                throw e;
+            }
             // 비즈니스 적으로 의도적으로 만든 exception이 발생했을 때는
             // 에러로그 출력 및 DB에 실패거래정보 저장
             log.error("Failed to use balance.");
-            transactionService.saveFailedUseTransaction(
+            // 실패거래는 저널에 기록하고 별도 스레드에서 모아서 저장한다.
+            // (실패 시점에 조회한 계좌 id와 잔액이 있으면 같이 기록)
+            failedTransactionJournal.record(
+                    USE,
                     request.getAccountNumber(),
-                    request.getAmount()
+                    request.getAmount(),
+                    e.getAccountId(),
+                    e.getBalance()
             );
 
             throw e;
         }
     }
 
+    // 잔액 사용 일괄요청
+    // 계좌별로 묶어 lock은 계좌당 한번, 트랜잭션도 계좌당 하나로 처리한다.
+    // 일부 요청이 실패해도 나머지는 처리되고, 실패건은 실패거래(F)로 저장되어 결과에 포함된다.
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(
+            @Valid @RequestBody UseBalanceBatch.Request request) {
+        // 잔액 엔진 모드에서는 잔액을 엔진이 관리하므로 DB 잔액을 직접 변경하는 일괄요청은 받지 않는다.
+        if (balanceEngine.isEnabled()) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        return UseBalanceBatch.Response.builder()
+                .results(transactionBatchService.useBalances(request.getItems()))
+                .build();
+    }
+
     @PostMapping("/transaction/cancel")
-    @AccountLock
     public CancelBalance.Response cancelBalance(
-            @Valid @RequestBody CancelBalance.Request request){
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CancelBalance.Request request) {
+        return idempotencyService.execute("cancel", idempotencyKey,
+                request.getTransactionId() + ":" + request.getAccountNumber() + ":" + request.getAmount(),
+                CancelBalance.Response.class,
+                () -> processCancelBalance(request));
+    }
 
+    private CancelBalance.Response processCancelBalance(CancelBalance.Request request) {
         try {
-            return CancelBalance.Response.from(transactionService.cancelBalance(
-                    request.getTransactionId(),
-                    request.getAccountNumber(),
-                    request.getAmount()));
+            if (balanceEngine.isEnabled()) {
+                return CancelBalance.Response.from(balanceEngine.cancelBalance(
+                        request.getTransactionId(),
+                        request.getAccountNumber(),
+                        request.getAmount()));
+            }
+            return CancelBalance.Response.from(optimisticRetryService.execute(() ->
+                    transactionService.cancelBalance(
+                            request.getTransactionId(),
+                            request.getAccountNumber(),
+                            request.getAmount())));
 
         } catch (AccountException e) {
+            if (e.getErrorCode() == TRANSACTION_RESULT_UNKNOWN) {
+                throw e;
+            }
             // 비즈니스 적으로 의도적으로 만든 exception이 발생했을 때는
             // 에러로그 출력 및 DB에 실패거래정보 저장
             log.error("Failed to cancel balance.");
             // 반환 : 계좌번호, 거래결과코드(성공/실패), 거래아이디, 거래금액, 거래일
-            transactionService.saveFailedCancelTransaction(
+            failedTransactionJournal.record(
+                    CANCEL,
                     request.getAccountNumber(),
-                    request.getAmount()
+                    request.getAmount(),
+                    e.getAccountId(),
+                    e.getBalance()
             );
 
             throw e;
@@ -95,4 +190,22 @@ public class TransactionController {
                 transactionService.queryTransaction(transactionId)
         );
     }
+
+    // 계좌 거래내역 조회 (최신순)
+    // 다음 페이지는 응답의 nextCursor를 cursor로 전달해 조회한다. (nextCursor가 null 이면 마지막 페이지)
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(value = "transaction_type", required = false)
+                    TransactionType transactionType,
+            @RequestParam(value = "transaction_result", required = false)
+                    TransactionResultType transactionResult,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+
+        return TransactionHistory.Response.from(
+                transactionService.getTransactionHistory(
+                        accountNumber, transactionType, transactionResult, cursor, size)
+        );
+    }
 }
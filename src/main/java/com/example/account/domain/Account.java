@@ -21,9 +21,13 @@ import java.time.LocalDateTime;
 @Builder // 상속 구조에서 @Builder를 쓰기엔 어려움이있다.
 @Entity
 public class Account extends BaseEntity {
-    @ManyToOne // 계좌-유저는 n:1의 관계
+    // 계좌-유저는 n:1의 관계
+    // LAZY : 계좌를 조회할 때 사용자를 같이 조회하지 않는다. (사용자 id는 조회 없이 꺼낼 수 있음)
+    @ManyToOne(fetch = FetchType.LAZY)
     private AccountUser accountUser; //(user 사용하면 DB의 user테이블과 혼동 또는 예약어라 문제 발생여지 있으므로 변경)
 
+    // 계좌번호로 조회하는 일이 대부분이라 unique index 생성 (계좌번호는 10자리)
+    @Column(unique = true, nullable = false, length = 10)
     private String accountNumber;
 
     // @Enumerated(EnumType.STRING)
@@ -33,22 +37,60 @@ public class Account extends BaseEntity {
 
     private Long balance;
 
+    // 홀드(승인)로 잡아둔 금액 합계 (사용가능 잔액 = balance - heldAmount)
+    // 잔액 사용 검증 시 홀드 테이블을 합산하지 않도록 계좌에 같이 유지한다.
+    // 변경은 hold(), releaseHold(), captureHold()로만 한다.
+    private long heldAmount;
+
     private LocalDateTime registeredAt;
 
     private LocalDateTime unRegisteredAt;
 
+    // 낙관적 lock(account.lock.optimistic=true)에서 사용하는 버전
+    // 잔액변경 시 버전이 같을 때만 update 되고, 다른 요청이 먼저 변경했다면 OptimisticLockException 발생.
+    @Version
+    private Long version;
+
+    // 계좌를 마지막으로 변경한 요청의 lock fencing token (token은 LockProvider에서 발급)
+    // 이 값보다 작은 token을 가진 요청(이미 lock이 만료된 요청)은 잔액을 변경할 수 없다.
+    // 잔액변경 update 에 함께 저장된다. (TransactionService.checkFencingToken)
+    private Long fencingToken;
 
     // 잔액을 변경하는 일 = 증요 데이터를 변경하는 일 -> 위험
     // 따라서 객체에 안에서 로직을 처리할 수 있도록
     // 잔액변경메서드를 포함시키는 것이 안전한 방법일 수 있다.
     // 또한 service단에서 잔액을 가져오고 값을 변경할 필요없이 해당 메서드 호출로 해결가능.
     public void useBalance(Long amount) {
-        if(amount > balance) {
+        if(amount > getAvailableBalance()) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
         }
         balance -= amount;
     }
 
+    // 사용가능 잔액 (홀드중인 금액 제외)
+    public long getAvailableBalance() {
+        return balance - heldAmount;
+    }
+
+    // 금액 홀드 (사용가능 잔액 안에서만 가능)
+    public void hold(Long amount) {
+        if(amount > getAvailableBalance()) {
+            throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+        }
+        heldAmount += amount;
+    }
+
+    // 홀드 해제 (해제, 만료)
+    public void releaseHold(Long amount) {
+        heldAmount -= amount;
+    }
+
+    // 홀드 매입 : 홀드금액 전체를 풀고 매입금액만 잔액에서 차감 (남은 금액은 해제)
+    public void captureHold(Long holdAmount, Long capturedAmount) {
+        heldAmount -= holdAmount;
+        balance -= capturedAmount;
+    }
+
     public void cancelBalance(Long amount) {
         if(amount < 0) {
             throw new AccountException(ErrorCode.INVALID_REQUEST);
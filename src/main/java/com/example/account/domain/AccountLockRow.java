@@ -0,0 +1,27 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// 계좌 lock 전용 테이블 (account.lock.provider=database 에서 사용, DatabaseLockProvider)
+// 잔액을 변경하는 account row와 분리해 lock을 잡기 위해 계좌별로 한 줄씩 둔다.
+// DatabaseLockProvider는 JDBC로 직접 조회(FOR UPDATE)/insert/update 하고, Entity는 테이블 생성(ddl-auto)에만 사용한다.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "account_lock")
+public class AccountLockRow {
+    @Id
+    private String accountNumber;
+
+    // 마지막으로 발급한 fencing token (lock을 잡은 row에서 증가시켜 발급)
+    @Column(nullable = false)
+    private long fencingToken;
+}
@@ -13,4 +13,9 @@ import javax.persistence.Entity;
 @Entity
 public class AccountUser extends BaseEntity {
     private String name; // 사용자명
+
+    // 사용자가 생성한 계좌 수 (해지된 계좌 포함)
+    // 계좌생성 시 최대 계좌 수 검사를 계좌 count 조회 없이 하기 위해 유지한다.
+    // 변경은 AccountUserRepository.increaseAccountCount()로만 한다.
+    private int accountCount;
 }
@@ -0,0 +1,24 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+// 원장 잔액 snapshot (account.ledger.enabled=true 에서 사용)
+// 원장이 snapshot-interval 건 쌓일 때마다 그 시점 잔액을 저장해
+// 잔액 계산 시 처음부터가 아니라 마지막 snapshot 이후 원장만 더하면 되도록 한다.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "uk_balance_snapshot_account_seq",
+        columnList = "account_id, seq", unique = true))
+public class BalanceSnapshot extends BaseEntity {
+    private Long accountId;
+    // 이 snapshot에 반영된 마지막 원장 순번
+    private Long seq;
+    // seq 원장까지 반영된 잔액
+    private Long balance;
+}
@@ -0,0 +1,45 @@
+package com.example.account.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// 잔액 홀드(승인) : 금액을 먼저 잡아두고(hold) 나중에 매입(capture)하거나 해제(release)한다.
+// 홀드중인 금액은 Account.heldAmount 에 합산되어 있어 잔액 사용 시 사용가능 잔액에서 제외된다.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "balance_hold")
+public class Hold extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Account account;
+
+    // 외부에 전달하는 홀드 아이디의 숫자값 (TransactionIdGenerator로 생성, 거래 아이디와 같은 형식)
+    @Column(unique = true)
+    private Long holdNo;
+
+    private Long amount; // 홀드금액
+    private Long capturedAmount; // 매입금액 (부분매입 가능, 남은 금액은 해제)
+
+    @Enumerated(EnumType.STRING)
+    private HoldStatus holdStatus;
+
+    private LocalDateTime heldAt;
+    private LocalDateTime expiresAt; // 이 시간까지 매입하지 않으면 자동해제
+    private LocalDateTime closedAt; // 매입, 해제, 만료 일시
+
+    public String getHoldId() {
+        return holdNo == null ? null : Transaction.toTransactionId(holdNo);
+    }
+
+    // 매입, 해제, 만료는 홀드중일 때 한번만 가능
+    public void close(HoldStatus holdStatus, Long capturedAmount, LocalDateTime closedAt) {
+        this.holdStatus = holdStatus;
+        this.capturedAmount = capturedAmount;
+        this.closedAt = closedAt;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.account.domain;
+
+public enum HoldStatus {
+    HELD, // 홀드중 (금액이 잡혀있음)
+    CAPTURED, // 매입완료 (잔액에서 차감)
+    RELEASED, // 해제
+    EXPIRED // 기간만료로 자동해제
+}
@@ -0,0 +1,29 @@
+package com.example.account.domain;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import javax.persistence.*;
+
+// 잔액 원장 (account.ledger.enabled=true 에서 사용)
+// 잔액을 변경하지 않고 거래마다 변경금액을 한 줄씩 추가만 한다. (수정, 삭제 없음)
+// 계좌 잔액 = 잔액 snapshot + snapshot 이후 원장 금액 합계
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = @Index(name = "uk_ledger_entry_account_seq",
+        columnList = "account_id, seq", unique = true))
+public class LedgerEntry extends BaseEntity {
+    // 계좌 id (계좌를 조회할 일이 없어 연관관계 대신 id만 저장)
+    private Long accountId;
+    // 계좌별 원장 순번 (1부터 1씩 증가, 계좌 lock 안에서 부여)
+    // 같은 순번이 두번 저장되면 unique index로 실패한다.
+    private Long seq;
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    // 변경금액 (사용 : 음수, 사용취소 : 양수)
+    private Long amount;
+}
@@ -14,13 +14,20 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+// 계좌별 거래내역 조회(최신순, keyset 페이지) 용 index
+// 같은 거래일시는 transactionNo 순서 (cursor에 내부 pk(id)를 쓰지 않는다.)
+@Table(indexes = @Index(name = "idx_transaction_account_transacted_at",
+        columnList = "account_id, transacted_at, transaction_no"))
 public class Transaction extends BaseEntity {
     @Enumerated(EnumType.STRING) // 입력한 enum 문자열이름을 그대로 DB에 저장.
     private TransactionType transactionType; // 사용, 사용취소
     @Enumerated(EnumType.STRING)
     private TransactionResultType transactionResultType; // 성공, 실패
 
-    @ManyToOne // 거래내역-계좌는 n:1의 관계
+    // 거래내역-계좌는 n:1의 관계
+    // LAZY : 거래내역을 조회할 때 계좌(+사용자)를 같이 조회하지 않는다.
+    //        계좌가 필요한 경우(거래취소)에는 EntityGraph로 한번에 조회한다.
+    @ManyToOne(fetch = FetchType.LAZY)
     private Account account; // 계좌정보
     private Long amount; // 거래금액
     private Long balanceSnapshot; // 현재잔액의 snapshot(매번 실제 거래 후 잔액을 계산하지 않고 거래 후 바로 보여주기 위해 필요)
@@ -31,9 +38,41 @@ public class Transaction extends BaseEntity {
     //                 사업적인 정보가 노출되기 때문에 또 다른 pk값이 존재하는 것이다.
     //                 (즉, 내부적인 api 호출에는 id를 사용할 수 있지만 외부에서는 transactionId를 사용한다.)
     //                 (외부에서 id값은 절대 사용하지 않는 것이 해킹예방에도 좋다.)
-    private String transactionId;
+    // transactionNo : transactionId를 숫자(64bit)로 저장한 값 (TransactionIdGenerator로 생성)
+    //                 시간순으로 증가하는 값이라 index 끝에 순서대로 추가되고, 32자리 문자열보다 index가 작다.
+    //                 외부에는 16자리 16진수 문자열(transactionId)로 전달한다.
+    //                 (생성시각, 서버번호, 순번으로 만들기 때문에 전체 거래 건 수는 드러나지 않음)
+    @Column(unique = true)
+    private Long transactionNo;
+    // 취소한 원거래의 transactionNo (성공한 사용취소 거래에만 저장)
+    // unique index라 같은 거래를 두번 취소하면 두번째 취소거래 저장이 제약조건 위반으로 실패한다.
+    // (취소 여부를 따로 조회하지 않고 DB가 중복취소를 막는다.)
+    @Column(unique = true)
+    private Long cancelledTransactionNo;
     // transactedAt : 거래일시
     //                (생성일시, 수정일시는 비지니스의 실제 시간으로 사용하지 않는다.
     //                추후 다른 값을 변경하면서 업데이트 될 수 있기 때문이다.)
     private LocalDateTime transactedAt;
+
+    // 외부에 전달하는 거래 아이디
+    public String getTransactionId() {
+        return transactionNo == null ? null : toTransactionId(transactionNo);
+    }
+
+    public static String toTransactionId(long transactionNo) {
+        String hex = Long.toHexString(transactionNo);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    // 거래 아이디 -> transactionNo (형식이 맞지 않으면 null)
+    public static Long toTransactionNo(String transactionId) {
+        if (transactionId == null || transactionId.length() != 16) {
+            return null;
+        }
+        try {
+            return Long.parseUnsignedLong(transactionId, 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
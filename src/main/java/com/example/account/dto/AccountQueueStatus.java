@@ -0,0 +1,17 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+// 계좌별 순서대기열(account.lock.sequencer) 상태
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountQueueStatus {
+    private int queuedAccountCount; // 대기 요청이 있는 계좌 수
+    private int totalQueueDepth;    // 전체 대기 요청 수
+    private long rejectedCount;     // 대기열이 가득 차 거절된 요청 수
+    private String accountNumber;   // 조회한 계좌번호 (요청 시에만)
+    private Integer queueDepth;     // 조회한 계좌의 대기 요청 수 (요청 시에만)
+}
@@ -0,0 +1,21 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 잔액 엔진이 처리한 거래 (BalanceJournal에 기록되고, 별도 스레드에서 DB에 반영된다.)
+@Getter
+@AllArgsConstructor
+@Builder
+public class BalanceEngineEvent {
+    private final long seq; // 저널 순번 (1부터 증가)
+    private final TransactionType transactionType;
+    private final long transactionNo;
+    private final String accountNumber;
+    private final long amount;
+    private final long balanceAfter; // 거래 후 잔액
+    private final LocalDateTime transactedAt;
+    private final Long cancelledTransactionNo; // 사용 취소만 : 취소한 원거래의 transactionNo
+}
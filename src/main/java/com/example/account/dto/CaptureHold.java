@@ -0,0 +1,50 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+// 홀드 매입 요청 (홀드금액 이하로 부분매입 가능, 남은 금액은 해제)
+public class CaptureHold {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotBlank
+        private String holdId;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String accountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private String transactionId; // 매입 거래 아이디 (거래확인 api로 조회 가능)
+        private Long amount; // 매입금액
+        private LocalDateTime capturedAt;
+
+        public static Response from(HoldDto holdDto) {
+            return Response.builder()
+                    .accountNumber(holdDto.getAccountNumber())
+                    .holdId(holdDto.getHoldId())
+                    .transactionId(holdDto.getTransactionId())
+                    .amount(holdDto.getCapturedAmount())
+                    .capturedAt(holdDto.getClosedAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 실패거래 저장 요청 (FailedTransactionJournal 에 쌓였다가 모아서 저장)
+@Getter
+@AllArgsConstructor
+@Builder
+public class FailedTransaction {
+    private final TransactionType transactionType;
+    private final String accountNumber;
+    private final Long amount;
+    private final LocalDateTime transactedAt; // 실패한 시각 (저장 시각이 아님)
+    // 실패 시점에 이미 조회한 계좌 id와 잔액 (모르면 null -> 저장 시 계좌번호로 조회, 저장 시점 잔액)
+    private final Long accountId;
+    private final Long balanceSnapshot;
+}
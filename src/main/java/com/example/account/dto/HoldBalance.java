@@ -0,0 +1,51 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+// 잔액 홀드(승인) 요청
+public class HoldBalance {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String accountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private Long amount;
+        private LocalDateTime heldAt;
+        private LocalDateTime expiresAt;
+
+        public static Response from(HoldDto holdDto) {
+            return Response.builder()
+                    .accountNumber(holdDto.getAccountNumber())
+                    .holdId(holdDto.getHoldId())
+                    .amount(holdDto.getAmount())
+                    .heldAt(holdDto.getHeldAt())
+                    .expiresAt(holdDto.getExpiresAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.account.dto;
+
+import com.example.account.domain.Hold;
+import com.example.account.domain.HoldStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HoldDto {
+    private String accountNumber;
+    private String holdId;
+    private HoldStatus holdStatus;
+    private Long amount;
+    private Long capturedAmount;
+    private LocalDateTime heldAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime closedAt;
+    // 매입한 경우 매입 거래 아이디
+    private String transactionId;
+
+    public static HoldDto fromEntity(Hold hold) {
+        return HoldDto.builder()
+                .accountNumber(hold.getAccount().getAccountNumber())
+                .holdId(hold.getHoldId())
+                .holdStatus(hold.getHoldStatus())
+                .amount(hold.getAmount())
+                .capturedAmount(hold.getCapturedAmount())
+                .heldAt(hold.getHeldAt())
+                .expiresAt(hold.getExpiresAt())
+                .closedAt(hold.getClosedAt())
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// 홀드 만료 예약 (HoldExpiryWheel 에 등록되어 만료시각에 자동해제)
+@Getter
+@AllArgsConstructor
+@Builder
+public class HoldExpiry {
+    private final Long holdNo;
+    private final String accountNumber;
+    private final LocalDateTime expiresAt;
+}
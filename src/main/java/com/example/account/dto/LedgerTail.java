@@ -0,0 +1,15 @@
+package com.example.account.dto;
+
+import lombok.Getter;
+
+// 마지막 snapshot 이후 원장 합계 (LedgerEntryRepository.findTail 결과)
+@Getter
+public class LedgerTail {
+    private final long amount; // 금액 합계
+    private final long lastSeq; // 마지막 원장 순번 (원장이 없으면 0)
+
+    public LedgerTail(Long amount, Long lastSeq) {
+        this.amount = amount == null ? 0L : amount;
+        this.lastSeq = lastSeq == null ? 0L : lastSeq;
+    }
+}
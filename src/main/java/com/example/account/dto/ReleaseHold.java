@@ -0,0 +1,44 @@
+package com.example.account.dto;
+
+import com.example.account.aop.AccountLockIdInterface;
+import lombok.*;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+
+// 홀드 해제 요청
+public class ReleaseHold {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class Request implements AccountLockIdInterface {
+        @NotBlank
+        private String holdId;
+
+        @NotBlank
+        @Size(min=10, max=10)
+        private String accountNumber;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private String holdId;
+        private Long amount; // 해제된 홀드금액
+        private LocalDateTime releasedAt;
+
+        public static Response from(HoldDto holdDto) {
+            return Response.builder()
+                    .accountNumber(holdDto.getAccountNumber())
+                    .holdId(holdDto.getHoldId())
+                    .amount(holdDto.getAmount())
+                    .releasedAt(holdDto.getClosedAt())
+                    .build();
+        }
+    }
+}
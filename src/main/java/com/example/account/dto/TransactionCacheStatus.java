@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+// 거래조회 캐시(TransactionQueryCache) 상태
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionCacheStatus {
+    private int size;           // 캐시된 거래 수
+    private long weight;        // 캐시된 거래의 대략적인 크기(byte)
+    private long maxWeight;     // 최대 크기(byte)
+    private long hitCount;      // 캐시에서 응답한 조회 수
+    private long missCount;     // 캐시에 없어 DB에서 조회한 수
+    private long evictionCount; // 크기 초과로 지워진 거래 수
+}
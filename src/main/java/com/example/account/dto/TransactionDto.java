@@ -25,6 +25,19 @@ public class TransactionDto {
     private String transactionId;
     private LocalDateTime transactedAt;
 
+    // 조회 쿼리 결과를 Entity 없이 바로 담기 위한 생성자
+    // (TransactionRepository.findDtoByTransactionNo 의 select new 에서 사용)
+    public TransactionDto(String accountNumber,
+                          TransactionType transactionType,
+                          TransactionResultType transactionResultType,
+                          Long amount,
+                          Long balanceSnapshot,
+                          Long transactionNo,
+                          LocalDateTime transactedAt) {
+        this(accountNumber, transactionType, transactionResultType, amount, balanceSnapshot,
+                Transaction.toTransactionId(transactionNo), transactedAt);
+    }
+
     // 이 외에 다른 방식으로 두 타입을 맵핑하는 방법도 존재.
     public static TransactionDto fromEntity(Transaction transaction) {
         return TransactionDto.builder()
@@ -0,0 +1,30 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// 계좌 거래내역 조회 응답
+public class TransactionHistory {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String accountNumber;
+        private List<QueryTransactionResponse> transactions;
+        private String nextCursor;
+
+        public static Response from(TransactionHistoryDto transactionHistoryDto) {
+            return Response.builder()
+                    .accountNumber(transactionHistoryDto.getAccountNumber())
+                    .transactions(transactionHistoryDto.getTransactions().stream()
+                            .map(QueryTransactionResponse::from)
+                            .collect(Collectors.toList()))
+                    .nextCursor(transactionHistoryDto.getNextCursor())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// 계좌의 거래내역 한 페이지
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionHistoryDto {
+    private String accountNumber;
+    private List<TransactionDto> transactions;
+    // 다음 페이지 조회 시 전달할 값 (마지막 페이지면 null)
+    private String nextCursor;
+}
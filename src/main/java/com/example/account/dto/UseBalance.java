@@ -1,7 +1,9 @@
 package com.example.account.dto;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResultType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import javax.validation.constraints.*;
@@ -38,6 +40,9 @@ public class UseBalance {
         private String transactionId;
         private Long amount;
         private LocalDateTime transactedAt;
+        // 실패사유 (일괄요청의 실패건에만 포함, 단건 요청 실패는 ErrorResponse로 응답)
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private ErrorCode errorCode;
 
         public static Response from(TransactionDto transactionDto) {
             return Response.builder()
@@ -48,5 +53,19 @@ public class UseBalance {
                     .transactedAt(transactionDto.getTransactedAt())
                     .build();
         }
+
+        // 실패거래 응답 (실패거래가 저장되지 않은 경우(계좌 미존재 등) transactionDto는 null)
+        public static Response failed(
+                UseBalance.Request request, TransactionDto transactionDto, ErrorCode errorCode) {
+            Response response = transactionDto == null
+                    ? Response.builder()
+                        .accountNumber(request.getAccountNumber())
+                        .transactionResult(TransactionResultType.F)
+                        .amount(request.getAmount())
+                        .build()
+                    : from(transactionDto);
+            response.setErrorCode(errorCode);
+            return response;
+        }
     }
 }
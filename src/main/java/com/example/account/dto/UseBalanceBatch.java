@@ -0,0 +1,32 @@
+package com.example.account.dto;
+
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+// 잔액 사용 일괄요청 (정산 작업 등에서 여러 건을 한번에 요청)
+public class UseBalanceBatch {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Request {
+        // 각 요청도 단건 잔액 사용과 동일하게 검증
+        @NotEmpty
+        @Size(max = 10000)
+        private List<@Valid UseBalance.Request> items;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        // 요청 순서와 동일한 순서의 거래결과 (실패건은 transactionResult = F, errorCode 포함)
+        private List<UseBalance.Response> results;
+    }
+}
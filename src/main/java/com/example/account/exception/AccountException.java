@@ -16,6 +16,10 @@ import lombok.*;
 public class AccountException extends RuntimeException {
     private ErrorCode errorCode;
     private String errorMessage;
+    // 실패 시점에 이미 조회한 계좌 id와 잔액 (모르면 null)
+    // 실패거래 저장 시 계좌를 다시 조회하지 않고, 저장 시점이 아닌 실패 시점 잔액을 남기기 위해 사용.
+    private Long accountId;
+    private Long balance;
 
     // AccountException은 AllArgsConstructor, NoArgsConstructor 두개의 생성자를 가지기 때문에
     // new AccountException(ErrorCode.USER_NOT_FOUND)로 객체 생성 시 생성자가 없어서 에러발생.
@@ -24,4 +28,11 @@ public class AccountException extends RuntimeException {
         this.errorCode = errorCode;
         this.errorMessage = errorCode.getDescription();
     }
+
+    // 실패한 계좌와 실패 시점 잔액을 담아서 반환 (throw e.withAccount(...) 로 사용)
+    public AccountException withAccount(Long accountId, Long balance) {
+        this.accountId = accountId;
+        this.balance = balance;
+        return this;
+    }
 }
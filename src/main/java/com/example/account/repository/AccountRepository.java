@@ -1,10 +1,19 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Account;
-import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,24 +27,65 @@ import java.util.Optional;
 */
 
 @Repository // repository타입 빈으로 등록
-public interface AccountRepository extends JpaRepository<Account, Long> {
-    // 제일 마지막 생성된 계좌번호 조회
-    // = id로 내림차순 정렬해 첫번째값 가져옴(가장큰값)
-    // - JPA는 이름을 형식에 맞춰 쓰기만하면 자동으로 쿼리 생성해준다.
-    //   -> 인터페이스의 구현부는 따로 생성하지 않음.
-    //   단, 생성된 계좌가 하나도 없는 경우엔 값이 없을 수 있기 때문에
-    //   Optional<Account> 타입으로 return 받음.
-    Optional<Account> findFirstByOrderByIdDesc();
-
-    // 해당 유저의 총 계좌 수 조회
-    // AccountRepository는 JpaRepository<Account, Long>를 확장한 것이다.
-    // 여기서 Account 내부에서 @ManyToOne 어노테이션을 통해 AccountUser를
-    // 연관관계로 들고있기 때문에 countByAccountUser의 전달인자로 AccountUser 사용이 가능하다.
-    Integer countByAccountUser(AccountUser accountUser);
-
-    // 계좌번호와 일치하는 계좌 조회
-    Optional<Account> findByAccountNumber(String AccountNumber);
-
-    // 해당 유저의 계좌목록 조회
-    List<Account> findByAccountUser(AccountUser accountUser);
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountRepositoryCustom {
+    // 계좌번호 구간 예약 : reserveAccountNumberBlock()
+    // -> DB에 맞는 시퀀스 SQL(Hibernate Dialect)을 사용하기 위해 AccountRepositoryCustomImpl에서 직접 구현
+    //    (예전에는 H2 전용 문법 "select next value for account_number_seq" 사용)
+
+    // 계좌번호와 일치하는 계좌 조회 : findByAccountNumber()
+    // -> 계좌번호 캐시를 사용하기 위해 AccountRepositoryCustomImpl에서 직접 구현
+
+    // 계좌번호 목록과 일치하는 계좌 한번에 조회
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    // 계좌번호와 일치하는 계좌 조회 + row lock (PESSIMISTIC_WRITE = SELECT ... FOR UPDATE)
+    // Lock 저장소(Redis) 장애 시 대체 Lock으로 사용. 트랜잭션이 끝날 때 lock이 해제된다.
+    // 다른 요청이 lock을 잡고있으면 최대 3초 대기 후 실패
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "3000"))
+    @Query("select a from Account a where a.accountNumber = :accountNumber")
+    Optional<Account> findForUpdateByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // 해당 유저의 계좌목록 조회 (계좌목록조회 전용)
+    // Entity를 만들지 않고 필요한 컬럼만 조회해 AccountDto로 바로 반환
+    @Query("select new com.example.account.dto.AccountDto(" +
+            "a.accountUser.id, a.accountNumber, a.balance, a.registeredAt, a.unRegisteredAt)" +
+            " from Account a where a.accountUser.id = :userId")
+    List<AccountDto> findDtoByAccountUserId(@Param("userId") Long userId);
+
+    // 해당 유저의 계좌목록 조회 (원장 모드, 계좌목록조회 전용)
+    // 계좌별 잔액 = 마지막 snapshot 잔액(없으면 시작잔액) + snapshot 이후 원장 합계
+    // 계좌마다 잔액을 따로 계산하지 않고 쿼리 한번으로 사용자의 모든 계좌 잔액을 group by로 계산한다.
+    @Query("select new com.example.account.dto.AccountDto(" +
+            "a.accountUser.id, a.accountNumber," +
+            " coalesce(s.balance, a.balance) + coalesce(sum(e.amount), 0)," +
+            " a.registeredAt, a.unRegisteredAt)" +
+            " from Account a" +
+            " left join BalanceSnapshot s on s.accountId = a.id" +
+            "  and s.seq = (select max(s2.seq) from BalanceSnapshot s2 where s2.accountId = a.id)" +
+            " left join LedgerEntry e on e.accountId = a.id and e.seq > coalesce(s.seq, 0)" +
+            " where a.accountUser.id = :userId" +
+            " group by a.id, a.accountUser.id, a.accountNumber, a.balance, s.balance," +
+            " a.registeredAt, a.unRegisteredAt")
+    List<AccountDto> findLedgerDtoByAccountUserId(@Param("userId") Long userId);
+
+    // 조건부 잔액 차감 (account.debit.atomic=true 에서 사용)
+    // 소유주 일치, 사용중인 계좌, 사용가능 잔액(잔액 - 홀드금액) >= 거래금액 조건을 만족할 때만 차감한다.
+    // 조회 -> 검증 -> 변경을 update 한번으로 처리하고, 조건 검사는 DB가 보장한다.
+    // 반환값은 변경된 row 수 (0이면 차감실패)
+    // - clearAutomatically : update 후 영속성 컨텍스트를 비워 이후 조회 시 변경된 잔액을 가져옴.
+    // - version도 함께 올려 낙관적 lock 모드와 같이 사용해도 충돌을 감지할 수 있도록 한다.
+    @Modifying(clearAutomatically = true)
+    @Query("update Account a" +
+            " set a.balance = a.balance - :amount," +
+            "     a.version = a.version + 1," +
+            "     a.updatedAt = :now" +
+            " where a.accountNumber = :accountNumber" +
+            "   and a.accountUser.id = :userId" +
+            "   and a.accountStatus = com.example.account.domain.AccountStatus.IN_USE" +
+            "   and a.balance - a.heldAmount >= :amount")
+    int useBalanceIfSufficient(@Param("accountNumber") String accountNumber,
+                               @Param("userId") Long userId,
+                               @Param("amount") Long amount,
+                               @Param("now") LocalDateTime now);
 }
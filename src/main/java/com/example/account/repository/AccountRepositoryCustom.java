@@ -0,0 +1,26 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+
+import java.util.Optional;
+
+/**
+ AccountRepository에서 직접 구현하는 메서드 (구현체 : AccountRepositoryCustomImpl)
+ Spring Data JPA는 같은 이름의 쿼리 메서드보다 직접 구현한 메서드를 먼저 사용한다.
+ */
+public interface AccountRepositoryCustom {
+    // 계좌번호와 일치하는 계좌 조회 (계좌번호 -> 계좌 id 캐시 사용)
+    Optional<Account> findByAccountNumber(String accountNumber);
+
+    // 계좌번호 캐시 삭제 (계좌 상태 변경 시 호출)
+    void evictAccountNumber(String accountNumber);
+
+    // 계좌번호 구간 예약 (AccountNumberAllocator에서 사용) : 이번에 예약한 구간의 시작 계좌번호
+    // - 예전에는 findFirstByOrderByIdDesc()로 마지막 계좌를 조회해 +1 했지만
+    //   계좌생성마다 조회가 한번 더 필요하고, 동시에 생성하면 같은 번호가 나올 수 있었다.
+    long reserveAccountNumberBlock(int blockSize);
+
+    // 계좌번호 구간 시퀀스 생성 (시퀀스가 없을 때 한번)
+    // 이미 발급된 계좌번호(max(account_number)) 다음 구간부터 시작한다.
+    void createAccountNumberBlockSequence(int blockSize);
+}
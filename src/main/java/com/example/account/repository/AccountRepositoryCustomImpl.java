@@ -0,0 +1,119 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountStatus;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ 계좌번호 -> 계좌 id 캐시
+ 계좌번호 조회는 거래(사용, 취소, 실패저장)와 해지마다 발생한다.
+ 한번 조회한 계좌는 id를 기억해두고 다음부터는 PK 조회(EntityManager.find)로 가져온다.
+ (같은 트랜잭션에서 이미 조회한 계좌라면 영속성 컨텍스트에서 바로 꺼내므로 쿼리도 발생하지 않는다.)
+
+ - 계좌번호와 id는 바뀌지 않으므로 캐시가 틀린 값을 줄 일은 없다.
+   그래도 사용중(IN_USE)인 계좌만 캐시하고, 해지 등 상태가 바뀌면 evictAccountNumber()로 지운다.
+ - 메모리가 계속 늘어나지 않도록 최대 개수(account.number-cache.capacity)까지만 담고
+   그 이후 계좌는 캐시 없이 계좌번호 index로 조회한다.
+
+ 계좌번호 구간 시퀀스
+ 시퀀스는 구간 번호(0, 1, 2, ...)를 발급하고, 구간 시작 계좌번호 = 1000000000 + 구간 번호 * 구간 크기
+ - 시퀀스 SQL은 Hibernate Dialect로 만들기 때문에 DB 종류(H2 전용 문법 등)와 상관없이 동작한다.
+ - Dialect의 시퀀스 시작값은 int라 10자리 계좌번호 대신 구간 번호를 시퀀스로 관리한다.
+ - 다른 트랜잭션(REQUIRES_NEW)으로 실행해 시퀀스가 없어 실패해도 계좌생성 트랜잭션은 영향받지 않는다.
+ */
+public class AccountRepositoryCustomImpl implements AccountRepositoryCustom {
+    private static final String FIND_BY_ACCOUNT_NUMBER =
+            "select a from Account a where a.accountNumber = :accountNumber";
+    private static final String FIND_MAX_ACCOUNT_NUMBER =
+            "select max(a.accountNumber) from Account a";
+
+    private static final String ACCOUNT_NUMBER_BLOCK_SEQUENCE = "account_number_block_seq";
+    // 첫 계좌번호 (0번 구간의 시작)
+    private static final long FIRST_ACCOUNT_NUMBER = 1_000_000_000L;
+
+    private final EntityManager entityManager;
+    private final int capacity;
+
+    private final Map<String, Long> accountIds = new ConcurrentHashMap<>();
+
+    public AccountRepositoryCustomImpl(
+            EntityManager entityManager,
+            @Value("${account.number-cache.capacity:100000}") int capacity) {
+        this.entityManager = entityManager;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        Long id = accountIds.get(accountNumber);
+        if (id != null) {
+            Account account = entityManager.find(Account.class, id);
+            if (account != null && accountNumber.equals(account.getAccountNumber())) {
+                return Optional.of(account);
+            }
+            accountIds.remove(accountNumber);
+        }
+
+        List<Account> accounts = entityManager
+                .createQuery(FIND_BY_ACCOUNT_NUMBER, Account.class)
+                .setParameter("accountNumber", accountNumber)
+                .getResultList();
+        if (accounts.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Account account = accounts.get(0);
+        if (account.getAccountStatus() == AccountStatus.IN_USE
+                && accountIds.size() < capacity) {
+            accountIds.put(accountNumber, account.getId());
+        }
+        return Optional.of(account);
+    }
+
+    @Override
+    public void evictAccountNumber(String accountNumber) {
+        accountIds.remove(accountNumber);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public long reserveAccountNumberBlock(int blockSize) {
+        Number blockNo = (Number) entityManager
+                .createNativeQuery(dialect().getSequenceNextValString(ACCOUNT_NUMBER_BLOCK_SEQUENCE))
+                .getSingleResult();
+        return FIRST_ACCOUNT_NUMBER + blockNo.longValue() * blockSize;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void createAccountNumberBlockSequence(int blockSize) {
+        // 계좌번호는 10자리 숫자라 문자열 최대값이 가장 큰 계좌번호
+        String maxAccountNumber = entityManager
+                .createQuery(FIND_MAX_ACCOUNT_NUMBER, String.class)
+                .getSingleResult();
+        long used = maxAccountNumber == null
+                ? 0L : Long.parseLong(maxAccountNumber) - FIRST_ACCOUNT_NUMBER + 1;
+        // 마지막 계좌번호가 속한 구간의 다음 구간부터 시작
+        int startBlockNo = (int) Math.max(0L, (used + blockSize - 1) / blockSize);
+        for (String sql : dialect().getCreateSequenceStrings(
+                ACCOUNT_NUMBER_BLOCK_SEQUENCE, startBlockNo, 1)) {
+            entityManager.createNativeQuery(sql).executeUpdate();
+        }
+    }
+
+    private Dialect dialect() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+    }
+}
@@ -2,10 +2,22 @@ package com.example.account.repository;
 
 import com.example.account.domain.AccountUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface AccountUserRepository extends JpaRepository<AccountUser, Long> {
-
+    // 최대 계좌 수 미만일 때만 사용자의 계좌 수 +1
+    // 반환값은 변경된 row 수 (0이면 최대 계좌 수 도달)
+    // - 검사와 증가를 update 한번으로 처리해 같은 사용자가 동시에 계좌를 생성해도 최대 계좌 수를 넘지 않는다.
+    //   (update한 사용자 row는 트랜잭션이 끝날 때까지 잠기므로 같은 사용자의 계좌생성은 차례로 처리된다.)
+    // - 계좌 저장이 실패해 롤백되면 계좌 수도 같이 롤백된다.
+    @Modifying
+    @Query("update AccountUser u set u.accountCount = u.accountCount + 1" +
+            " where u.id = :userId and u.accountCount < :maxAccountCount")
+    int increaseAccountCount(@Param("userId") Long userId,
+                             @Param("maxAccountCount") int maxAccountCount);
 }
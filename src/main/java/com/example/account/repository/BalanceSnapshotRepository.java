@@ -0,0 +1,13 @@
+package com.example.account.repository;
+
+import com.example.account.domain.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    // 계좌의 마지막 snapshot
+    Optional<BalanceSnapshot> findFirstByAccountIdOrderBySeqDesc(Long accountId);
+}
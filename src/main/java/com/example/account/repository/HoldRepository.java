@@ -0,0 +1,25 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Hold;
+import com.example.account.dto.HoldExpiry;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    // 홀드 + 계좌 한번에 조회 (매입, 해제, 만료에서 사용)
+    @EntityGraph(attributePaths = "account")
+    Optional<Hold> findByHoldNo(Long holdNo);
+
+    // 홀드중인 홀드의 만료 예약 정보 (재시작 시 HoldExpiryWheel 복구용, 시작할 때 한번만 조회)
+    @Query("select new com.example.account.dto.HoldExpiry(h.holdNo, a.accountNumber, h.expiresAt)" +
+            " from Hold h join h.account a" +
+            " where h.holdStatus = com.example.account.domain.HoldStatus.HELD")
+    List<HoldExpiry> findActiveHoldExpiries();
+
+}
@@ -0,0 +1,23 @@
+package com.example.account.repository;
+
+import com.example.account.domain.LedgerEntry;
+import com.example.account.dto.LedgerTail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    // seq 이후 원장의 금액 합계와 마지막 순번 (index(account_id, seq) 범위 조회)
+    @Query("select new com.example.account.dto.LedgerTail(sum(e.amount), max(e.seq))" +
+            " from LedgerEntry e where e.accountId = :accountId and e.seq > :seq")
+    LedgerTail findTail(@Param("accountId") Long accountId, @Param("seq") Long seq);
+
+    // seq 이후 원장을 순번대로 조회 (재생 시 pageable size 만큼 나눠서 조회)
+    List<LedgerEntry> findByAccountIdAndSeqGreaterThanOrderBySeq(
+            Long accountId, Long seq, Pageable pageable);
+}
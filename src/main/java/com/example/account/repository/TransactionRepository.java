@@ -1,13 +1,74 @@
 package com.example.account.repository;
 
 import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    // transactionId에 해당하는 거래정보 조회
-    Optional<Transaction> findByTransactionId(String transactionId);
+    // transactionId에 해당하는 거래정보 조회 (transactionId는 transactionNo로 변환해 조회)
+    // 거래취소에서 사용 -> 계좌까지 join 해서 한번에 조회 (계좌의 사용자는 조회하지 않음)
+    @EntityGraph(attributePaths = "account")
+    Optional<Transaction> findByTransactionNo(Long transactionNo);
+
+    // 거래조회 전용 : Entity를 만들지 않고 필요한 컬럼만 조회해 TransactionDto로 바로 반환
+    @Query("select new com.example.account.dto.TransactionDto(" +
+            "a.accountNumber, t.transactionType, t.transactionResultType," +
+            " t.amount, t.balanceSnapshot, t.transactionNo, t.transactedAt)" +
+            " from Transaction t join t.account a" +
+            " where t.transactionNo = :transactionNo")
+    Optional<TransactionDto> findDtoByTransactionNo(@Param("transactionNo") Long transactionNo);
+
+    // 원거래의 사용취소 거래가 있는지 (잔액 엔진 사용 취소 시 중복취소 확인)
+    boolean existsByCancelledTransactionNo(Long cancelledTransactionNo);
+
+    // 이미 저장된 거래번호 조회 (잔액 엔진 DB 반영 시 중복저장 방지)
+    @Query("select t.transactionNo from Transaction t where t.transactionNo in :transactionNos")
+    List<Long> findTransactionNos(@Param("transactionNos") Collection<Long> transactionNos);
+
+    // 계좌 거래내역 첫 페이지 (최신순)
+    // 거래종류, 거래결과는 null 이면 조건에서 제외
+    // 조회 건 수는 pageable의 size (count 쿼리는 실행하지 않음)
+    @Query("select t from Transaction t" +
+            " where t.account.id = :accountId" +
+            "   and (:transactionType is null or t.transactionType = :transactionType)" +
+            "   and (:resultType is null or t.transactionResultType = :resultType)" +
+            " order by t.transactedAt desc, t.transactionNo desc")
+    List<Transaction> findHistory(@Param("accountId") Long accountId,
+                                  @Param("transactionType") TransactionType transactionType,
+                                  @Param("resultType") TransactionResultType resultType,
+                                  Pageable pageable);
+
+    // 계좌 거래내역 다음 페이지 : 이전 페이지 마지막 거래(transactedAt, transactionNo) 이후부터 조회 (keyset 페이지)
+    // OFFSET 처럼 앞 페이지 거래를 읽고 버리지 않고 index(account_id, transacted_at, transaction_no)에서
+    // 바로 이어서 읽기 때문에 몇 번째 페이지든 조회 비용이 같다.
+    // - (transactedAt, transactionNo) < (:transactedAt, :transactionNo) 를 OR 조건만으로 쓰면
+    //   index 범위를 정하지 못해 계좌의 거래내역을 처음부터 읽을 수 있다.
+    //   transactedAt <= :transactedAt 범위 조건을 함께 줘서 cursor 위치부터 index를 읽게 하고,
+    //   같은 거래일시인 거래만 transactionNo로 거른다.
+    @Query("select t from Transaction t" +
+            " where t.account.id = :accountId" +
+            "   and (:transactionType is null or t.transactionType = :transactionType)" +
+            "   and (:resultType is null or t.transactionResultType = :resultType)" +
+            "   and t.transactedAt <= :transactedAt" +
+            "   and (t.transactedAt < :transactedAt or t.transactionNo < :transactionNo)" +
+            " order by t.transactedAt desc, t.transactionNo desc")
+    List<Transaction> findHistoryBefore(@Param("accountId") Long accountId,
+                                        @Param("transactionType") TransactionType transactionType,
+                                        @Param("resultType") TransactionResultType resultType,
+                                        @Param("transactedAt") LocalDateTime transactedAt,
+                                        @Param("transactionNo") Long transactionNo,
+                                        Pageable pageable);
 }
@@ -0,0 +1,88 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NUMBER_EXHAUSTED;
+
+/**
+ 계좌번호 발급
+ DB 시퀀스(account_number_block_seq)에서 BLOCK_SIZE개씩 계좌번호 구간을 예약해두고 메모리에서 하나씩 꺼내준다.
+
+ - 구간 안에서는 AtomicLong 증가만 하므로 lock, DB 조회 없이 발급된다.
+ - 구간을 다 쓴 경우에만 시퀀스를 한번 호출한다. (BLOCK_SIZE건 마다 1번)
+ - 서버마다 다른 구간을 예약하므로 여러 서버에서 동시에 생성해도 번호가 겹치지 않는다.
+   (대신 서버가 재시작되면 남은 구간은 버려지고, 서버간 계좌번호가 생성 순서대로 증가하지는 않는다.)
+ - 시퀀스가 없으면(처음 시작) 이미 발급된 계좌번호 다음 구간부터 시작하도록 만든다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccountNumberAllocator {
+    // 한번에 예약하는 계좌번호 개수 (바꾸면 이미 발급된 구간과 겹칠 수 있으므로 바꾸지 않는다.)
+    static final int BLOCK_SIZE = 100;
+    // 계좌번호는 10자리
+    private static final long MAX_ACCOUNT_NUMBER = 9_999_999_999L;
+
+    private final AccountRepository accountRepository;
+
+    private volatile Block block = new Block(0L, 0L);
+
+    /** 다음 계좌번호 발급 */
+    public String nextAccountNumber() {
+        while (true) {
+            Block current = block;
+            long accountNumber = current.next.getAndIncrement();
+            if (accountNumber < current.end) {
+                if (accountNumber > MAX_ACCOUNT_NUMBER) {
+                    throw new AccountException(ACCOUNT_NUMBER_EXHAUSTED);
+                }
+                return Long.toString(accountNumber);
+            }
+            reserveBlock(current);
+        }
+    }
+
+    // 구간을 다 쓴 스레드 중 하나만 새 구간을 예약하고, 나머지는 예약된 구간을 이어서 사용한다.
+    private synchronized void reserveBlock(Block exhausted) {
+        if (block != exhausted) {
+            return;
+        }
+        long start;
+        try {
+            start = accountRepository.reserveAccountNumberBlock(BLOCK_SIZE);
+        } catch (DataAccessException e) {
+            // 시퀀스가 없는 경우 (처음 시작) -> 만든 뒤 다시 예약
+            log.info("Account number sequence unavailable, create : {}", e.getMessage());
+            createSequence();
+            start = accountRepository.reserveAccountNumberBlock(BLOCK_SIZE);
+        }
+        block = new Block(start, start + BLOCK_SIZE);
+        log.debug("account number block reserved : {} ~ {}", start, start + BLOCK_SIZE - 1);
+    }
+
+    // 다른 서버가 먼저 만든 경우 생성은 실패하지만 이어서 예약하면 된다.
+    private void createSequence() {
+        try {
+            accountRepository.createAccountNumberBlockSequence(BLOCK_SIZE);
+        } catch (DataAccessException e) {
+            log.warn("Failed to create account number sequence : {}", e.getMessage());
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL;
+
+/** 계좌별 요청 순서대기열 (account.lock.sequencer.enabled=true)
+ *  LocalLockService와 달리 같은 계좌 요청을 도착한 순서대로 줄세워 하나씩 처리하고,
+ *  대기열이 가득 차면 기다리지 않고 바로 거절한다.
+ *
+ *  계좌마다 공정(fair) ReentrantLock 하나를 대기열로 사용하고,
+ *  차례가 된 요청은 자신의 스레드에서 그대로 처리한다.
+ *  (별도 작업 스레드로 넘기지 않으므로 트랜잭션, fencing token 등 스레드에 묶인 상태가 그대로 유지됨)
+ *  대기중인 요청은 서블릿 스레드를 붙잡고 있으므로
+ *  - 대기시간은 @AccountLock.tryLockTime 을 넘지 않고,
+ *  - 계좌별 대기 수(capacity)와 별도로 전체 계좌의 대기 수(max-total)도 제한해
+ *    hot 계좌 몇 개가 Tomcat 스레드를 모두 차지하지 못하도록 한다.
+ *  대기중인 요청이 없는 계좌는 대기열에서 바로 제거해 계좌 수만큼 메모리가 늘어나지 않도록 한다.
+ */
+@Slf4j
+@Service
+public class AccountSequencer {
+    // 계좌별 최대 대기 요청 수 (처리중인 요청 포함)
+    @Value("${account.lock.sequencer.capacity:100}")
+    private int capacity;
+
+    // 전체 계좌의 최대 대기 요청 수 (처리중인 요청 포함)
+    // 대기 요청마다 서블릿 스레드 하나를 점유하므로 Tomcat 스레드 수(기본 200)보다 작게 둔다.
+    @Value("${account.lock.sequencer.max-total:100}")
+    private int maxTotal;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger totalDepth = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    // 계좌별 대기열
+    // depth 는 ConcurrentHashMap.compute 안에서만 변경한다.
+    private static class Lane {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private volatile int depth;
+    }
+
+    /** 대기열에 들어가 차례가 될 때까지 대기
+     *  대기열이 가득 찼으면 바로 거절하고, waitTime(ms) 안에 차례가 오지 않으면 실패한다. */
+    public void enter(String accountNumber, long waitTime) {
+        if (!reserveTotal()) {
+            rejectedCount.increment();
+            log.error("========== Account queue full (total) : {} ==========", accountNumber);
+            throw new AccountException(ACCOUNT_TRANSACTION_QUEUE_FULL);
+        }
+        boolean[] admitted = new boolean[1];
+        Lane lane = lanes.compute(accountNumber, (key, current) -> {
+            Lane l = current == null ? new Lane() : current;
+            if (l.depth < capacity) {
+                l.depth++;
+                admitted[0] = true;
+            }
+            return l;
+        });
+        if (!admitted[0]) {
+            totalDepth.decrementAndGet();
+            rejectedCount.increment();
+            log.error("========== Account queue full : {} ==========", accountNumber);
+            throw new AccountException(ACCOUNT_TRANSACTION_QUEUE_FULL);
+        }
+
+        try {
+            if (!lane.lock.tryLock(waitTime, TimeUnit.MILLISECONDS)) {
+                leave(accountNumber);
+                log.error("========== Account queue timeout : {} ==========", accountNumber);
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            leave(accountNumber);
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    /** 처리 완료 후 다음 요청에 차례를 넘김 (enter 한 스레드에서 호출해야 한다.) */
+    public void exit(String accountNumber) {
+        Lane lane = lanes.get(accountNumber);
+        if (lane == null) {
+            throw new IllegalMonitorStateException(
+                    "attempt to exit queue, not entered : " + accountNumber);
+        }
+        lane.lock.unlock();
+        leave(accountNumber);
+    }
+
+    // 전체 대기 수가 max-total 미만일 때만 한 자리 예약
+    private boolean reserveTotal() {
+        int current;
+        do {
+            current = totalDepth.get();
+            if (current >= maxTotal) {
+                return false;
+            }
+        } while (!totalDepth.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    // 대기열에서 빠짐. 대기중인 요청이 없으면 계좌 대기열 제거
+    private void leave(String accountNumber) {
+        lanes.computeIfPresent(accountNumber,
+                (key, lane) -> --lane.depth == 0 ? null : lane);
+        totalDepth.decrementAndGet();
+    }
+
+    /** 계좌의 대기 요청 수 (처리중인 요청 포함) */
+    public int getQueueDepth(String accountNumber) {
+        Lane lane = lanes.get(accountNumber);
+        return lane == null ? 0 : lane.depth;
+    }
+
+    /** 대기 요청이 있는 계좌 수 */
+    public int getQueuedAccountCount() {
+        return lanes.size();
+    }
+
+    /** 전체 대기 요청 수 */
+    public int getTotalQueueDepth() {
+        return totalDepth.get();
+    }
+
+    /** 대기열이 가득 차 거절된 요청 수 */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+}
@@ -9,12 +9,13 @@ import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.transaction.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.example.account.domain.AccountStatus.IN_USE;
 import static com.example.account.type.ErrorCode.*;
@@ -55,6 +56,11 @@ public class AccountService {
     // 필드 final 선언 -> 생성자를 통해서만 필드값을 초기화하고 그 외 변경불가. (final은 무조건 생성자에 포함되어있어야 한다.)
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final LedgerService ledgerService;
+    private final BalanceEngine balanceEngine;
+
+    private static final int MAX_ACCOUNT_PER_USER = 10;
 
     // 반환값
     // Entity 클래스는 다른 클래스와는 다른 성격을 지닌다.
@@ -86,14 +92,9 @@ public class AccountService {
 
         validateCreateAccount(accountUser);
 
-        // 2. 계좌번호 생성 = 마지막계좌번호 + 1 (계좌번호는 총 10자리)
-        // - accountRepository.findFirstByOrderByIdDesc() 결과값 존재
-        //   -> 문자열 계좌번호를 숫자로 파싱 -> +1 -> 다시 문자열로 변환
-        // - accountRepository.findFirstByOrderByIdDesc() 결과값 미존재 = 계좌번호가 하나도 없음
-        //   -> 100000000로 계좌번호 생성
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Integer.parseInt(account.getAccountNumber())) + 1 + "")
-                .orElse("1000000000");
+        // 2. 계좌번호 생성 (계좌번호는 총 10자리, 1000000000부터 시작)
+        // - 시퀀스에서 미리 예약해둔 구간에서 꺼내 쓰므로 대부분 DB 조회 없이 생성된다.
+        String newAccountNumber = accountNumberAllocator.nextAccountNumber();
 
         // 3. 계좌 저장 및 정보 전달
         return AccountDto.fromEntity(
@@ -115,7 +116,9 @@ public class AccountService {
 
     private void validateCreateAccount(AccountUser accountUser) {
         // 사용자의 계좌 수 = 최대 10건 이하
-        if(accountRepository.countByAccountUser(accountUser) >= 10) {
+        // 계좌 count 조회 대신 사용자의 계좌 수(accountCount)를 검사하면서 +1 한다.
+        if(accountUserRepository.increaseAccountCount(
+                accountUser.getId(), MAX_ACCOUNT_PER_USER) == 0) {
             throw new AccountException(MAX_ACCOUNT_PER_USER_10);
         }
     }
@@ -130,10 +133,17 @@ public class AccountService {
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
 
         validateDeleteAccount(accountUser, account);
+        if (balanceEngine.isEnabled()) {
+            // 엔진 모드 : 잔액 검증과 이후 거래 거절은 엔진 계좌 테이블에서 한다. (DB 잔액은 반영 전일 수 있음)
+            balanceEngine.closeAccount(accountUser.getId(), accountNumber);
+            reopenOnRollback(accountUser.getId(), accountNumber);
+        }
 
         //사용자아이디, 계좌번호, 계좌상태, 해지일시 return
         account.setAccountStatus(AccountStatus.UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
+        // 상태가 바뀐 계좌는 계좌번호 캐시에서 삭제
+        accountRepository.evictAccountNumber(accountNumber);
 
         // 아래의 save() 메서드를 사용하지 않아도 동작함.
         // account에 상태값, 해지일시 등 업데이트 되는지 테스트코드에서 확인하기위해 추가.
@@ -142,7 +152,35 @@ public class AccountService {
         // (불필요한 코드가 추가되더라도 테스트가 원활한 게 더 좋은 경우도 있기 때문.)
         accountRepository.save(account);
 
-        return AccountDto.fromEntity(account);
+        AccountDto accountDto = AccountDto.fromEntity(account);
+        if (ledgerService.isEnabled() || balanceEngine.isEnabled()) {
+            // 원장 모드에서 account.balance는 시작잔액, 엔진 모드에서는 DB 반영 전 잔액일 수 있음
+            // -> 해지된 계좌의 잔액은 0
+            accountDto.setBalance(0L);
+        }
+        return accountDto;
+    }
+
+    // 엔진에서 해지한 뒤 DB 해지가 rollback 되면 엔진 계좌 테이블도 다시 사용중으로 돌린다.
+    private void reopenOnRollback(Long userId, String accountNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            balanceEngine.reopenAccount(userId, accountNumber);
+                        }
+                    }
+                });
+    }
+
+    // 계좌 현재잔액 (원장 모드면 원장으로 계산한 잔액)
+    private long balanceOf(Account account) {
+        return ledgerService.isEnabled()
+                ? ledgerService.getBalance(account) : account.getBalance();
     }
 
     private void validateDeleteAccount(AccountUser accountUser, Account account) {
@@ -154,8 +192,8 @@ public class AccountService {
         if(account.getAccountStatus() == AccountStatus.UNREGISTERED) {
             throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
         }
-        // 잔액이 있는 경우
-        if(account.getBalance() > 0) {
+        // 잔액이 있는 경우 (원장 모드면 원장으로 계산한 잔액, 엔진 모드면 엔진에서 검증)
+        if(!balanceEngine.isEnabled() && balanceOf(account) > 0) {
             throw new AccountException(BALANCE_NOT_EMPTY);
         }
     }
@@ -164,15 +202,15 @@ public class AccountService {
     @Transactional
     public List<AccountDto> getAccountsByUserId(Long userId) {
         AccountUser accountUser = getAccountUser(userId);
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
-
-        // accounts.stream() : List -> stream으로 변경
-        // map(AccountDto::fromEntity) : Account를 AccountDto 타입으로 변경
-        //                             = map(account -> AccountDto.fromEntity(account))
-        // collect(Collectors.toList()) : stream() -> List 형태로 변경
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+
+        // 예전에는 Account Entity 목록을 조회해 AccountDto로 변환
+        //   accounts.stream().map(AccountDto::fromEntity).collect(Collectors.toList())
+        // -> 조회 결과를 AccountDto로 바로 받아 Entity 생성, 변환을 하지 않는다.
+        // 원장 모드 : 시작잔액 대신 원장으로 계산한 잔액으로 조회 (계좌별 조회 없이 쿼리 한번)
+        if (ledgerService.isEnabled()) {
+            return accountRepository.findLedgerDtoByAccountUserId(accountUser.getId());
+        }
+        return accountRepository.findDtoByAccountUserId(accountUser.getId());
     }
 
     /** 계좌조회 */
@@ -0,0 +1,600 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountStatus;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceEngineEvent;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.example.account.type.ErrorCode.*;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/** 단일 스레드 잔액 엔진 (account.engine.enabled=true)
+ *  잔액 사용/사용 취소 요청을 ring buffer에 넣으면 엔진 스레드 하나가 순서대로 꺼내
+ *  메모리의 계좌 테이블(primitive 배열)에서 검증하고 잔액을 변경한다.
+ *  변경할 스레드가 하나뿐이라 Redis Lock, DB row lock 없이 처리한다.
+ *
+ *  1. 요청 스레드 : ring buffer의 빈 칸에 요청을 쓰고 엔진 스레드의 처리결과를 기다린다.
+ *  2. 엔진 스레드 : 검증 -> 저널(BalanceJournal) 기록 -> 메모리 잔액 변경
+ *                  꺼낼 요청이 없으면 모아둔 거래를 저널 force 한번으로 디스크에 반영한 뒤 응답한다.
+ *  3. DB 반영 스레드 : 응답한 거래를 모아서 한 트랜잭션으로 Account 잔액, Transaction 테이블에 반영하고
+ *                     반영한 순번을 저널 checkpoint에 기록한다.
+ *  4. 재시작 : 저널의 마지막 잔액으로 계좌 테이블을 만들고, checkpoint 이후 거래를 다시 DB에 반영한다.
+ *
+ *  - 저널에는 요청이 아니라 처리결과(거래 후 잔액, 거래번호)를 기록한다.
+ *    계좌는 처음 거래할 때 DB에서 읽어오므로 요청만 다시 실행하면 같은 결과가 나온다는 보장이 없기 때문.
+ *  - 응답한 거래는 DB 반영 전에도 거래조회 캐시로 조회할 수 있다.
+ *  - 사용 취소 검증(원거래, 중복 취소)은 엔진 스레드에서 한다. DB 반영은 비동기라 DB만 보면 늦을 수 있으므로
+ *    DB 반영 전 거래는 엔진이 기억해둔 거래로, 반영이 끝난 거래는 DB로 확인한다.
+ *    (DB 반영은 비동기라 unique 제약 위반을 응답할 수 없기 때문)
+ *    기억해둔 거래는 DB 반영(checkpoint)이 끝나면 지우므로 저널에 담기는 거래 수 이상으로 늘어나지 않는다.
+ *  - 엔진을 켜면 잔액은 엔진이 관리한다. 잔액 사용 일괄요청은 사용할 수 없다.
+ *  - 계좌 해지도 엔진 스레드에서 메모리 잔액으로 검증하고 계좌 테이블을 해지 상태로 바꾼다.
+ *    (DB 잔액은 반영 전이라 늦을 수 있고, 해지 후에 들어온 사용/사용 취소를 엔진에서 거절해야 하기 때문)
+ *    해지 상태는 저널에 기록하지 않고, 재시작 시 DB 계좌상태로 계좌 테이블을 만든다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceEngine {
+    // 처리할 요청이 없을 때 엔진 스레드 대기시간
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // ring buffer가 가득 찼을 때 요청 스레드 대기시간
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    // 저널 force 한번에 모을 최대 거래 수
+    private static final int MAX_FLUSH_SIZE = 1000;
+    // 엔진 처리결과 최대 대기시간 (시간이 지나면 결과를 알 수 없으므로 TRANSACTION_RESULT_UNKNOWN, 거래확인 api로 확인)
+    private static final long RESPONSE_TIMEOUT_SECONDS = 10L;
+    private static final int INITIAL_ACCOUNT_CAPACITY = 1024;
+
+    private final AccountRepository accountRepository;
+    private final TransactionService transactionService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionQueryCache transactionQueryCache;
+
+    @Value("${account.engine.enabled:false}")
+    private boolean enabled;
+
+    // ring buffer 크기 (2의 제곱수)
+    @Value("${account.engine.ring-size:1024}")
+    private int ringSize;
+
+    @Value("${account.engine.journal-path:./data/balance-engine.journal}")
+    private String journalPath;
+
+    // 저널 파일 크기(byte). 가득 차면 DB 반영이 끝날 때까지 기다렸다가 처음부터 다시 사용한다.
+    @Value("${account.engine.journal-size:67108864}")
+    private int journalSize;
+
+    // 한 트랜잭션으로 DB에 반영할 최대 거래 수
+    @Value("${account.engine.persist-batch-size:500}")
+    private int persistBatchSize;
+
+    @Value("${account.ledger.enabled:false}")
+    private boolean ledger;
+
+    @Value("${account.debit.atomic:false}")
+    private boolean atomicDebit;
+
+    @Value("${account.debit.group-commit.enabled:false}")
+    private boolean groupCommit;
+
+    // ring buffer : 칸(Command)은 미리 만들어두고 재사용한다.
+    // published[i] 에 칸 i에 마지막으로 쓴 요청의 순번을 기록해 엔진 스레드가 읽을 수 있는지 확인한다.
+    private Command[] ring;
+    private AtomicLongArray published;
+    private int mask;
+    private final AtomicLong claimedSequence = new AtomicLong(-1L);
+    private volatile long consumedSequence = -1L;
+
+    // 계좌 테이블 (엔진 스레드만 사용)
+    private final Map<String, Integer> slots = new HashMap<>();
+    private long[] accountIds = new long[INITIAL_ACCOUNT_CAPACITY];
+    private long[] ownerIds = new long[INITIAL_ACCOUNT_CAPACITY];
+    private long[] balances = new long[INITIAL_ACCOUNT_CAPACITY];
+    private boolean[] inUse = new boolean[INITIAL_ACCOUNT_CAPACITY];
+    private int accountCount;
+    // DB 반영 전 거래 (엔진 스레드만 사용, 재시작 시 저널의 checkpoint 이후 거래로 다시 만든다.)
+    // 처리 순서(seq) 대로 쌓고 DB 반영이 끝난 거래는 앞에서부터 지운다. (pruneUnpersisted)
+    private final Deque<BalanceEngineEvent> unpersistedEvents = new ArrayDeque<>();
+    // DB 반영 전 거래 (거래번호 -> 거래)
+    private final Map<Long, BalanceEngineEvent> unpersistedTransactions = new HashMap<>();
+    // DB 반영 전 사용 취소의 원거래 번호
+    private final Set<Long> unpersistedCancels = new HashSet<>();
+
+    private BalanceJournal journal;
+    private final BlockingQueue<BalanceEngineEvent> persistQueue = new LinkedBlockingQueue<>();
+    private Thread engine;
+    private Thread persister;
+    private volatile boolean running;
+    private volatile boolean persisting;
+
+    // ring buffer 칸
+    private static final class Command {
+        private TransactionType transactionType;
+        private AccountStatus accountStatus; // 계좌 상태변경 요청만 (잔액 거래면 null)
+        private Long userId; // 잔액 사용만
+        private String accountNumber;
+        private long amount;
+        private Long cancelledTransactionNo; // 사용 취소만
+        private CompletableFuture<TransactionDto> result;
+    }
+
+    // 저널 force 후 응답할 처리결과 (성공이면 event, 실패면 error, 계좌 상태변경 성공이면 둘 다 null)
+    private static final class Completion {
+        private final CompletableFuture<TransactionDto> result;
+        private final BalanceEngineEvent event;
+        private final RuntimeException error;
+
+        private Completion(CompletableFuture<TransactionDto> result,
+                           BalanceEngineEvent event, RuntimeException error) {
+            this.result = result;
+            this.event = event;
+            this.error = error;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (ledger || atomicDebit || groupCommit) {
+            throw new IllegalStateException(
+                    "account.engine.enabled can not be used with account.ledger.enabled,"
+                            + " account.debit.atomic or account.debit.group-commit.enabled");
+        }
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalStateException("account.engine.ring-size must be a power of 2");
+        }
+        ring = new Command[ringSize];
+        published = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new Command();
+            published.set(i, -1L);
+        }
+        mask = ringSize - 1;
+
+        journal = BalanceJournal.open(Paths.get(journalPath), journalSize);
+        recover(journal.readAll());
+
+        running = true;
+        persisting = true;
+        engine = new Thread(this::run, "balance-engine");
+        engine.setDaemon(true);
+        engine.start();
+        persister = new Thread(this::persist, "balance-engine-persister");
+        persister.setDaemon(true);
+        persister.start();
+    }
+
+    // 엔진 스레드가 받은 요청까지 처리하고 DB 반영이 끝나면 종료
+    // (DB 반영을 끝내지 못한 거래는 저널에 남아 재시작 시 반영된다.)
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (engine != null) {
+            engine.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        persisting = false;
+        if (persister != null) {
+            persister.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 잔액 사용
+     * 검증(소유주, 해지여부, 잔액)은 엔진 스레드에서 메모리 계좌 테이블로 한다. */
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        return submit(USE, null, userId, accountNumber, amount, null);
+    }
+
+    /** 잔액 사용 취소
+     * 원거래 검증과 중복 취소 확인은 엔진 스레드에서 한다. (validateCancelBalance) */
+    public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
+        Long transactionNo = Transaction.toTransactionNo(transactionId);
+        if (transactionNo == null) {
+            throw new AccountException(TRANSACTION_NOT_FOUND);
+        }
+        return submit(CANCEL, null, null, accountNumber, amount, transactionNo);
+    }
+
+    /** 계좌 해지
+     * 엔진 스레드에서 소유주, 해지여부, 메모리 잔액을 검증하고 계좌 테이블을 해지 상태로 바꾼다.
+     * 이후 들어온 잔액 사용/사용 취소는 해지된 계좌로 거절된다. */
+    public void closeAccount(Long userId, String accountNumber) {
+        submit(null, AccountStatus.UNREGISTERED, userId, accountNumber, 0L, null);
+    }
+
+    /** 계좌 해지 취소
+     * 엔진에서 해지한 뒤 DB 해지가 rollback 된 경우 계좌 테이블을 다시 사용중으로 돌린다. */
+    public void reopenAccount(Long userId, String accountNumber) {
+        submit(null, AccountStatus.IN_USE, userId, accountNumber, 0L, null);
+    }
+
+    private TransactionDto submit(TransactionType transactionType, AccountStatus accountStatus,
+                                  Long userId, String accountNumber, long amount,
+                                  Long cancelledTransactionNo) {
+        if (!running) {
+            throw new IllegalStateException("Balance engine is not running");
+        }
+        CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+
+        // 빈 칸 예약 : 한 바퀴 전 요청을 엔진 스레드가 꺼내갈 때까지 대기
+        long sequence = claimedSequence.incrementAndGet();
+        while (sequence - ring.length > consumedSequence) {
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        Command command = ring[(int) (sequence & mask)];
+        command.transactionType = transactionType;
+        command.accountStatus = accountStatus;
+        command.userId = userId;
+        command.accountNumber = accountNumber;
+        command.amount = amount;
+        command.cancelledTransactionNo = cancelledTransactionNo;
+        command.result = result;
+        published.set((int) (sequence & mask), sequence);
+
+        try {
+            return result.get(RESPONSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            log.error("Balance engine response timeout : {}", accountNumber);
+            throw new AccountException(TRANSACTION_RESULT_UNKNOWN);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(TRANSACTION_RESULT_UNKNOWN);
+        }
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) (sequence & mask)) == sequence;
+    }
+
+    // 엔진 스레드
+    private void run() {
+        List<Completion> completions = new ArrayList<>();
+        long next = consumedSequence + 1;
+        while (running || isPublished(next)) {
+            if (!isPublished(next)) {
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            pruneUnpersisted();
+            // 꺼낼 요청이 있는 동안 계속 처리하고, 없으면 저널 force 후 한번에 응답
+            do {
+                Command command = ring[(int) (next & mask)];
+                process(command, completions);
+                command.result = null;
+                consumedSequence = next;
+                next++;
+            } while (completions.size() < MAX_FLUSH_SIZE && isPublished(next));
+            flush(completions);
+        }
+    }
+
+    private void process(Command command, List<Completion> completions) {
+        try {
+            if (command.transactionType == CANCEL) {
+                validateCancelBalance(command.accountNumber,
+                        command.cancelledTransactionNo, command.amount);
+            }
+            int slot = slotOf(command.accountNumber);
+            if (command.accountStatus != null) {
+                changeAccountStatus(slot, command.userId, command.accountStatus);
+                completions.add(new Completion(command.result, null, null));
+                return;
+            }
+            long balance = balances[slot];
+            long balanceAfter;
+            if (command.transactionType == USE) {
+                validateUseBalance(slot, command.userId, command.amount);
+                balanceAfter = balance - command.amount;
+            } else {
+                // 해지된 계좌는 사용 취소불가 (해지 시 잔액 0 이어야 하므로)
+                if (!inUse[slot]) {
+                    throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+                }
+                balanceAfter = balance + command.amount;
+            }
+
+            BalanceEngineEvent event = BalanceEngineEvent.builder()
+                    .seq(journal.getLastSeq() + 1)
+                    .transactionType(command.transactionType)
+                    .transactionNo(transactionIdGenerator.nextId())
+                    .accountNumber(command.accountNumber)
+                    .amount(command.amount)
+                    .balanceAfter(balanceAfter)
+                    .transactedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS))
+                    .cancelledTransactionNo(command.cancelledTransactionNo)
+                    .build();
+            append(event, completions);
+            balances[slot] = balanceAfter;
+            trackUnpersisted(event);
+            completions.add(new Completion(command.result, event, null));
+        } catch (RuntimeException e) {
+            if (e instanceof AccountException) {
+                // 실패거래는 DB가 아닌 엔진의 실패 시점 잔액으로 저장한다. (DB 잔액은 반영 전일 수 있음)
+                Integer slot = slots.get(command.accountNumber);
+                if (slot != null) {
+                    ((AccountException) e).withAccount(accountIds[slot], balances[slot]);
+                }
+            } else {
+                log.error("Balance engine failed to process : {}", command.accountNumber, e);
+            }
+            completions.add(new Completion(command.result, null, e));
+        }
+    }
+
+    private void validateUseBalance(int slot, Long userId, long amount) {
+        // 사용자 아이디와 계좌 소유주가 다른 경우
+        if (userId == null || ownerIds[slot] != userId) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        // 계좌가 이미 해지 상태인 경우
+        if (!inUse[slot]) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        // 거래금액이 잔액보다 큰 경우
+        if (balances[slot] < amount) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    // 사용 취소 원거래 검증 (엔진 스레드)
+    // DB 반영 전 거래는 엔진이 기억해둔 거래로, 반영이 끝난 거래는 거래조회(캐시 -> DB)로 확인한다.
+    // 반영(commit)이 끝난 거래만 엔진에서 지우므로 둘 중 한 곳에서는 항상 확인된다.
+    // (DB 조회가 필요한 경우 엔진 스레드가 기다리지만, 사용 취소는 잔액 사용보다 훨씬 적다.)
+    private void validateCancelBalance(String accountNumber, long transactionNo, long amount) {
+        BalanceEngineEvent unpersisted = unpersistedTransactions.get(transactionNo);
+        TransactionDto transaction = unpersisted != null
+                ? toDto(unpersisted)
+                : transactionService.queryTransaction(Transaction.toTransactionId(transactionNo));
+        // 거래와 계좌가 일치하지 않는 경우
+        if (!Objects.equals(transaction.getAccountNumber(), accountNumber)) {
+            throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        // 성공한 사용 거래가 아닌 경우 (실패거래, 취소거래는 취소불가)
+        if (transaction.getTransactionType() != USE
+                || transaction.getTransactionResultType() != S) {
+            throw new AccountException(TRANSACTION_NOT_CANCELLABLE);
+        }
+        // 거래금액과 거래취소금액이 다른 경우 (부분취소불가)
+        if (!Objects.equals(transaction.getAmount(), amount)) {
+            throw new AccountException(CANCEL_MUST_FULLY);
+        }
+        // 1년이 넘은 거래는 사용취소불가
+        if (transaction.getTransactedAt().isBefore(LocalDateTime.now().minusYears(1L))) {
+            throw new AccountException(TOO_OLD_ORDER_TO_CANCEL);
+        }
+        // 이미 취소된 거래인 경우 (DB 반영 전 취소는 엔진에서, 반영된 취소는 DB에서 확인)
+        // 원거래가 DB 반영 전이면 그 취소도 반영 전이므로 DB는 조회하지 않는다.
+        if (unpersistedCancels.contains(transactionNo)
+                || (unpersisted == null && transactionService.isCancelled(transactionNo))) {
+            throw new AccountException(TRANSACTION_ALREADY_CANCELLED);
+        }
+    }
+
+    // DB 반영 전 거래로 기억
+    private void trackUnpersisted(BalanceEngineEvent event) {
+        unpersistedEvents.addLast(event);
+        unpersistedTransactions.put(event.getTransactionNo(), event);
+        if (event.getCancelledTransactionNo() != null) {
+            unpersistedCancels.add(event.getCancelledTransactionNo());
+        }
+    }
+
+    // DB 반영(checkpoint)이 끝난 거래는 지운다. (이후에는 DB에서 확인)
+    private void pruneUnpersisted() {
+        long checkpoint = journal.getCheckpoint();
+        while (!unpersistedEvents.isEmpty() && unpersistedEvents.peekFirst().getSeq() <= checkpoint) {
+            BalanceEngineEvent event = unpersistedEvents.pollFirst();
+            unpersistedTransactions.remove(event.getTransactionNo());
+            if (event.getCancelledTransactionNo() != null) {
+                unpersistedCancels.remove(event.getCancelledTransactionNo());
+            }
+        }
+    }
+
+    // 계좌 해지 / 해지 취소 (잔액은 바뀌지 않으므로 저널에 기록하지 않는다.)
+    private void changeAccountStatus(int slot, Long userId, AccountStatus accountStatus) {
+        // 사용자 아이디와 계좌 소유주가 다른 경우
+        if (userId == null || ownerIds[slot] != userId) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        if (accountStatus == AccountStatus.IN_USE) {
+            inUse[slot] = true;
+            return;
+        }
+        // 계좌가 이미 해지 상태인 경우
+        if (!inUse[slot]) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        // 잔액이 있는 경우
+        if (balances[slot] > 0) {
+            throw new AccountException(BALANCE_NOT_EMPTY);
+        }
+        inUse[slot] = false;
+    }
+
+    // 저널이 가득 찼으면 지금까지 처리한 거래를 응답하고, DB 반영이 끝나면 저널을 처음부터 다시 사용
+    private void append(BalanceEngineEvent event, List<Completion> completions) {
+        if (!journal.hasRoom()) {
+            flush(completions);
+            log.warn("Balance journal is full, wait for persisting : {}", journal.getLastSeq());
+            while (journal.getCheckpoint() < journal.getLastSeq()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            journal.reset();
+        }
+        journal.append(event);
+    }
+
+    // 저널을 디스크에 반영한 뒤 응답하고 DB 반영 스레드로 전달
+    private void flush(List<Completion> completions) {
+        if (completions.isEmpty()) {
+            return;
+        }
+        journal.force();
+        for (Completion completion : completions) {
+            if (completion.error != null) {
+                completion.result.completeExceptionally(completion.error);
+                continue;
+            }
+            if (completion.event == null) {
+                completion.result.complete(null);
+                continue;
+            }
+            TransactionDto transactionDto = toDto(completion.event);
+            transactionQueryCache.put(completion.event.getTransactionNo(), transactionDto);
+            persistQueue.add(completion.event);
+            completion.result.complete(transactionDto);
+        }
+        completions.clear();
+    }
+
+    // 계좌 테이블 위치 (처음 거래하는 계좌는 DB에서 읽어온다.)
+    private int slotOf(String accountNumber) {
+        Integer slot = slots.get(accountNumber);
+        if (slot != null) {
+            return slot;
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        return addAccount(account, account.getBalance());
+    }
+
+    private int addAccount(Account account, long balance) {
+        if (accountCount == balances.length) {
+            int capacity = accountCount * 2;
+            accountIds = Arrays.copyOf(accountIds, capacity);
+            ownerIds = Arrays.copyOf(ownerIds, capacity);
+            balances = Arrays.copyOf(balances, capacity);
+            inUse = Arrays.copyOf(inUse, capacity);
+        }
+        int slot = accountCount++;
+        accountIds[slot] = account.getId();
+        ownerIds[slot] = account.getAccountUser().getId();
+        balances[slot] = balance;
+        inUse[slot] = account.getAccountStatus() == AccountStatus.IN_USE;
+        slots.put(account.getAccountNumber(), slot);
+        return slot;
+    }
+
+    // 재시작 : 저널의 마지막 잔액으로 계좌 테이블을 만들고 checkpoint 이후 거래는 다시 DB에 반영
+    private void recover(List<BalanceEngineEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<String, Long> lastBalances = new LinkedHashMap<>();
+        long checkpoint = journal.getCheckpoint();
+        int unpersisted = 0;
+        for (BalanceEngineEvent event : events) {
+            lastBalances.put(event.getAccountNumber(), event.getBalanceAfter());
+            if (event.getSeq() > checkpoint) {
+                transactionQueryCache.put(event.getTransactionNo(), toDto(event));
+                persistQueue.add(event);
+                trackUnpersisted(event);
+                unpersisted++;
+            }
+        }
+        for (Account account : accountRepository.findByAccountNumberIn(lastBalances.keySet())) {
+            addAccount(account, lastBalances.get(account.getAccountNumber()));
+        }
+        log.info("Balance journal recovered : events={}, unpersisted={}, accounts={}",
+                events.size(), unpersisted, accountCount);
+    }
+
+    // DB 반영 스레드
+    private void persist() {
+        List<BalanceEngineEvent> batch = new ArrayList<>(persistBatchSize);
+        while (persisting || !persistQueue.isEmpty()) {
+            try {
+                BalanceEngineEvent first = persistQueue.poll(100L, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                persistQueue.drainTo(batch, persistBatchSize - 1);
+            } catch (InterruptedException e) {
+                persisting = false;
+            }
+            if (!batch.isEmpty() && !save(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // 실패하면 성공할 때까지 다시 시도 (종료중이면 포기하고 저널에 남겨둔다.)
+    private boolean save(List<BalanceEngineEvent> batch) {
+        while (true) {
+            try {
+                transactionService.saveEngineEvents(batch);
+                journal.setCheckpoint(batch.get(batch.size() - 1).getSeq());
+                return true;
+            } catch (RuntimeException e) {
+                log.error("Balance engine failed to persist : {}", batch.size(), e);
+                if (!persisting) {
+                    return false;
+                }
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private static TransactionDto toDto(BalanceEngineEvent event) {
+        return TransactionDto.builder()
+                .accountNumber(event.getAccountNumber())
+                .transactionType(event.getTransactionType())
+                .transactionResultType(S)
+                .amount(event.getAmount())
+                .balanceSnapshot(event.getBalanceAfter())
+                .transactionId(Transaction.toTransactionId(event.getTransactionNo()))
+                .transactedAt(event.getTransactedAt())
+                .build();
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceEngineEvent;
+import com.example.account.type.TransactionType;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/** 잔액 엔진 저널 (memory-mapped 파일)
+ *  잔액 엔진(BalanceEngine)은 거래를 메모리에 반영하기 전에 이 저널에 먼저 기록하고,
+ *  force(디스크 반영) 후에 응답한다. 서버가 죽으면 저널을 읽어 잔액과 DB에 반영하지 못한 거래를 복구한다.
+ *
+ *  파일 구조
+ *  - header(16 byte) : magic(8) + checkpoint(8, DB 반영이 끝난 마지막 순번)
+ *  - record : seq(8) type(1) transactionNo(8) amount(8) balanceAfter(8) transactedAt(8)
+ *             cancelledTransactionNo(8, 사용 취소가 아니면 0) 계좌번호 길이(1) 계좌번호(n)
+ *    seq는 record의 나머지를 모두 쓴 뒤 마지막에 기록하고, 순번이 이어지지 않는 곳을 저널의 끝으로 본다.
+ *    (쓰다가 멈춘 record나 reset 이전의 record는 순번이 이어지지 않아 읽지 않는다.)
+ *
+ *  record 기록/reset은 엔진 스레드 하나에서만, checkpoint 기록은 DB 반영 스레드 하나에서만 한다.
+ *  (버퍼의 position을 쓰지 않고 절대 위치로만 읽고 쓴다.)
+ */
+public class BalanceJournal implements AutoCloseable {
+    private static final long MAGIC = 0x42414c4a524e4c32L; // "BALJRNL2"
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int FIXED_RECORD_SIZE = 8 + 1 + 8 + 8 + 8 + 8 + 8 + 1;
+    private static final int MAX_ACCOUNT_NUMBER_LENGTH = 32;
+    static final int MAX_RECORD_SIZE = FIXED_RECORD_SIZE + MAX_ACCOUNT_NUMBER_LENGTH;
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private int position = HEADER_SIZE;
+    private long lastSeq;
+    private volatile long checkpoint;
+
+    private BalanceJournal(RandomAccessFile file, MappedByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /** 저널 파일 열기 (없으면 size 크기로 생성) */
+    public static BalanceJournal open(Path path, int size) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+            if (file.length() < size) {
+                file.setLength(size);
+            }
+            MappedByteBuffer buffer = file.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+            BalanceJournal journal = new BalanceJournal(file, buffer);
+            journal.readHeader(path);
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open balance journal : " + path, e);
+        }
+    }
+
+    private void readHeader(Path path) {
+        long magic = buffer.getLong(0);
+        if (magic == 0L) {
+            buffer.putLong(0, MAGIC);
+            buffer.putLong(CHECKPOINT_OFFSET, 0L);
+            buffer.force();
+        } else if (magic != MAGIC) {
+            throw new IllegalStateException("Not a balance journal : " + path);
+        }
+        checkpoint = buffer.getLong(CHECKPOINT_OFFSET);
+        lastSeq = checkpoint;
+    }
+
+    /** 저널에 남아있는 거래를 순서대로 읽는다. (열고 나서 기록하기 전에 한번만 호출)
+     *  읽은 뒤에는 마지막 거래 다음 위치부터 기록한다. */
+    public List<BalanceEngineEvent> readAll() {
+        List<BalanceEngineEvent> events = new ArrayList<>();
+        int offset = HEADER_SIZE;
+        long expectedSeq = -1L;
+        while (offset + FIXED_RECORD_SIZE <= buffer.capacity()) {
+            long seq = buffer.getLong(offset);
+            if (seq <= 0L || (expectedSeq > 0L && seq != expectedSeq)) {
+                break;
+            }
+            int typeOrdinal = buffer.get(offset + 8);
+            int length = buffer.get(offset + 49);
+            if (typeOrdinal < 0 || typeOrdinal >= TYPES.length
+                    || length <= 0 || length > MAX_ACCOUNT_NUMBER_LENGTH
+                    || offset + FIXED_RECORD_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] accountNumber = new byte[length];
+            for (int i = 0; i < length; i++) {
+                accountNumber[i] = buffer.get(offset + FIXED_RECORD_SIZE + i);
+            }
+            events.add(BalanceEngineEvent.builder()
+                    .seq(seq)
+                    .transactionType(TYPES[typeOrdinal])
+                    .transactionNo(buffer.getLong(offset + 9))
+                    .amount(buffer.getLong(offset + 17))
+                    .balanceAfter(buffer.getLong(offset + 25))
+                    .transactedAt(toLocalDateTime(buffer.getLong(offset + 33)))
+                    .cancelledTransactionNo(toCancelledTransactionNo(buffer.getLong(offset + 41)))
+                    .accountNumber(new String(accountNumber, StandardCharsets.US_ASCII))
+                    .build());
+            expectedSeq = seq + 1;
+            offset += FIXED_RECORD_SIZE + length;
+        }
+        position = offset;
+        if (!events.isEmpty()) {
+            lastSeq = Math.max(lastSeq, events.get(events.size() - 1).getSeq());
+        }
+        return events;
+    }
+
+    /** 마지막으로 기록한 순번 (reset 후에도 이어서 증가) */
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    /** DB 반영이 끝난 마지막 순번 */
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /** DB 반영이 끝난 순번 기록
+     *  force 하지 않는다. (잃어버려도 재시작 시 이미 반영된 거래를 다시 반영하려다 건너뛸 뿐이다.) */
+    public void setCheckpoint(long seq) {
+        buffer.putLong(CHECKPOINT_OFFSET, seq);
+        checkpoint = seq;
+    }
+
+    /** 거래 하나를 더 기록할 공간이 있는지 */
+    public boolean hasRoom() {
+        return position + MAX_RECORD_SIZE + 8 <= buffer.capacity();
+    }
+
+    /** 거래 기록 (디스크 반영은 force에서 한번에) */
+    public void append(BalanceEngineEvent event) {
+        byte[] accountNumber = event.getAccountNumber().getBytes(StandardCharsets.US_ASCII);
+        if (accountNumber.length == 0 || accountNumber.length > MAX_ACCOUNT_NUMBER_LENGTH) {
+            throw new IllegalArgumentException("Invalid account number : " + event.getAccountNumber());
+        }
+        if (event.getSeq() != lastSeq + 1) {
+            throw new IllegalArgumentException("Journal sequence must be " + (lastSeq + 1));
+        }
+        if (!hasRoom()) {
+            throw new IllegalStateException("Balance journal is full");
+        }
+        int offset = position;
+        buffer.put(offset + 8, (byte) event.getTransactionType().ordinal());
+        buffer.putLong(offset + 9, event.getTransactionNo());
+        buffer.putLong(offset + 17, event.getAmount());
+        buffer.putLong(offset + 25, event.getBalanceAfter());
+        buffer.putLong(offset + 33, toEpochMilli(event.getTransactedAt()));
+        buffer.putLong(offset + 41, event.getCancelledTransactionNo() == null
+                ? 0L : event.getCancelledTransactionNo());
+        buffer.put(offset + 49, (byte) accountNumber.length);
+        for (int i = 0; i < accountNumber.length; i++) {
+            buffer.put(offset + FIXED_RECORD_SIZE + i, accountNumber[i]);
+        }
+        // 다음 위치는 끝 표시로 비워두고, 순번은 마지막에 기록
+        position = offset + FIXED_RECORD_SIZE + accountNumber.length;
+        buffer.putLong(position, 0L);
+        buffer.putLong(offset, event.getSeq());
+        lastSeq = event.getSeq();
+    }
+
+    /** 기록한 거래를 디스크에 반영 */
+    public void force() {
+        buffer.force();
+    }
+
+    /** 저널을 처음부터 다시 사용 (모든 거래의 DB 반영이 끝난 경우에만 가능) */
+    public void reset() {
+        if (checkpoint < lastSeq) {
+            throw new IllegalStateException("Balance journal has unpersisted events");
+        }
+        buffer.putLong(HEADER_SIZE, 0L);
+        buffer.force();
+        position = HEADER_SIZE;
+    }
+
+    @Override
+    public void close() {
+        buffer.force();
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Long toCancelledTransactionNo(long value) {
+        return value == 0L ? null : value;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ DB row lock (account.lock.provider=database)
+ Redis가 없는 환경에서 SELECT ... FOR UPDATE 로 계좌별 row에 lock을 걸어 동시성을 제어한다.
+
+ - lock을 잡은 커넥션은 unlock() 할 때까지 스레드별로 들고있다가 commit 하면서 lock을 해제한다.
+ - account 테이블의 row를 직접 잠그면 같은 요청의 잔액변경 트랜잭션(다른 커넥션)이
+   자기 자신이 잡은 lock을 기다리게 되므로, lock 전용 테이블(account_lock)의 row를 잠근다.
+   (account_lock 테이블은 AccountLockRow Entity로 생성)
+ - 처음 lock을 잡는 계좌는 lock row를 insert 하면서 잠그고, 이후에는 조회(FOR UPDATE)만 한다.
+ - lock 대기시간 초과, 중복키는 드라이버마다 예외 타입이 달라(PostgreSQL은 PSQLException 하나)
+   예외 타입과 SQLState로 구분한다.
+ - fencing token은 lock을 잡은 lock row의 카운터(fencing_token)를 같은 커넥션에서 증가시켜 발급한다.
+   (lock 해제(commit) 시 함께 저장된다.)
+ - 서버가 죽어 커넥션이 끊어지면 DB가 lock을 바로 해제해주기 때문에 leaseTime은 사용하지 않는다.
+ - lock을 기다리는 요청도 커넥션을 하나씩 사용하지만, 노드 내부 Lock(LocalLockService)을 먼저 잡으므로
+   계좌마다 서버당 한 요청만 기다린다. 잔액변경 트랜잭션은 lock을 얻은 뒤에 시작한다. (LockAopAspect)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "database")
+@RequiredArgsConstructor
+public class DatabaseLockProvider implements LockProvider {
+    private static final String INSERT_LOCK_ROW =
+            "insert into account_lock(account_number, fencing_token) values (?, 0)";
+    private static final String SELECT_FOR_UPDATE =
+            "select account_number from account_lock where account_number = ? for update";
+    // 이전 token + 1 과 현재시각 중 큰 값으로 증가
+    private static final String INCREASE_FENCING_TOKEN =
+            "update account_lock set fencing_token = case when fencing_token + 1 > ? " +
+            "then fencing_token + 1 else ? end where account_number = ?";
+    private static final String FIND_FENCING_TOKEN =
+            "select fencing_token from account_lock where account_number = ?";
+
+    // lock 대기시간 초과(다른 요청이 lock 점유중)로 보는 SQLState
+    // 55P03 : lock_not_available (PostgreSQL lock_timeout)
+    // 57014 : query_canceled (PostgreSQL, H2 statement timeout)
+    // HYT00 : timeout expired (H2 lock timeout)
+    // 40001, 40P01 : 직렬화 실패, deadlock (MySQL lock wait timeout 포함)
+    private static final Set<String> LOCK_TIMEOUT_STATES = new HashSet<>(
+            Arrays.asList("55P03", "57014", "HYT00", "40001", "40P01"));
+    // 무결성 제약조건 위반 SQLState class (23505 : unique_violation 등)
+    private static final String INTEGRITY_VIOLATION_CLASS = "23";
+
+    private final DataSource dataSource;
+
+    // 스레드별로 lock을 잡고있는 커넥션 (계좌번호 -> 커넥션)
+    private final ThreadLocal<Map<String, Connection>> heldConnections =
+            ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public boolean tryLock(String accountNumber, LockPolicy policy) throws InterruptedException {
+        Connection connection = null;
+        boolean locked = false;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+
+            if (!selectForUpdate(connection, accountNumber, policy)
+                    && !insertLockRow(connection, accountNumber, policy)) {
+                // 다른 요청이 동시에 lock row를 만든 경우 -> 만들어진 row로 다시 lock 시도
+                connection.rollback();
+                if (!selectForUpdate(connection, accountNumber, policy)) {
+                    throw new IllegalStateException(
+                            "Database lock row not found after insert conflict : " + accountNumber);
+                }
+            }
+
+            heldConnections.get().put(accountNumber, connection);
+            locked = true;
+            return true;
+        } catch (SQLException e) {
+            if (isLockTimeout(e)) {
+                // lock 대기시간 초과 (다른 요청이 lock 점유중)
+                log.debug("Database lock timeout for accountNumber : {}", accountNumber);
+                return false;
+            }
+            throw new IllegalStateException("Database lock failed", e);
+        } finally {
+            if (!locked) {
+                close(connection);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber, LockPolicy policy) {
+        Connection connection = getHeldConnection(accountNumber);
+        heldConnections.get().remove(accountNumber);
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            log.error("Database unlock failed", e);
+        } finally {
+            close(connection);
+        }
+    }
+
+    // lock을 잡은 커넥션에서 발급하므로 다른 요청과 경합하지 않는다.
+    @Override
+    public long nextFencingToken(String accountNumber) {
+        Connection connection = getHeldConnection(accountNumber);
+        long floor = LockProvider.fencingTokenFloor();
+        try {
+            try (PreparedStatement statement = connection.prepareStatement(INCREASE_FENCING_TOKEN)) {
+                statement.setLong(1, floor);
+                statement.setLong(2, floor);
+                statement.setString(3, accountNumber);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(FIND_FENCING_TOKEN)) {
+                statement.setString(1, accountNumber);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new IllegalStateException(
+                                "Database lock row not found : " + accountNumber);
+                    }
+                    return resultSet.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Database fencing token failed", e);
+        }
+    }
+
+    private Connection getHeldConnection(String accountNumber) {
+        Connection connection = heldConnections.get().get(accountNumber);
+        if (connection == null) {
+            throw new IllegalMonitorStateException(
+                    "attempt to unlock lock, not locked by current thread : " + accountNumber);
+        }
+        return connection;
+    }
+
+    // lock row 조회 + 잠금. row가 없으면 false
+    private boolean selectForUpdate(Connection connection, String accountNumber, LockPolicy policy)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_FOR_UPDATE)) {
+            statement.setQueryTimeout(queryTimeoutSeconds(policy));
+            statement.setString(1, accountNumber);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    // 처음 lock을 잡는 계좌는 lock row를 만들면서 lock을 잡는다. (commit 전까지 다른 요청은 대기)
+    // 동시에 만들어 중복키 에러가 나면 false
+    // (다른 요청이 만든 row가 commit 될 때까지 insert가 대기하므로 조회와 같은 대기시간을 둔다.)
+    private boolean insertLockRow(Connection connection, String accountNumber, LockPolicy policy)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_LOCK_ROW)) {
+            statement.setQueryTimeout(queryTimeoutSeconds(policy));
+            statement.setString(1, accountNumber);
+            statement.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // JDBC의 timeout은 초 단위라 올림해서 최소 1초 대기
+    private static int queryTimeoutSeconds(LockPolicy policy) {
+        return (int) Math.max(1L, (policy.getWaitTime() + 999L) / 1000L);
+    }
+
+    private static boolean isLockTimeout(SQLException e) {
+        return e instanceof SQLTransientException
+                || LOCK_TIMEOUT_STATES.contains(e.getSQLState());
+    }
+
+    private static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+                || (e.getSQLState() != null && e.getSQLState().startsWith(INTEGRITY_VIOLATION_CLASS));
+    }
+
+    private void close(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            connection.close();
+        } catch (SQLException e) {
+            log.error("Failed to close lock connection", e);
+        }
+    }
+}
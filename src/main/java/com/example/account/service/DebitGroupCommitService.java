@@ -0,0 +1,205 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.example.account.type.ErrorCode.TRANSACTION_RESULT_UNKNOWN;
+
+/** 잔액 사용 그룹 커밋 (account.debit.group-commit.enabled=true)
+ *  동시에 들어온 잔액 사용 요청을 짧은 시간(window) 동안 모아서
+ *  커밋 스레드가 한 트랜잭션으로 처리한다. (조건부 update + 거래내역 JDBC batch insert + commit 한번)
+ *  요청 스레드는 자신의 요청이 commit 될 때까지 기다렸다가 응답하므로
+ *  응답을 받은 거래는 기존과 동일하게 DB에 저장이 완료된 거래이다.
+ *
+ *  잔액 차감은 조건부 update(소유주, 사용중, 잔액 >= 거래금액)로 DB가 보장하므로 계좌 Lock은 잡지 않는다.
+ *  (Lock을 잡은 채로 커밋 스레드를 기다리면 같은 계좌 요청을 한 그룹으로 모을 수 없음)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DebitGroupCommitService {
+    private final TransactionService transactionService;
+
+    @Value("${account.debit.group-commit.enabled:false}")
+    private boolean enabled;
+
+    // 요청을 모으는 시간 (μs). 길수록 한번에 많이 저장하지만 요청당 응답시간은 늘어난다.
+    @Value("${account.debit.group-commit.window-micros:300}")
+    private long windowMicros;
+
+    // 한 그룹의 최대 요청 수
+    @Value("${account.debit.group-commit.max-size:500}")
+    private int maxSize;
+
+    // 요청 스레드가 commit 결과를 기다리는 최대 시간 (ms)
+    // 초과하면 이미 그룹에 들어간 요청은 이후 commit 될 수 있으므로 실패가 아니라
+    // 처리결과 미확인(TRANSACTION_RESULT_UNKNOWN)으로 응답한다. (거래내역으로 확인)
+    @Value("${account.debit.group-commit.response-timeout-millis:10000}")
+    private long responseTimeoutMillis;
+
+    private final BlockingQueue<PendingDebit> queue = new LinkedBlockingQueue<>();
+    private Thread committer;
+    private volatile boolean running;
+
+    private static class PendingDebit {
+        private final UseBalance.Request request;
+        private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+
+        private PendingDebit(UseBalance.Request request) {
+            this.request = request;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::run, "debit-group-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // 종료 시 대기중인 요청까지 처리 후 종료 (커밋 스레드가 처리중인 그룹은 끝까지 commit)
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (committer != null) {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 잔액 사용 (그룹 커밋이 끝날 때까지 대기) */
+    public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        if (!running) {
+            throw new IllegalStateException("Debit group committer is not running");
+        }
+        PendingDebit debit = new PendingDebit(new UseBalance.Request(userId, accountNumber, amount));
+        queue.add(debit);
+        // 확인 후 넣는 사이에 커밋 스레드가 종료되었다면(마지막 drain 이후) 아무도 꺼내지 않으므로 바로 실패
+        // (대기열에서 빼지 못했다면 커밋 스레드가 이미 꺼내 결과를 전달한다.)
+        if (!running && queue.remove(debit)) {
+            throw new IllegalStateException("Debit group committer stopped");
+        }
+
+        TransactionDto transaction;
+        try {
+            transaction = debit.result.get(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            log.error("Debit group commit response timeout : {}", accountNumber);
+            throw new AccountException(TRANSACTION_RESULT_UNKNOWN);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(TRANSACTION_RESULT_UNKNOWN);
+        }
+        if (transaction == null) {
+            // 차감하지 못한 경우 실패 사유 확인
+            throw transactionService.useBalanceFailure(userId, accountNumber, amount);
+        }
+        return transaction;
+    }
+
+    private void run() {
+        List<PendingDebit> group = new ArrayList<>(maxSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(group);
+            } catch (InterruptedException e) {
+                // 커밋 스레드 중단 -> 대기중인 요청까지 처리 후 종료
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+        // 종료 직전에 들어온 요청은 처리하지 않고 실패시킨다.
+        queue.drainTo(group);
+        for (PendingDebit debit : group) {
+            debit.result.completeExceptionally(
+                    new IllegalStateException("Debit group committer stopped"));
+        }
+    }
+
+    // 첫 요청이 올 때까지 기다린 뒤 window 동안 (또는 maxSize 만큼) 요청을 모은다.
+    // (종료 여부를 확인할 수 있도록 첫 요청은 최대 100ms만 기다림)
+    private void collect(List<PendingDebit> group) throws InterruptedException {
+        PendingDebit first = queue.poll(100L, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        while (group.size() < maxSize) {
+            if (queue.drainTo(group, maxSize - group.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingDebit debit = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (debit == null) {
+                return;
+            }
+            group.add(debit);
+        }
+    }
+
+    private void commit(List<PendingDebit> group) {
+        try {
+            complete(group, transactionService.useBalances(requestsOf(group)));
+            log.debug("Debit group committed : {}", group.size());
+        } catch (RuntimeException e) {
+            // 그룹 전체가 rollback 된 경우 -> 한 요청의 오류가 다른 요청을 실패시키지 않도록 한 건씩 다시 처리
+            log.error("Debit group commit failed, retry one by one : {}", group.size(), e);
+            for (PendingDebit debit : group) {
+                try {
+                    complete(Collections.singletonList(debit),
+                            transactionService.useBalances(requestsOf(Collections.singletonList(debit))));
+                } catch (RuntimeException single) {
+                    debit.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private static List<UseBalance.Request> requestsOf(List<PendingDebit> group) {
+        List<UseBalance.Request> requests = new ArrayList<>(group.size());
+        for (PendingDebit debit : group) {
+            requests.add(debit.request);
+        }
+        return requests;
+    }
+
+    private static void complete(List<PendingDebit> group, List<TransactionDto> results) {
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).result.complete(results.get(i));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import com.example.account.type.TransactionType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/** 실패거래 기록 저널
+ *  거래 실패(AccountException) 시 실패거래(F) 저장을 요청 스레드에서 바로 하지 않고 저널에 쌓아두면
+ *  별도의 저장 스레드가 모아서 한 트랜잭션으로 저장한다. (계좌 조회는 한번에, insert는 JDBC batch)
+ *  실패 시점에 계좌를 이미 조회했으면 계좌 id와 그 시점 잔액을 같이 기록해 저장 시 다시 조회하지 않는다.
+ *  잔액부족 요청이 몰려도 실패거래 저장이 정상 거래의 응답시간을 늘리지 않도록 하기 위해 사용한다.
+ *
+ *  - 저널은 크기가 정해져 있고, 가득 차면 요청 스레드에서 직접 저장한다. (실패거래를 버리지 않음)
+ *  - 종료 시 저널에 남은 실패거래를 모두 저장한 뒤 종료한다.
+ *  - 한번에 저장하다 실패하면 한 건씩 다시 저장해 한 건의 오류로 묶음 전체를 잃지 않도록 한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FailedTransactionJournal {
+    private final TransactionService transactionService;
+
+    // 저널에 쌓아둘 수 있는 최대 실패거래 수
+    @Value("${account.failed-journal.capacity:10000}")
+    private int capacity;
+
+    // 한번에 저장할 최대 실패거래 수
+    @Value("${account.failed-journal.batch-size:500}")
+    private int batchSize;
+
+    private BlockingQueue<FailedTransaction> journal;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        journal = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::run, "failed-transaction-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // 저널에 남은 실패거래를 모두 저장한 뒤 종료
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /** 실패거래 기록 (계좌 미존재시 거래기록 남기지 않음)
+     * @param accountId 실패 시점에 조회한 계좌 id (모르면 null)
+     * @param balanceSnapshot 실패 시점 잔액 (모르면 null)
+     */
+    public void record(TransactionType transactionType, String accountNumber, Long amount,
+                       Long accountId, Long balanceSnapshot) {
+        FailedTransaction failedTransaction = new FailedTransaction(
+                transactionType, accountNumber, amount, LocalDateTime.now(),
+                accountId, balanceSnapshot);
+        if (!running || !journal.offer(failedTransaction)) {
+            // 저널이 가득 찼거나 종료중 -> 직접 저장
+            log.warn("Failed transaction journal unavailable, save directly : {}", accountNumber);
+            transactionService.saveFailedTransactions(Collections.singletonList(failedTransaction));
+            return;
+        }
+        // 확인 후 넣는 사이에 저장 스레드가 종료되었다면(마지막 저장 이후) 아무도 저장하지 않으므로 직접 저장
+        // (저널에서 빼지 못했다면 저장 스레드가 이미 꺼내 저장한다.)
+        if (!running && journal.remove(failedTransaction)) {
+            log.warn("Failed transaction journal stopped, save directly : {}", accountNumber);
+            transactionService.saveFailedTransactions(Collections.singletonList(failedTransaction));
+        }
+    }
+
+    /** 저장 대기중인 실패거래 수 */
+    public int getPendingCount() {
+        return journal.size();
+    }
+
+    private void run() {
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        while (running || !journal.isEmpty()) {
+            try {
+                FailedTransaction first = journal.poll(100L, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                journal.drainTo(batch, batchSize - 1);
+                save(batch);
+            } catch (InterruptedException e) {
+                // 저장 스레드 중단 -> 남은 실패거래까지 저장 후 종료
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // 한번에 저장하지 못하면 (한 트랜잭션이라 전체 rollback) 한 건씩 다시 저장
+    private void save(List<FailedTransaction> batch) {
+        try {
+            transactionService.saveFailedTransactions(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to save failed transactions, retry one by one : {}", batch.size(), e);
+            for (FailedTransaction failedTransaction : batch) {
+                try {
+                    transactionService.saveFailedTransactions(
+                            Collections.singletonList(failedTransaction));
+                } catch (RuntimeException single) {
+                    log.error("Failed to save failed transaction : {} {} {}",
+                            failedTransaction.getTransactionType(),
+                            failedTransaction.getAccountNumber(),
+                            failedTransaction.getAmount(), single);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.account.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** 현재 스레드가 점유한 계좌 Lock의 fencing token 보관
+ *  LockService가 lock 점유 시 LockProvider에서 발급받은 token을 저장하고, unlock 시 제거한다.
+ *  TransactionService는 잔액변경 전 계좌를 마지막으로 변경한 요청의 token과 비교해
+ *  lock이 만료된 뒤 늦게 도착한 요청(이전 token)의 잔액변경을 거절한다.
+ */
+public final class FencingTokenContext {
+    // 스레드별 token (unlock 후 비어있어도 제거하지 않음 -> 다음 요청에서 그대로 사용)
+    private static final ThreadLocal<Map<String, Long>> TOKENS =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private FencingTokenContext() {
+    }
+
+    static void set(String accountNumber, long fencingToken) {
+        TOKENS.get().put(accountNumber, fencingToken);
+    }
+
+    /** lock을 점유하지 않은 경우(낙관적 lock 모드 등) null */
+    public static Long get(String accountNumber) {
+        return TOKENS.get().get(accountNumber);
+    }
+
+    static void clear(String accountNumber) {
+        TOKENS.get().remove(accountNumber);
+    }
+}
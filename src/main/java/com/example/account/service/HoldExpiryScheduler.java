@@ -0,0 +1,76 @@
+package com.example.account.service;
+
+import com.example.account.dto.HoldExpiry;
+import com.example.account.repository.HoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/** 홀드 자동해제
+ *  HoldExpiryWheel 이 넘겨준 만료 홀드를 별도 스레드에서 해제한다. (DB, Lock 대기로 wheel tick이 밀리지 않도록)
+ *
+ *  - 시작할 때 홀드중인 홀드를 한번만 조회해 wheel에 다시 등록한다. (이후로는 테이블을 조회하지 않음)
+ *  - Lock 획득 실패 등으로 해제하지 못하면 잠시 후 다시 시도한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HoldExpiryScheduler {
+    private final HoldService holdService;
+    private final HoldRepository holdRepository;
+    private final HoldExpiryWheel holdExpiryWheel;
+
+    // 해제하지 못했을 때 다시 시도할 때까지 대기시간(ms)
+    @Value("${account.hold.retry-millis:1000}")
+    private long retryMillis;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        holdExpiryWheel.start(this::submit);
+
+        List<HoldExpiry> activeHolds = holdRepository.findActiveHoldExpiries();
+        for (HoldExpiry expiry : activeHolds) {
+            holdExpiryWheel.schedule(expiry);
+        }
+        log.info("Hold expiry scheduled : {}", activeHolds.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        holdExpiryWheel.stop();
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void submit(HoldExpiry expiry) {
+        executor.execute(() -> expire(expiry));
+    }
+
+    void expire(HoldExpiry expiry) {
+        try {
+            holdService.expireHold(expiry.getHoldNo(), expiry.getAccountNumber());
+        } catch (RuntimeException e) {
+            log.warn("Failed to expire hold, retry later : {}", expiry.getHoldNo(), e);
+            holdExpiryWheel.schedule(new HoldExpiry(expiry.getHoldNo(), expiry.getAccountNumber(),
+                    LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(retryMillis))));
+        }
+    }
+}
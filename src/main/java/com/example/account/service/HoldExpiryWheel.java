@@ -0,0 +1,176 @@
+package com.example.account.service;
+
+import com.example.account.dto.HoldExpiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/** 홀드 만료 timing wheel
+ *  만료된 홀드를 찾으려고 홀드 테이블을 주기적으로 조회하지 않고,
+ *  홀드할 때 만료시각을 wheel의 칸(bucket)에 넣어두었다가 그 칸의 차례가 되면 만료처리로 넘긴다.
+ *
+ *  - wheel은 tick(account.hold.wheel.tick-millis)마다 한 칸씩 이동하고, 이번 칸에 있는 만료만 확인한다.
+ *    만료시각이 wheel 한 바퀴보다 멀면 같은 칸에 두고 해당 바퀴가 될 때까지 넘어간다.
+ *  - 만료시각 이후 tick에 처리되므로 만료시각보다 일찍 처리되지 않고, 최대 tick 만큼 늦게 처리된다.
+ *  - 등록은 요청 스레드에서 대기열에 넣기만 하고, 칸에 넣고 꺼내는 것은 tick 스레드 하나만 한다.
+ *  - wheel은 메모리에만 있으므로 재시작 시 홀드중인 홀드를 다시 등록한다. (HoldExpiryScheduler)
+ */
+@Slf4j
+@Component
+public class HoldExpiryWheel {
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Entry>> buckets;
+
+    // 등록 대기열 (tick 스레드가 칸에 옮긴다.)
+    private final Queue<HoldExpiry> pending = new ConcurrentLinkedQueue<>();
+    // 등록되어 아직 만료처리로 넘기지 않은 홀드 수
+    private final AtomicInteger scheduledCount = new AtomicInteger();
+
+    private Consumer<HoldExpiry> handler;
+    private long startMillis;
+    private long tick;
+    private Thread ticker;
+    private volatile boolean running;
+
+    // 칸에 들어있는 만료 (deadlineTick : 이 tick 이 되면 만료)
+    private static final class Entry {
+        private final HoldExpiry expiry;
+        private final long deadlineTick;
+
+        private Entry(HoldExpiry expiry, long deadlineTick) {
+            this.expiry = expiry;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    public HoldExpiryWheel(
+            @Value("${account.hold.wheel.tick-millis:1000}") long tickMillis,
+            @Value("${account.hold.wheel.size:512}") int wheelSize) {
+        if (tickMillis <= 0) {
+            throw new IllegalStateException("account.hold.wheel.tick-millis must be positive");
+        }
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalStateException("account.hold.wheel.size must be a power of 2");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /** tick 스레드 시작
+     * @param handler 만료시각이 지난 홀드를 받아 처리 (tick 스레드에서 호출되므로 오래 걸리는 처리는 넘겨서 한다.)
+     */
+    public synchronized void start(Consumer<HoldExpiry> handler) {
+        if (running) {
+            return;
+        }
+        this.handler = handler;
+        startMillis = System.currentTimeMillis();
+        tick = 0L;
+        running = true;
+        ticker = new Thread(this::run, "hold-expiry-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+            ticker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /** 만료 등록 (만료시각이 이미 지났으면 다음 tick에 처리) */
+    public void schedule(HoldExpiry expiry) {
+        scheduledCount.incrementAndGet();
+        pending.offer(expiry);
+    }
+
+    /** 만료 등록 (트랜잭션 안이면 commit 후 등록)
+     *  rollback 된 홀드가 등록되지 않도록 한다. */
+    public void scheduleAfterCommit(HoldExpiry expiry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(expiry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        schedule(expiry);
+                    }
+                });
+    }
+
+    /** 만료처리로 넘기지 않은 홀드 수 */
+    public int getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    private void run() {
+        while (running) {
+            // 다음 tick 시각까지 대기 (처리가 밀렸으면 대기 없이 따라잡는다.)
+            long sleepMillis = startMillis + (tick + 1) * tickMillis - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            tick++;
+            transferPending();
+            expireBucket(buckets.get((int) (tick & mask)));
+        }
+    }
+
+    // 등록 대기열의 만료를 만료시각에 해당하는 칸으로 옮긴다.
+    // 만료 tick = (만료시각 - 시작시각) / tick 올림 (ms 미만도 올림) -> 만료시각보다 일찍 처리되지 않는다.
+    private void transferPending() {
+        HoldExpiry expiry;
+        while ((expiry = pending.poll()) != null) {
+            Instant expiresAt = expiry.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant();
+            long expiresAtMillis = expiresAt.toEpochMilli()
+                    + (expiresAt.getNano() % 1_000_000 == 0 ? 0 : 1);
+            long deadlineTick = Math.max(tick,
+                    (expiresAtMillis - startMillis + tickMillis - 1) / tickMillis);
+            buckets.get((int) (deadlineTick & mask)).add(new Entry(expiry, deadlineTick));
+        }
+    }
+
+    // 이번 칸에서 만료 tick이 된 것만 만료처리로 넘기고 나머지(다음 바퀴)는 남겨둔다.
+    private void expireBucket(List<Entry> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Entry entry = bucket.get(i);
+            if (entry.deadlineTick > tick) {
+                bucket.set(kept++, entry);
+                continue;
+            }
+            scheduledCount.decrementAndGet();
+            try {
+                handler.accept(entry.expiry);
+            } catch (RuntimeException e) {
+                log.error("Failed to hand over hold expiry : {}", entry.expiry.getHoldNo(), e);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLock;
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountStatus;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Hold;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.HoldDto;
+import com.example.account.dto.HoldExpiry;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.HoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.example.account.domain.HoldStatus.*;
+import static com.example.account.type.ErrorCode.*;
+
+/** 잔액 홀드(승인) -> 매입(capture) / 해제(release)
+ *  결제 승인처럼 금액을 먼저 잡아두고 나중에 실제 금액만큼 매입하거나 해제한다.
+ *
+ *  - 홀드중인 금액은 Account.heldAmount 에 더해두므로 잔액 사용 검증 시 홀드 테이블을 합산하지 않는다.
+ *    (사용가능 잔액 = balance - heldAmount)
+ *  - 매입은 홀드금액 이하로 한번만 가능하고(부분매입), 남은 금액은 해제된다. 매입하면 사용(USE) 거래가 저장된다.
+ *  - 만료시각까지 매입, 해제하지 않은 홀드는 HoldExpiryWheel 이 만료시각에 자동해제한다.
+ *  - 잔액 사용과 같은 계좌 lock(@AccountLock)을 사용한다.
+ *  - 원장 모드, 잔액 엔진 모드에서는 잔액을 원장/엔진이 관리하므로 홀드를 사용할 수 없다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HoldService {
+    private final HoldRepository holdRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionService transactionService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final HoldExpiryWheel holdExpiryWheel;
+
+    // 홀드 유효기간(초). 이 시간 안에 매입하지 않으면 자동해제
+    @Value("${account.hold.expire-seconds:604800}")
+    private long expireSeconds;
+
+    @Value("${account.ledger.enabled:false}")
+    private boolean ledger;
+
+    @Value("${account.engine.enabled:false}")
+    private boolean engine;
+
+    /** 잔액 홀드
+     * 1. 사용자, 계좌 존재여부 확인
+     * 2. 사용자 아이디와 계좌 소유주 일치여부, 계좌 해지여부 확인
+     * 3. 사용가능 잔액 안에서 홀드금액만큼 잡아둠 (사용가능 잔액보다 크면 AMOUNT_EXCEED_BALANCE)
+     * 4. 홀드 저장 후 commit 되면 만료 등록
+     * @param userId 사용자ID
+     * @param accountNumber 계좌번호
+     * @param amount 홀드금액
+     * @return HoldDto 홀드정보
+     */
+    @Transactional
+    @AccountLock(tryLockTime = 1000L)
+    public HoldDto hold(Long userId, String accountNumber, Long amount) {
+        checkSupported();
+        // 1. 사용자, 계좌 존재여부 확인
+        AccountUser user = accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+        transactionService.lockFallbackRow(accountNumber);
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        transactionService.checkFencingToken(account);
+
+        // 2. 소유주, 해지여부 확인
+        if (!Objects.equals(user.getId(), account.getAccountUser().getId())) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+        if (account.getAccountStatus() != AccountStatus.IN_USE) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        // 3. 금액 홀드
+        account.hold(amount);
+
+        // 4. 홀드 저장, 만료 등록
+        LocalDateTime now = LocalDateTime.now();
+        Hold hold = holdRepository.save(Hold.builder()
+                .account(account)
+                .holdNo(transactionIdGenerator.nextId())
+                .amount(amount)
+                .holdStatus(HELD)
+                .heldAt(now)
+                .expiresAt(now.plusSeconds(expireSeconds))
+                .build());
+        holdExpiryWheel.scheduleAfterCommit(
+                new HoldExpiry(hold.getHoldNo(), accountNumber, hold.getExpiresAt()));
+        return HoldDto.fromEntity(hold);
+    }
+
+    /** 홀드 매입
+     * 1. 홀드 + 계좌 조회, 계좌 일치여부와 홀드중인지 확인
+     * 2. 매입금액이 홀드금액보다 큰 경우, 만료시각이 지난 경우 실패
+     * 3. 홀드금액 전체를 풀고 매입금액만 잔액에서 차감 (남은 금액은 해제)
+     * 4. 사용(USE) 거래내역 저장
+     * @param holdId 홀드ID
+     * @param accountNumber 계좌번호
+     * @param amount 매입금액 (홀드금액 이하)
+     * @return HoldDto 홀드정보 (매입 거래 아이디 포함)
+     */
+    // 매입, 해제는 실패하면 안되는 요청이라 사용 취소처럼 조금 더 오래 기다리며 들어온 순서대로(fair) 처리한다.
+    // 점유시간은 고정하지 않는다. (watchdog 자동 연장)
+    @Transactional
+    @AccountLock(tryLockTime = 3000L, fair = true)
+    public HoldDto captureHold(String holdId, String accountNumber, Long amount) {
+        checkSupported();
+        // 대체 Lock 사용중이면 홀드(+ 계좌) 조회 전에 계좌 row를 잠근다.
+        transactionService.lockFallbackRow(accountNumber);
+
+        // 1. 홀드 + 계좌 조회
+        Hold hold = findActiveHold(holdId, accountNumber);
+        transactionService.checkFencingToken(hold.getAccount());
+
+        // 2. 매입금액, 만료여부 확인
+        if (amount > hold.getAmount()) {
+            throw new AccountException(CAPTURE_EXCEED_HOLD);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (hold.getExpiresAt().isBefore(now)) {
+            // 만료처리 전이라도 만료시각이 지났으면 매입불가 (해제는 HoldExpiryWheel 에서)
+            throw new AccountException(HOLD_NOT_ACTIVE);
+        }
+
+        // 3. 매입
+        Account account = hold.getAccount();
+        account.captureHold(hold.getAmount(), amount);
+        hold.close(CAPTURED, amount, now);
+
+        // 4. 거래내역 저장
+        TransactionDto transactionDto = transactionService.saveCaptureTransaction(account, amount);
+        HoldDto holdDto = HoldDto.fromEntity(hold);
+        holdDto.setTransactionId(transactionDto.getTransactionId());
+        return holdDto;
+    }
+
+    /** 홀드 해제
+     * @param holdId 홀드ID
+     * @param accountNumber 계좌번호
+     * @return HoldDto 홀드정보
+     */
+    @Transactional
+    @AccountLock(tryLockTime = 3000L, fair = true)
+    public HoldDto releaseHold(String holdId, String accountNumber) {
+        checkSupported();
+        transactionService.lockFallbackRow(accountNumber);
+
+        Hold hold = findActiveHold(holdId, accountNumber);
+        transactionService.checkFencingToken(hold.getAccount());
+        hold.getAccount().releaseHold(hold.getAmount());
+        hold.close(RELEASED, 0L, LocalDateTime.now());
+        return HoldDto.fromEntity(hold);
+    }
+
+    /** 홀드 만료 (HoldExpiryScheduler 에서 사용)
+     * 이미 매입, 해제된 홀드면 아무것도 하지 않는다.
+     * @return 만료처리 했으면 true
+     */
+    @Transactional
+    @AccountLock(tryLockTime = 1000L)
+    public boolean expireHold(Long holdNo, String accountNumber) {
+        transactionService.lockFallbackRow(accountNumber);
+
+        Optional<Hold> found = holdRepository.findByHoldNo(holdNo);
+        if (!found.isPresent() || found.get().getHoldStatus() != HELD) {
+            return false;
+        }
+        Hold hold = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (hold.getExpiresAt().isAfter(now)) {
+            // 서버 시각 차이 등으로 아직 만료시각 전이면 다시 등록
+            holdExpiryWheel.scheduleAfterCommit(
+                    new HoldExpiry(holdNo, accountNumber, hold.getExpiresAt()));
+            return false;
+        }
+        transactionService.checkFencingToken(hold.getAccount());
+        hold.getAccount().releaseHold(hold.getAmount());
+        hold.close(EXPIRED, 0L, now);
+        log.info("Hold expired : {} ({})", hold.getHoldId(), accountNumber);
+        return true;
+    }
+
+    // 홀드 아이디 형식이 맞지 않으면 조회하지 않고 HOLD_NOT_FOUND
+    private Hold findActiveHold(String holdId, String accountNumber) {
+        Long holdNo = Transaction.toTransactionNo(holdId);
+        if (holdNo == null) {
+            throw new AccountException(HOLD_NOT_FOUND);
+        }
+        Hold hold = holdRepository.findByHoldNo(holdNo)
+                .orElseThrow(() -> new AccountException(HOLD_NOT_FOUND));
+        if (!Objects.equals(hold.getAccount().getAccountNumber(), accountNumber)) {
+            throw new AccountException(HOLD_ACCOUNT_UN_MATCH);
+        }
+        if (hold.getHoldStatus() != HELD) {
+            throw new AccountException(HOLD_NOT_ACTIVE);
+        }
+        return hold;
+    }
+
+    private void checkSupported() {
+        if (ledger || engine) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+    }
+}
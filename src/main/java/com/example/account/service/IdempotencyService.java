@@ -0,0 +1,253 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.ErrorCode.*;
+
+/** 멱등키(Idempotency-Key) 중복요청 처리
+ *  클라이언트가 타임아웃 후 같은 요청을 재시도하면 잔액이 두번 빠지거나 실패거래(F)가 또 저장될 수 있다.
+ *  요청에 멱등키가 있으면 처음 요청의 결과(응답 또는 실패 errorCode)를 저장해두고
+ *  같은 키로 다시 들어온 요청은 Lock, DB 없이 저장된 결과로 응답한다.
+ *
+ *  - 저장소 : 노드 내부 LRU(최근 키) + Redis(TTL). 다른 서버로 재시도가 들어와도 Redis에서 찾는다.
+ *  - 처리중인 키로 다시 들어오면 IDEMPOTENCY_KEY_IN_PROGRESS (처리가 끝난 뒤 재시도하면 결과를 받는다.)
+ *    처리중 표시는 짧은 시간(account.idempotency.processing-ttl-seconds)만 유지하고, 결과 보관시간은 완료 후에 준다.
+ *    처리하던 서버가 죽거나 결과를 Redis에 저장하지 못해도 키가 결과 보관시간 동안 처리중으로 남지 않는다.
+ *  - 같은 키를 다른 요청(금액, 계좌 등이 다름)에 쓰면 IDEMPOTENCY_KEY_REUSED
+ *  - Lock 획득 실패처럼 처리되지 않은 것이 확실한 실패(RETRYABLE_ERRORS)만 키를 지워 다시 처리할 수 있게 한다.
+ *  - 응답 타임아웃이나 예상하지 못한 오류는 출금이 나중에 반영될 수 있어 결과를 알 수 없다.
+ *    키를 지우면 재시도가 한번 더 출금하므로 TRANSACTION_RESULT_UNKNOWN으로 저장하고, 결과는 거래확인으로 확인한다.
+ *  - 노드 내부 LRU도 Redis와 같은 유지시간(처리중 / 결과 보관)이 지나면 없는 키로 본다.
+ *  - Redis 오류 시에는 노드 내부 LRU만 사용한다.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final String KEY_PREFIX = "idempotency:";
+
+    // 다시 시도하면 성공할 수 있는 실패 (결과를 저장하지 않음)
+    private static final Set<ErrorCode> RETRYABLE_ERRORS = EnumSet.of(
+            ACCOUNT_TRANSACTION_LOCK, ACCOUNT_TRANSACTION_QUEUE_FULL, ACCOUNT_LOCK_EXPIRED);
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final Map<String, LocalRecord> localRecords;
+
+    // 멱등키 결과 보관시간 (초)
+    private final long ttlSeconds;
+    // 처리중 표시 유지시간 (초)
+    private final long processingTtlSeconds;
+
+    /** 처리할 요청 (처리 중 발생하는 checked exception은 그대로 전달) */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    // 저장되는 처리결과 (Redis에는 JSON 문자열로 저장)
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IdempotencyRecord {
+        private String fingerprint; // 요청 내용
+        private boolean completed;  // false 면 처리중
+        private String response;    // 성공 응답 (JSON)
+        private ErrorCode errorCode; // 실패 사유
+    }
+
+    // 노드 내부 LRU에 보관하는 처리결과 (만료시각이 지나면 없는 키로 본다.)
+    @Getter
+    @AllArgsConstructor
+    private static class LocalRecord {
+        private final IdempotencyRecord record;
+        private final long expiresAt; // epoch millis
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    public IdempotencyService(
+            RedissonClient redissonClient,
+            ObjectMapper objectMapper,
+            @Value("${account.idempotency.local-capacity:10000}") int localCapacity,
+            @Value("${account.idempotency.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${account.idempotency.processing-ttl-seconds:30}") long processingTtlSeconds) {
+        if (processingTtlSeconds <= 0 || processingTtlSeconds > ttlSeconds) {
+            throw new IllegalStateException(
+                    "account.idempotency.processing-ttl-seconds must be positive and not longer than ttl-seconds");
+        }
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.ttlSeconds = ttlSeconds;
+        this.processingTtlSeconds = processingTtlSeconds;
+        this.localRecords = new LinkedHashMap<String, LocalRecord>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalRecord> eldest) {
+                return size() > localCapacity;
+            }
+        };
+    }
+
+    /** 멱등키 요청 처리
+     * @param scope 요청 종류 (use, cancel) : 종류가 다르면 같은 키라도 다른 요청
+     * @param idempotencyKey 멱등키 (null 이면 그냥 처리)
+     * @param fingerprint 요청 내용 (같은 키로 다른 요청을 보냈는지 확인)
+     * @param responseType 응답 타입
+     * @param call 처음 들어온 요청일 때 처리할 내용
+     * @return 응답 (다시 들어온 요청이면 저장된 응답)
+     */
+    public <T, E extends Exception> T execute(String scope,
+                                              String idempotencyKey,
+                                              String fingerprint,
+                                              Class<T> responseType,
+                                              Call<T, E> call) throws E {
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return call.call();
+        }
+        String key = KEY_PREFIX + scope + ":" + idempotencyKey;
+
+        // 1. 처리중 표시 (이미 있으면 저장된 결과로 응답)
+        IdempotencyRecord existing = begin(key, fingerprint);
+        if (existing != null) {
+            return replay(existing, fingerprint, responseType);
+        }
+
+        // 2. 처음 들어온 요청 -> 처리 후 결과 저장
+        T response;
+        try {
+            response = call.call();
+        } catch (AccountException e) {
+            if (RETRYABLE_ERRORS.contains(e.getErrorCode())) {
+                remove(key);
+            } else {
+                complete(key, new IdempotencyRecord(fingerprint, true, null, e.getErrorCode()));
+            }
+            throw e;
+        } catch (Exception e) {
+            // 처리 결과를 알 수 없음 (출금이 반영됐을 수 있음) -> 키를 지우지 않고 결과 확인 필요로 저장
+            complete(key, new IdempotencyRecord(fingerprint, true, null, TRANSACTION_RESULT_UNKNOWN));
+            throw e;
+        }
+        complete(key, new IdempotencyRecord(fingerprint, true, toJson(response), null));
+        return response;
+    }
+
+    // 처리중 표시를 남긴다. 이미 같은 키가 있으면 그 결과를 반환 (없으면 null)
+    // Redis의 처리중 표시는 processingTtlSeconds 후 만료 (결과 보관시간은 complete()에서 준다.)
+    private IdempotencyRecord begin(String key, String fingerprint) {
+        IdempotencyRecord processing = new IdempotencyRecord(fingerprint, false, null, null);
+        synchronized (localRecords) {
+            long now = System.currentTimeMillis();
+            LocalRecord local = localRecords.get(key);
+            if (local != null && !local.isExpired(now)) {
+                return local.getRecord();
+            }
+            localRecords.put(key, new LocalRecord(processing,
+                    now + TimeUnit.SECONDS.toMillis(processingTtlSeconds)));
+        }
+        try {
+            RBucket<String> bucket = bucket(key);
+            IdempotencyRecord stored = null;
+            while (stored == null) {
+                if (bucket.trySet(toJson(processing), processingTtlSeconds, TimeUnit.SECONDS)) {
+                    return null;
+                }
+                // 확인하는 사이 만료된 경우 -> 다시 처리중 표시 시도 (그 사이 다른 서버가 표시했으면 그 결과를 읽는다.)
+                stored = fromJson(bucket.get(), IdempotencyRecord.class);
+            }
+            // 다른 서버에서 처리한 요청 -> 완료된 결과만 Redis에 남은 보관시간 동안 노드 내부에 보관
+            long remainMillis = stored.isCompleted() ? bucket.remainTimeToLive() : 0;
+            synchronized (localRecords) {
+                if (stored.isCompleted()) {
+                    localRecords.put(key, new LocalRecord(stored, System.currentTimeMillis()
+                            + (remainMillis > 0 ? remainMillis : TimeUnit.SECONDS.toMillis(ttlSeconds))));
+                } else {
+                    localRecords.remove(key);
+                }
+            }
+            return stored;
+        } catch (RuntimeException e) {
+            log.warn("Idempotency store(redis) unavailable, use local only : {}", key, e);
+            return null;
+        }
+    }
+
+    private <T> T replay(IdempotencyRecord record, String fingerprint, Class<T> responseType) {
+        if (!Objects.equals(record.getFingerprint(), fingerprint)) {
+            throw new AccountException(IDEMPOTENCY_KEY_REUSED);
+        }
+        if (!record.isCompleted()) {
+            throw new AccountException(IDEMPOTENCY_KEY_IN_PROGRESS);
+        }
+        if (record.getErrorCode() != null) {
+            throw new AccountException(record.getErrorCode());
+        }
+        return fromJson(record.getResponse(), responseType);
+    }
+
+    private void complete(String key, IdempotencyRecord record) {
+        synchronized (localRecords) {
+            localRecords.put(key, new LocalRecord(record,
+                    System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds)));
+        }
+        try {
+            bucket(key).set(toJson(record), ttlSeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            // 이 서버는 노드 내부 결과로 응답하고, Redis의 처리중 표시는 processingTtlSeconds 후 만료된다.
+            log.warn("Failed to save idempotency record to redis : {}", key, e);
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (localRecords) {
+            localRecords.remove(key);
+        }
+        try {
+            bucket(key).delete();
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove idempotency record from redis : {}", key, e);
+        }
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redissonClient.getBucket(key, StringCodec.INSTANCE);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceSnapshot;
+import com.example.account.domain.LedgerEntry;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.BalanceSnapshotRepository;
+import com.example.account.repository.LedgerEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ 원장 재생 (account.ledger.enabled=true)
+ 원장을 처음(시작잔액) 또는 마지막 snapshot부터 순서대로 더해 계좌 잔액을 다시 계산한다.
+ 복구, 감사(snapshot 검증) 시 SQL을 직접 작성하지 않고 사용한다.
+
+ - 계좌끼리는 원장이 독립적이므로 계좌별로 나눠 병렬(account.ledger.replay-threads)로 계산한다.
+ - 원장은 REPLAY_PAGE_SIZE 건씩 순번 이후부터 이어서 조회(keyset)하므로
+   원장이 많은 계좌도 메모리를 일정하게 사용한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerReplayService {
+    static final int REPLAY_PAGE_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Value("${account.ledger.replay-threads:4}")
+    private int replayThreads;
+
+    /** 계좌별 잔액 재계산
+     * @param accountIds 계좌 id 목록
+     * @param fromSnapshot true : 마지막 snapshot부터, false : 시작잔액부터 전체 원장 (감사용)
+     * @return 계좌 id -> 재계산한 잔액 (없는 계좌는 제외)
+     */
+    public Map<Long, Long> replay(Collection<Long> accountIds, boolean fromSnapshot) {
+        Map<Long, Long> balances = new LinkedHashMap<>();
+        if (accountIds.isEmpty()) {
+            return balances;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(replayThreads, accountIds.size())));
+        try {
+            Map<Long, Future<Long>> futures = new LinkedHashMap<>();
+            for (Long accountId : accountIds) {
+                futures.put(accountId, executor.submit(() -> replayAccount(accountId, fromSnapshot)));
+            }
+            for (Map.Entry<Long, Future<Long>> future : futures.entrySet()) {
+                Long balance = future.getValue().get();
+                if (balance != null) {
+                    balances.put(future.getKey(), balance);
+                }
+            }
+            return balances;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("ledger replay interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("ledger replay failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // 계좌 하나의 잔액 재계산 (계좌가 없으면 null)
+    Long replayAccount(Long accountId, boolean fromSnapshot) {
+        Account account = accountRepository.findById(accountId).orElse(null);
+        if (account == null) {
+            return null;
+        }
+
+        long seq = 0L;
+        long balance = account.getBalance();
+        if (fromSnapshot) {
+            BalanceSnapshot snapshot = balanceSnapshotRepository
+                    .findFirstByAccountIdOrderBySeqDesc(accountId)
+                    .orElse(null);
+            if (snapshot != null) {
+                seq = snapshot.getSeq();
+                balance = snapshot.getBalance();
+            }
+        }
+
+        List<LedgerEntry> entries;
+        do {
+            entries = ledgerEntryRepository.findByAccountIdAndSeqGreaterThanOrderBySeq(
+                    accountId, seq, PageRequest.of(0, REPLAY_PAGE_SIZE));
+            for (LedgerEntry entry : entries) {
+                balance += entry.getAmount();
+                seq = entry.getSeq();
+            }
+        } while (entries.size() == REPLAY_PAGE_SIZE);
+
+        log.debug("ledger replayed : account {} seq {} balance {}", accountId, seq, balance);
+        return balance;
+    }
+}
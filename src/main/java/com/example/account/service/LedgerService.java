@@ -0,0 +1,134 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceSnapshot;
+import com.example.account.domain.LedgerEntry;
+import com.example.account.dto.LedgerTail;
+import com.example.account.repository.BalanceSnapshotRepository;
+import com.example.account.repository.LedgerEntryRepository;
+import com.example.account.type.TransactionType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+/**
+ 잔액 원장 (account.ledger.enabled=true)
+ 거래 시 account.balance를 update 하지 않고 원장(LedgerEntry)에 변경금액을 추가만 한다.
+ hot 계좌도 account row를 매번 update 하지 않으므로 row update 경합이 없다.
+
+ - 계좌 잔액 = 마지막 snapshot 잔액 + snapshot 이후 원장 금액 합계
+   (snapshot이 없으면 account.balance(계좌생성 시 잔액 = 시작잔액)부터 계산)
+ - 원장이 snapshot-interval 건 쌓일 때마다 잔액 snapshot을 저장해 합계를 구하는 원장 수를 제한한다.
+ - 원장 순번(seq)은 계좌 lock(@AccountLock) 안에서 부여한다.
+ - 거래 한 건에 잔액 계산(snapshot + 원장 합계 조회)은 한번만 한다.
+   검증에서 구한 위치(getPosition)를 append에 넘기고, append는 다음 위치를 반환한다.
+ - 원장 모드에서는 fencing token도 account row에 저장하지 않는다. (TransactionService.checkFencingToken)
+   거래마다 account row를 update 하지 않고 원장 insert만 한다.
+ - 원장 모드에서는 account.balance가 시작잔액으로 남기 때문에 한번 켜면 끄지 않는다.
+   (잔액은 LedgerReplayService로 다시 계산할 수 있다.)
+ - 조건부 update(account.debit.atomic), 그룹 커밋(account.debit.group-commit)은
+   account.balance를 직접 차감하므로 같이 사용할 수 없다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Value("${account.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${account.ledger.snapshot-interval:100}")
+    private int snapshotInterval;
+
+    @Value("${account.debit.atomic:false}")
+    private boolean atomicDebit;
+
+    @Value("${account.debit.group-commit.enabled:false}")
+    private boolean groupCommit;
+
+    @PostConstruct
+    public void validateMode() {
+        if (enabled && (atomicDebit || groupCommit)) {
+            throw new IllegalStateException(
+                    "account.ledger.enabled can not be used with"
+                            + " account.debit.atomic or account.debit.group-commit.enabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 현재 잔액 (마지막 snapshot + 이후 원장) */
+    public long getBalance(Account account) {
+        return getPosition(account).balance;
+    }
+
+    /** 원장 추가 (계좌 lock 안에서 호출)
+     * @param amount 변경금액 (사용 : 음수, 사용취소 : 양수)
+     * @return 원장 추가 후 잔액 */
+    public long append(Account account, TransactionType transactionType, long amount) {
+        return append(account, getPosition(account), transactionType, amount).getBalance();
+    }
+
+    /** 원장 추가 (이미 구한 원장 위치에 이어서 추가, 계좌 lock 안에서 호출)
+     * @param position 현재 원장 위치 (getPosition 또는 이전 append 결과)
+     * @param amount 변경금액 (사용 : 음수, 사용취소 : 양수)
+     * @return 원장 추가 후 위치 */
+    public Position append(Account account, Position position,
+                           TransactionType transactionType, long amount) {
+        long seq = position.seq + 1;
+        long balance = position.balance + amount;
+
+        ledgerEntryRepository.save(LedgerEntry.builder()
+                .accountId(account.getId())
+                .seq(seq)
+                .transactionType(transactionType)
+                .amount(amount)
+                .build());
+
+        if (seq % snapshotInterval == 0) {
+            balanceSnapshotRepository.save(BalanceSnapshot.builder()
+                    .accountId(account.getId())
+                    .seq(seq)
+                    .balance(balance)
+                    .build());
+            log.debug("balance snapshot : account {} seq {}", account.getId(), seq);
+        }
+        return new Position(seq, balance);
+    }
+
+    /** 현재 원장 위치 (마지막 순번, 잔액) */
+    public Position getPosition(Account account) {
+        long seq = 0L;
+        long balance = account.getBalance();
+        BalanceSnapshot snapshot = balanceSnapshotRepository
+                .findFirstByAccountIdOrderBySeqDesc(account.getId())
+                .orElse(null);
+        if (snapshot != null) {
+            seq = snapshot.getSeq();
+            balance = snapshot.getBalance();
+        }
+
+        LedgerTail tail = ledgerEntryRepository.findTail(account.getId(), seq);
+        return new Position(Math.max(seq, tail.getLastSeq()), balance + tail.getAmount());
+    }
+
+    // 원장 위치 (마지막 순번, 잔액)
+    @Getter
+    public static final class Position {
+        private final long seq;
+        private final long balance;
+
+        public Position(long seq, long balance) {
+            this.seq = seq;
+            this.balance = balance;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ JVM 내부 Lock (account.lock.provider=local)
+ 서버 한대로 운영하는 경우 Redis 없이 노드 내부 Lock만으로 동시성을 제어한다.
+ LockAopAspect에서 이미 잡은 노드 내부 Lock(ReentrantLock)을 그대로 재진입하므로 추가 비용이 거의 없다.
+ (JVM 내부 Lock이라 leaseTime, fair 설정은 사용하지 않는다.)
+ fencing token은 서버 전체에서 하나의 카운터로 발급한다. (계좌별로도 증가하고, 서버 재시작 후에도 작아지지 않도록 현재시각 이상)
+ */
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "local")
+@RequiredArgsConstructor
+public class LocalLockProvider implements LockProvider {
+    private final LocalLockService localLockService;
+
+    // 마지막으로 발급한 fencing token
+    private final AtomicLong lastFencingToken = new AtomicLong();
+
+    @Override
+    public boolean tryLock(String accountNumber, LockPolicy policy) throws InterruptedException {
+        return localLockService.tryLock(accountNumber, policy.getWaitTime());
+    }
+
+    @Override
+    public void unlock(String accountNumber, LockPolicy policy) {
+        localLockService.unlock(accountNumber);
+    }
+
+    @Override
+    public long nextFencingToken(String accountNumber) {
+        long floor = LockProvider.fencingTokenFloor();
+        return lastFencingToken.updateAndGet(prev -> Math.max(prev + 1, floor));
+    }
+}
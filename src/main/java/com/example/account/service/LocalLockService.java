@@ -0,0 +1,97 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import com.example.account.exception.AccountException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/** 노드(JVM) 내부 계좌 Lock
+ *  같은 서버로 들어온 동일 계좌 요청끼리는 Redis까지 가지 않고 여기서 먼저 경쟁한다.
+ *  경쟁에서 이긴 요청 하나만 LockService(Redis Lock)를 시도하므로
+ *  hot 계좌에 요청이 몰려도 Redis로 가는 lock 요청 수는 노드 수 만큼으로 줄어든다.
+ *
+ *  Lock은 잔액변경 트랜잭션이 끝날 때까지 점유하므로 계좌마다 따로 둔다.
+ *  (예전에는 고정된 개수의 stripe를 계좌번호 해시로 나눠 썼는데, 같은 stripe에 걸린 다른 계좌끼리
+ *   트랜잭션 전체를 순서대로 기다리다가 대기시간이 지나면 ACCOUNT_TRANSACTION_LOCK으로 실패했다.)
+ *  계좌 수만큼 Lock 객체가 늘어나지 않도록 점유하거나 기다리는 요청 수(references)를 세고,
+ *  0이 되면 바로 제거한다. (Lock 객체는 점유중이거나 대기중인 계좌 수만큼만 존재)
+ */
+@Slf4j
+@Service
+public class LocalLockService {
+    private final Map<String, LocalLock> locks = new ConcurrentHashMap<>();
+
+    // 계좌별 Lock
+    // references 는 ConcurrentHashMap.compute 안에서만 변경한다.
+    private static class LocalLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int references;
+    }
+
+    /** 노드 내부 Lock 점유 */
+    public void lock(String accountNumber) {
+        lock(accountNumber, LockPolicy.DEFAULT.getWaitTime());
+    }
+
+    /** 노드 내부 Lock 점유 (waitTime(ms) 동안 대기) */
+    public void lock(String accountNumber, long waitTime) {
+        try {
+            if (!tryLock(accountNumber, waitTime)) {
+                log.error("========== Local lock acquisition failed ==========");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    /** 노드 내부 Lock 점유 시도 (waitTime(ms) 안에 얻지 못하면 false)
+     *  같은 스레드에서 다시 점유할 수 있고(재진입), 점유한 횟수만큼 unlock 해야 한다. */
+    public boolean tryLock(String accountNumber, long waitTime) throws InterruptedException {
+        LocalLock localLock = locks.compute(accountNumber, (key, current) -> {
+            LocalLock l = current == null ? new LocalLock() : current;
+            l.references++;
+            return l;
+        });
+        boolean locked = false;
+        try {
+            locked = localLock.lock.tryLock(waitTime, TimeUnit.MILLISECONDS);
+            return locked;
+        } finally {
+            if (!locked) {
+                release(accountNumber);
+            }
+        }
+    }
+
+    /** 노드 내부 Lock 해제 (lock을 잡은 스레드에서 호출해야 한다.) */
+    public void unlock(String accountNumber) {
+        LocalLock localLock = locks.get(accountNumber);
+        if (localLock == null) {
+            throw new IllegalMonitorStateException(
+                    "attempt to unlock lock, not locked : " + accountNumber);
+        }
+        // 점유하지 않은 스레드면 IllegalMonitorStateException (references 는 그대로)
+        localLock.lock.unlock();
+        release(accountNumber);
+    }
+
+    /** Lock 객체가 남아있는 계좌 수 (점유중이거나 대기중인 계좌) */
+    public int getLockCount() {
+        return locks.size();
+    }
+
+    // 점유(또는 대기) 종료. 점유하거나 기다리는 요청이 없으면 계좌 Lock 제거
+    private void release(String accountNumber) {
+        locks.computeIfPresent(accountNumber,
+                (key, localLock) -> --localLock.references == 0 ? null : localLock);
+    }
+}
@@ -1,41 +1,176 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.LockPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.Ordered;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// 트랜잭션 AOP(Ordered.LOWEST_PRECEDENCE)보다 바깥에서 동작 (TransactionConfiguration)
 @Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
+    private final LocalLockService localLockService;
     private final LockService lockService;
+    private final AccountSequencer accountSequencer;
+
+    // 메서드별 @AccountLock 설정값 캐시
+    // 어노테이션 값은 런타임에 바뀌지 않으므로 메서드마다 한번만 읽어서 재사용한다.
+    private final Map<Method, LockPolicy> lockPolicies = new ConcurrentHashMap<>();
+    // 메서드별 계좌번호 인자 위치 캐시
+    private final Map<Method, Integer> accountNumberIndexes = new ConcurrentHashMap<>();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    // 낙관적 lock 모드
+    // true면 lock을 잡지 않고 Account.version 으로 충돌을 감지한다. (충돌 시 재시도는 OptimisticRetryService)
+    @Value("${account.lock.optimistic:false}")
+    private boolean optimistic;
+
+    // 조건부 update 모드
+    // true면 @AccountLock(skipOnAtomicDebit = true) 메서드는 lock을 잡지 않는다.
+    // (잔액 확인과 차감을 update 한번으로 처리하므로 lock 없이도 잔액이 음수가 되지 않음)
+    @Value("${account.debit.atomic:false}")
+    private boolean atomicDebit;
+
+    // 계좌별 순서대기열 모드
+    // true면 노드 내부 Lock 대신 순서대기열에서 도착한 순서대로 차례를 기다린다. (대기시간은 동일하게 tryLockTime)
+    @Value("${account.lock.sequencer.enabled:false}")
+    private boolean sequencer;
 
     // @Around : 어떤 경우에 Aspect를 적용할지 정의
     // @Around("@annotation(com.example.account.aop.AccountLock)
     // : @AccountLock 어노테이션이 달린 메서드가 실행될 때 Aspect 적용
-    // @Around("args(request)")
-    // : AccountLock 어노데이터션을 단 메서드의 인자 중
-    //   request라는 필드를 가져온다.
-    //   'AccountLockIdInterface request'과 같이 동일 이름으로 파라미터를 받아야한다.
-    @Around("@annotation(com.example.account.aop.AccountLock) && args(request)")
-    public Object aroundMethod(
-            ProceedingJoinPoint pjp,
-            AccountLockIdInterface request
-    ) throws Throwable {
-
-        // before : Lock 취득 시도
-        lockService.lock(request.getAccountNumber());
+    // Lock을 걸 계좌번호는 메서드 인자 중 AccountLockIdInterface 타입(UseBalance.Request 등) 또는
+    // 이름이 accountNumber 인 String 인자에서 가져온다. (TransactionService.useBalance 등)
+    //
+    // 이 Aspect가 트랜잭션 AOP보다 바깥에서 동작하므로(TransactionConfiguration)
+    // Lock은 트랜잭션(DB 커넥션) 없이 기다려 점유하고, 메서드의 트랜잭션이 commit/rollback 된 후 해제한다.
+    // 이미 시작된 트랜잭션 안에서 호출된 경우에는 그 트랜잭션이 끝날 때(afterCompletion) 해제한다.
+    @Around("@annotation(com.example.account.aop.AccountLock)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        if (optimistic) {
+            return pjp.proceed();
+        }
+
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        LockPolicy policy = getLockPolicy(method);
+        if (atomicDebit && policy.isSkipOnAtomicDebit()) {
+            return pjp.proceed();
+        }
+        String accountNumber = getAccountNumber(method, pjp.getArgs());
+
+        // before : 노드 내부 Lock 먼저 취득 후 Redis Lock 취득 시도
+        // 같은 노드에서 경쟁하는 요청은 노드 내부 Lock에서 걸러지고
+        // 이긴 요청만 Redis까지 가게된다.
+        enterLocal(accountNumber, policy);
         try {
+            lockService.lock(accountNumber, policy);
+        } catch (RuntimeException e) {
+            exitLocal(accountNumber);
+            throw e;
+        }
+        long lockedAt = System.nanoTime();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // after : 바깥 트랜잭션 종료(commit/rollback) 후 Lock 해제
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(accountNumber, policy, lockedAt);
+                }
+            });
             // AOP를 걸어줬던 부분 그대로 동작 진행.
             return pjp.proceed();
+        }
+
+        try {
+            // 메서드의 트랜잭션은 proceed() 안에서 시작되고 commit/rollback 까지 끝난다.
+            return pjp.proceed();
+        } finally {
+            // after : Lock 해제 (취득의 역순)
+            release(accountNumber, policy, lockedAt);
+        }
+    }
+
+    // Lock 해제 (취득의 역순) 및 점유시간 기록
+    private void release(String accountNumber, LockPolicy policy, long lockedAt) {
+        try {
+            lockService.unlock(accountNumber, policy);
         } finally {
-            // after : Lock 해제
-            lockService.unlock(request.getAccountNumber());
+            exitLocal(accountNumber);
+            log.debug("Lock held for accountNumber : {} ({} ms)", accountNumber,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lockedAt));
+        }
+    }
+
+    private LockPolicy getLockPolicy(Method method) {
+        return lockPolicies.computeIfAbsent(method, m -> {
+            AccountLock accountLock = AnnotationUtils.findAnnotation(m, AccountLock.class);
+            return accountLock == null ? LockPolicy.DEFAULT : LockPolicy.from(accountLock);
+        });
+    }
+
+    private String getAccountNumber(Method method, Object[] args) {
+        Object arg = args[accountNumberIndexes.computeIfAbsent(method, this::findAccountNumberIndex)];
+        return arg instanceof AccountLockIdInterface
+                ? ((AccountLockIdInterface) arg).getAccountNumber()
+                : (String) arg;
+    }
+
+    // 계좌번호 인자 위치 (메서드마다 한번만 찾아서 재사용)
+    private int findAccountNumberIndex(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (AccountLockIdInterface.class.isAssignableFrom(parameterTypes[i])) {
+                return i;
+            }
+        }
+        String[] parameterNames = parameterNameDiscoverer.getParameterNames(method);
+        if (parameterNames != null) {
+            for (int i = 0; i < parameterNames.length; i++) {
+                if ("accountNumber".equals(parameterNames[i]) && parameterTypes[i] == String.class) {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalStateException("@AccountLock method has no account number argument : " + method);
+    }
+
+    // 노드 내부 대기 (순서대기열 모드면 차례가 될 때까지 대기)
+    private void enterLocal(String accountNumber, LockPolicy policy) {
+        if (sequencer) {
+            accountSequencer.enter(accountNumber, policy.getWaitTime());
+        } else {
+            localLockService.lock(accountNumber, policy.getWaitTime());
+        }
+    }
+
+    private void exitLocal(String accountNumber) {
+        if (sequencer) {
+            accountSequencer.exit(accountNumber);
+        } else {
+            localLockService.unlock(accountNumber);
         }
     }
 }
@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Lock 저장소(Redis 등) 장애 차단기
+ *  - CLOSED    : 정상. Lock 저장소 오류가 연속 failureThreshold 번 발생하면 OPEN
+ *  - OPEN      : 장애. 요청은 Lock 저장소를 호출하지 않고 바로 실패하거나 대체 Lock(DB row lock)을 사용한다.
+ *  - HALF_OPEN : 백그라운드 스레드가 probeInterval 마다 시험 lock을 잡아보는 중. 성공하면 CLOSED, 실패하면 OPEN
+ *  장애중인 Redis로 요청마다 tryLock을 보내 스레드가 묶이는 것을 막기 위해 사용한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LockCircuitBreaker {
+    private static final String PROBE_KEY = "PROBE";
+    private static final LockPolicy PROBE_POLICY = new LockPolicy(0L, 1000L, false);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final LockProvider lockProvider;
+
+    // 연속 오류 몇 번이면 차단할지
+    @Value("${account.lock.circuit-breaker.failure-threshold:3}")
+    private int failureThreshold;
+
+    // 차단 중 Lock 저장소 복구 확인 주기 (ms)
+    @Value("${account.lock.circuit-breaker.probe-interval:1000}")
+    private long probeInterval;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private ScheduledExecutorService prober;
+
+    @PostConstruct
+    public void startProbe() {
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lock-circuit-breaker-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(
+                this::probe, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopProbe() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+
+    /** 차단 중이면 true (Lock 저장소를 호출하지 않아야 함) */
+    public boolean isOpen() {
+        return state.get() != State.CLOSED;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    public void recordFailure(Exception e) {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold
+                && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            log.error("========== Lock circuit breaker opened ==========", e);
+        }
+    }
+
+    // 차단 중일 때만 시험 lock으로 복구 여부 확인
+    void probe() {
+        if (!state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            return;
+        }
+        try {
+            if (lockProvider.tryLock(PROBE_KEY, PROBE_POLICY)) {
+                lockProvider.unlock(PROBE_KEY, PROBE_POLICY);
+            }
+            // 점유여부와 관계없이 응답이 왔으면 복구된 것으로 판단
+            consecutiveFailures.set(0);
+            state.set(State.CLOSED);
+            log.info("========== Lock circuit breaker closed ==========");
+        } catch (InterruptedException e) {
+            state.set(State.OPEN);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            state.set(State.OPEN);
+            log.debug("Lock circuit breaker probe failed", e);
+        }
+    }
+}
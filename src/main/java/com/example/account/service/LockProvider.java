@@ -0,0 +1,39 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+
+/**
+ 계좌 Lock 구현체(backend) 인터페이스.
+ LockService는 이 인터페이스만 바라보고, 실제 Lock은 설정(account.lock.provider)에 따라 선택된 구현체가 수행한다.
+
+ - redis    : RedissonLockProvider (기본값, 여러 서버가 함께 사용하는 분산 Lock)
+ - local    : LocalLockProvider    (서버 한대로 운영하는 경우 사용하는 JVM 내부 Lock)
+ - database : DatabaseLockProvider (Redis 없이 DB row lock(SELECT ... FOR UPDATE) 사용)
+
+ fencing token은 lock을 점유한 구현체가 lock과 같은 저장소에서 발급한다. (nextFencingToken)
+ */
+public interface LockProvider {
+    /**
+     * Lock 점유 시도
+     * @return policy의 대기시간 안에 Lock을 얻으면 true, 얻지 못하면 false
+     */
+    boolean tryLock(String accountNumber, LockPolicy policy) throws InterruptedException;
+
+    /** Lock 해제 (Lock을 얻은 스레드에서 호출해야 한다.) */
+    void unlock(String accountNumber, LockPolicy policy);
+
+    /**
+     * fencing token 발급 (Lock을 점유한 스레드에서 tryLock 성공 후 호출한다.)
+     * 계좌별로 이전에 발급한 token보다 큰 값을 반환한다.
+     * 저장소 데이터 유실(Redis 재시작 등)이나 구현체 변경 후에도 작아지지 않도록 fencingTokenFloor() 이상을 반환한다.
+     */
+    long nextFencingToken(String accountNumber);
+
+    /** 발급 시각 기준 token 최소값 (현재시각 마이크로초)
+     *  저장소의 token이 유실되어도 이후 발급하는 token은 이전에 발급한 token보다 크다.
+     *  (계좌당 1마이크로초에 1건 넘게 발급하지 않는 한 시각이 token보다 앞선다.)
+     */
+    static long fencingTokenFloor() {
+        return System.currentTimeMillis() * 1000L;
+    }
+}
@@ -1,13 +1,16 @@
 package com.example.account.service;
 
+import com.example.account.aop.LockPolicy;
 import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.concurrent.TimeUnit;
+import java.util.HashSet;
+import java.util.Set;
 
 import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 
@@ -15,50 +18,135 @@ import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 @Service
 @RequiredArgsConstructor
 public class LockService {
-    // RedisClient 객체 빈 자동 생성자주입.
-    // 필드명이 빈으로 등록된 메서드명과 동일한 경우 해당 메서드를 통해 생성된 빈 자동주입.
-    // RedisRepositoryConfig.java의 redissonClient()
-    private final RedissonClient redissonClient;
+    // 차단 중 대체 Lock 방식
+    // fail-fast : 바로 실패 (ACCOUNT_TRANSACTION_LOCK)
+    // database  : 트랜잭션이 시작된 후 Account row에 PESSIMISTIC_WRITE lock (commit/rollback 시 해제)
+    private static final String FALLBACK_DATABASE = "database";
+
+    // 실제 Lock을 수행하는 구현체
+    // 설정(account.lock.provider)에 따라 redis(기본값), local, database 중 하나가 빈으로 등록된다.
+    private final LockProvider lockProvider;
+    // Lock 저장소 장애 시 요청마다 저장소를 호출하지 않도록 차단
+    private final LockCircuitBreaker lockCircuitBreaker;
+    private final AccountRepository accountRepository;
+
+    @Value("${account.lock.fallback:fail-fast}")
+    private String fallback;
+
+    // 현재 스레드에서 대체 Lock(DB row lock)을 사용하는 계좌
+    // row lock은 트랜잭션 안에서 잡고(lockFallbackRow) 트랜잭션 종료 시 DB가 해제하므로
+    // unlock 시 Lock 저장소를 호출하지 않는다.
+    // (요청마다 Set을 새로 만들지 않도록 비어도 스레드에 그대로 두고 재사용)
+    private final ThreadLocal<Set<String>> fallbackLocks = ThreadLocal.withInitial(HashSet::new);
 
     /** Lock 점유 */
     public void lock(String accountNumber) {
-        // Lock 가져오기 (Lock의 키는 계좌번호로 사용)
-        // redissonClient.getLock("ACLK:" + accountNumber);
-        // : getLock() 메서드의 인자로 "ACLK:" + accountNumber를 전달하면 의미가 모호하기 때문에
-        //   private 메서드로 뽑아내 명시적으로 표현한다.
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
-        log.debug("Trying lock for accountNumber : {}" + accountNumber);
+        lock(accountNumber, LockPolicy.DEFAULT);
+    }
+
+    /** Lock 점유 (@AccountLock 에 설정된 정책 사용) */
+    public void lock(String accountNumber, LockPolicy policy) {
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+
+        // Lock 저장소 장애로 차단 중 -> 저장소를 호출하지 않고 대체 Lock
+        if (lockCircuitBreaker.isOpen()) {
+            lockWithFallback(accountNumber);
+            return;
+        }
 
+        boolean isLock;
         try{
-            // Lock 점유 시도
-            // waitTime : Lock을 취득하는 데 기다리는 시간(최대 1초 동안 해당 락을 찾아보기)
-            // leaseTime : Lock 점유 해제하는데 걸리는 시간 (Lock 점유 5초 후 반납)
-            //             (아무동작도 하지 않으면 명시적으로 unlock()하지 않은 경우에 5초후 자동 점유해제)
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
-            // lock 점유 실패
-            if(!isLock) {
-                log.error("========== Lock acquisition failed ==========");
-                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
-            }
-            // throw new AccountException(ACCOUNT_TRANSACTION_LOCK);를 통해 발생시킨 에러를
-            // ExceptionHandler가 예외를 받아 처리할 수 있도록 하기위해
-            // catch (AccountException e) 사용.
-        } catch (AccountException e) { // Lock을 가져오지 못했을 때 발생하는 에러
-            throw e;
-        } catch (Exception e) { // Lock을 가져오지 못했을 때 발생하는 에러 이외의 예상치못한 에러
+            // Lock 점유 시도 (Lock의 키는 계좌번호로 사용)
+            isLock = lockProvider.tryLock(accountNumber, policy);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) { // Lock 저장소 오류 (Lock 점유 실패와 구분)
+            // 예전에는 오류를 로그만 남기고 Lock 없이 거래를 진행했기 때문에 동시성 제어가 되지 않았다.
             log.error("Redis lock failed", e);
+            lockCircuitBreaker.recordFailure(e);
+            lockWithFallback(accountNumber);
+            return;
+        }
+        lockCircuitBreaker.recordSuccess();
+
+        // lock 점유 실패
+        if(!isLock) {
+            log.error("========== Lock acquisition failed ==========");
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+        issueFencingToken(accountNumber, policy);
+    }
+
+    // 대체 Lock
+    // Lock은 트랜잭션 시작 전에 점유하므로(LockAopAspect) 여기서는 대체 Lock 사용만 표시하고,
+    // DB row lock은 트랜잭션이 시작된 후 잔액변경 전에 잡는다. (lockFallbackRow)
+    private void lockWithFallback(String accountNumber) {
+        if (!FALLBACK_DATABASE.equals(fallback)) {
+            log.error("========== Lock unavailable (circuit breaker : {}) ==========",
+                    lockCircuitBreaker.getState());
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+        fallbackLocks.get().add(accountNumber);
+    }
+
+    /** 대체 Lock(DB row lock) 점유
+     *  대체 Lock을 사용하는 계좌면 현재 트랜잭션에서 계좌 row를 잠그고 true 반환 (대체 Lock이 아니면 false)
+     *  DB row lock은 트랜잭션 안에서만 의미가 있으므로 트랜잭션이 없으면 실패한다.
+     */
+    public boolean lockFallbackRow(String accountNumber) {
+        if (!fallbackLocks.get().contains(accountNumber)) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            log.error("========== Fallback lock requires transaction : {} ==========", accountNumber);
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+        // 계좌가 없으면 잠글 row도 없다. (이후 거래 로직에서 ACCOUNT_NOT_FOUND)
+        accountRepository.findForUpdateByAccountNumber(accountNumber);
+        return true;
+    }
+
+    // lock 점유 후 fencing token 발급
+    // token은 lock을 점유한 LockProvider가 lock과 같은 저장소에서 발급한다. (계좌 row는 쓰지 않는다.)
+    // 저장소 재시작, LockProvider 변경 후에도 이전 token보다 작은 token이 발급되지 않는다. (LockProvider.fencingTokenFloor)
+    // 발급에 실패하면 token 없이 잔액을 변경하지 않도록 점유한 lock을 바로 해제한다.
+    private void issueFencingToken(String accountNumber, LockPolicy policy) {
+        try {
+            FencingTokenContext.set(accountNumber, lockProvider.nextFencingToken(accountNumber));
+        } catch (RuntimeException e) {
+            log.error("Fencing token failed", e);
+            lockProvider.unlock(accountNumber, policy);
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
         }
     }
 
     /** Lock 해제 */
     public void unlock(String accountNumber) {
+        unlock(accountNumber, LockPolicy.DEFAULT);
+    }
+
+    /** Lock 해제 (Lock 점유 시 사용한 정책과 동일한 정책 사용) */
+    public void unlock(String accountNumber, LockPolicy policy) {
         // 명시적으로 lock 점유 해제.
-        // lock.unlock();
-        log.debug("Unlock for accountNumber : {}" + accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        log.debug("Unlock for accountNumber : {}", accountNumber);
+        if (releaseFallbackLock(accountNumber)) {
+            return;
+        }
+        try {
+            lockProvider.unlock(accountNumber, policy);
+        } catch (IllegalMonitorStateException e) { // 점유시간이 지나 이미 해제된 경우
+            throw e;
+        } catch (RuntimeException e) {
+            // Lock 저장소 오류 -> 점유시간(watchdog)이 지나면 저장소에서 해제된다.
+            log.error("Redis unlock failed", e);
+            lockCircuitBreaker.recordFailure(e);
+        } finally {
+            FencingTokenContext.clear(accountNumber);
+        }
     }
 
-    private static String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+    private boolean releaseFallbackLock(String accountNumber) {
+        return fallbackLocks.get().remove(accountNumber);
     }
 }
@@ -0,0 +1,53 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ 낙관적 lock 충돌 시 재시도
+ 낙관적 lock 모드(account.lock.optimistic=true)에서는 Redis lock을 잡지 않고
+ Account.version 으로 충돌을 감지한다. 충돌이 나면 잠깐 기다렸다가(backoff) 트랜잭션 전체를 다시 수행한다.
+ (lock 모드에서는 충돌이 발생하지 않으므로 한번만 수행된다.)
+ */
+@Slf4j
+@Service
+public class OptimisticRetryService {
+    // 최대 수행횟수 (최초 1회 + 재시도 2회)
+    private static final int MAX_ATTEMPTS = 3;
+    // 재시도 대기시간 = 10ms, 20ms, ... 최대 100ms (+ 동시에 재시도하지 않도록 랜덤값 추가)
+    private static final long BASE_BACKOFF_MILLIS = 10L;
+    private static final long MAX_BACKOFF_MILLIS = 100L;
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.error("========== Optimistic lock retry exhausted ==========");
+                    throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+                }
+                log.debug("Optimistic lock conflict, retry attempt : {}", attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Redis(Redisson) 분산 Lock (account.lock.provider=redis, 기본값)
+ *  Redisson은 lock 점유(tryLock)와 해제(unlock)를 각각 Lua 스크립트 한번으로 Redis에서 처리한다.
+ *  (해제 스크립트는 lock을 점유한 클라이언트+스레드인지 확인 후 삭제)
+ *  fencing token은 lock 점유 후 같은 Redis에서 계좌별 카운터(INCR)로 발급한다. (Redis 왕복 한번 추가)
+ *  점유 시 얻은 RLock 객체는 해제할 때까지 스레드별로 보관해 재사용하므로
+ *  요청당 lock 키 생성과 getLock() 호출은 한번만 일어난다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedissonLockProvider implements LockProvider {
+    // fencing token 발급 : 계좌별 카운터 증가 (Redis 재시작 등으로 카운터가 유실되면 ARGV[1](현재시각) 부터 다시 발급)
+    // Redis 시각(TIME) 대신 서버 시각을 넘기는 이유 : 스크립트에서 TIME 호출 후에는 쓰기가 허용되지 않는 Redis 버전이 있다.
+    private static final String NEXT_FENCING_TOKEN_SCRIPT =
+            "local token = redis.call('incr', KEYS[1]) " +
+            "local floor = tonumber(ARGV[1]) " +
+            "if token < floor then redis.call('set', KEYS[1], floor) token = floor end " +
+            "return token";
+
+    // RedisClient 객체 빈 자동 생성자주입.
+    // 필드명이 빈으로 등록된 메서드명과 동일한 경우 해당 메서드를 통해 생성된 빈 자동주입.
+    // RedisRepositoryConfig.java의 redissonClient()
+    private final RedissonClient redissonClient;
+
+    // 현재 스레드가 점유중인 lock (계좌번호 -> RLock)
+    // 요청마다 Map을 새로 만들지 않도록 비어도 스레드에 그대로 두고 재사용한다.
+    private final ThreadLocal<Map<String, RLock>> heldLocks = ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public boolean tryLock(String accountNumber, LockPolicy policy) throws InterruptedException {
+        // waitTime : Lock을 취득하는 데 기다리는 시간(@AccountLock.tryLockTime)
+        // leaseTime : Lock 점유 해제하는데 걸리는 시간 (@AccountLock.leaseTime)
+        //             (아무동작도 하지 않으면 명시적으로 unlock()하지 않은 경우에 leaseTime 후 자동 점유해제)
+        //             -1 이면 Redisson watchdog이 lock을 잡고있는 동안 점유시간을 자동 연장한다.
+        RLock lock = getLock(accountNumber, policy);
+        boolean isLock = lock.tryLock(
+                policy.getWaitTime(), policy.getLeaseTime(), TimeUnit.MILLISECONDS);
+        if (isLock) {
+            heldLocks.get().put(accountNumber, lock);
+        }
+        return isLock;
+    }
+
+    // 공정 Lock은 대기열 정리가 필요해 같은 종류의 Lock으로 해제해야 한다.
+    @Override
+    public void unlock(String accountNumber, LockPolicy policy) {
+        RLock lock = heldLocks.get().remove(accountNumber);
+        // 점유 시 보관한 lock이 없으면(다른 스레드에서 점유한 경우 등) 새로 가져와 해제 시도
+        // -> Redis 해제 스크립트에서 점유자 확인 후 IllegalMonitorStateException 발생
+        (lock != null ? lock : getLock(accountNumber, policy)).unlock();
+    }
+
+    @Override
+    public long nextFencingToken(String accountNumber) {
+        Long token = redissonClient.getScript(LongCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, NEXT_FENCING_TOKEN_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(getFencingTokenKey(accountNumber)),
+                LockProvider.fencingTokenFloor());
+        return token;
+    }
+
+    private RLock getLock(String accountNumber, LockPolicy policy) {
+        // redissonClient.getLock("ACLK:" + accountNumber);
+        // : getLock() 메서드의 인자로 "ACLK:" + accountNumber를 전달하면 의미가 모호하기 때문에
+        //   private 메서드로 뽑아내 명시적으로 표현한다.
+        return policy.isFair()
+                ? redissonClient.getFairLock(getLockKey(accountNumber))
+                : redissonClient.getLock(getLockKey(accountNumber));
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+
+    private static String getFencingTokenKey(String accountNumber) {
+        return "ACLK:FENCE:" + accountNumber;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ Snowflake 방식 거래 아이디 생성
+ 64bit = 부호(1) + 시각(41, 기준시각 이후 ms) + 서버번호(10) + 순번(12)
+
+ - 같은 ms 안에서는 순번을 올리고, 순번(4096개)을 다 쓰면 다음 ms까지 기다린다.
+ - 서버번호(account.transaction-id.node-id)는 서버마다 다르게 설정해야 한다. (0 ~ 1023)
+ - 서버 시각이 뒤로 가면 마지막 시각을 계속 사용해 아이디가 줄어들지 않도록 한다.
+ - UUID와 달리 SecureRandom, 문자열 생성 없이 long 연산만 한다.
+ */
+@Component
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    // 기준시각 2024-01-01T00:00:00Z (여기서부터 약 69년 사용 가능)
+    private static final long EPOCH = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    @Value("${account.transaction-id.node-id:0}")
+    private long nodeId;
+
+    private long lastTimestamp = -1L;
+    private long sequence;
+
+    @PostConstruct
+    public void validateNodeId() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException(
+                    "account.transaction-id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+    }
+
+    @Override
+    public synchronized long nextId() {
+        long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // 같은 ms의 순번을 다 씀 -> 다음 ms까지 대기
+                timestamp = waitNextMillis(lastTimestamp);
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+
+        return ((timestamp - EPOCH) << (NODE_BITS + SEQUENCE_BITS))
+                | (nodeId << SEQUENCE_BITS)
+                | sequence;
+    }
+
+    private static long waitNextMillis(long lastTimestamp) {
+        long timestamp = System.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            Thread.onSpinWait();
+            timestamp = System.currentTimeMillis();
+        }
+        return timestamp;
+    }
+}
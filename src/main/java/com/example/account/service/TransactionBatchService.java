@@ -0,0 +1,87 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/** 잔액 사용 일괄처리
+ *  1. 요청을 계좌번호별로 묶는다. (계좌 안에서는 요청 순서 유지)
+ *  2. 계좌별로 lock을 한번만 잡고 한 트랜잭션에서 차감한다. (TransactionService.useBalanceGroup)
+ *  3. 계좌 단위로 실패한 경우(lock 실패 등) 해당 계좌 요청은 모두 실패거래(F)로 저장한다.
+ *  4. 결과는 요청 순서대로 반환한다.
+ *  한 번에 하나의 계좌 lock만 잡으므로 일괄요청끼리 서로 lock을 기다리는 교착상태는 생기지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionBatchService {
+    private final TransactionService transactionService;
+    private final OptimisticRetryService optimisticRetryService;
+
+    public List<UseBalance.Response> useBalances(List<UseBalance.Request> requests) {
+        // 1. 계좌번호별 요청 위치 (계좌 안에서는 요청 순서 유지)
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            groups.computeIfAbsent(requests.get(i).getAccountNumber(), key -> new ArrayList<>())
+                    .add(i);
+        }
+
+        UseBalance.Response[] responses = new UseBalance.Response[requests.size()];
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<UseBalance.Request> groupRequests = group.getValue().stream()
+                    .map(requests::get)
+                    .collect(Collectors.toList());
+
+            // 2. 계좌별 일괄 차감
+            List<UseBalance.Response> groupResponses = useBalanceGroup(group.getKey(), groupRequests);
+
+            // 4. 요청 순서대로 결과 배치
+            for (int i = 0; i < groupResponses.size(); i++) {
+                responses[group.getValue().get(i)] = groupResponses.get(i);
+            }
+        }
+        return Arrays.asList(responses);
+    }
+
+    private List<UseBalance.Response> useBalanceGroup(String accountNumber,
+                                                      List<UseBalance.Request> requests) {
+        try {
+            return optimisticRetryService.execute(() ->
+                    transactionService.useBalanceGroup(accountNumber, requests));
+        } catch (AccountException e) {
+            // 3. 계좌 단위 실패 -> 해당 계좌 요청 모두 실패거래로 저장
+            log.error("Failed to use balance batch : {}", accountNumber);
+            return failAll(accountNumber, requests, e);
+        }
+    }
+
+    private List<UseBalance.Response> failAll(String accountNumber,
+                                              List<UseBalance.Request> requests,
+                                              AccountException cause) {
+        List<TransactionDto> failedTransactions = null;
+        try {
+            failedTransactions = transactionService.saveFailedUseTransactions(accountNumber,
+                    requests.stream().map(UseBalance.Request::getAmount).collect(Collectors.toList()));
+        } catch (AccountException e) {
+            // 계좌 미존재시 거래기록 남기지 않음.
+        }
+
+        List<UseBalance.Response> responses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            responses.add(UseBalance.Response.failed(requests.get(i),
+                    failedTransactions == null ? null : failedTransactions.get(i),
+                    cause.getErrorCode()));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.account.service;
+
+/**
+ 거래 아이디(Transaction.transactionNo) 생성
+ 서로 다른 서버에서 동시에 생성해도 겹치지 않아야 하고, 시간순으로 증가하는 값을 생성한다.
+ (기본 구현체 : SnowflakeTransactionIdGenerator)
+ */
+public interface TransactionIdGenerator {
+    long nextId();
+}
@@ -0,0 +1,117 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionCacheStatus;
+import com.example.account.dto.TransactionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ 거래조회(GET /transaction/{transactionId}) 캐시
+ 거래내역은 한번 저장되면 바뀌지 않으므로 만료 없이 캐시하고, 크기를 넘으면 가장 오래 조회되지 않은 거래부터 지운다.(LRU)
+
+ - 거래를 저장할 때(commit 후)와 조회 시 캐시에 없을 때 담는다.
+   타임아웃 난 클라이언트들이 한꺼번에 거래조회를 해도 대부분 캐시에서 응답한다.
+ - 거래 건 수가 아니라 대략적인 메모리 크기(byte, account.transaction-cache.max-weight)로 제한한다.
+ - 캐시된 TransactionDto는 여러 요청이 같이 사용하므로 값을 변경하면 안된다.
+ */
+@Component
+public class TransactionQueryCache {
+    // TransactionDto 1건의 대략적인 크기 (DTO, 시각, 숫자 객체, map entry) + 문자열 길이
+    private static final long BASE_WEIGHT = 256L;
+
+    private final long maxWeight;
+
+    // accessOrder = true : 조회한 순서대로 정렬 (맨 앞이 가장 오래 조회되지 않은 거래)
+    private final LinkedHashMap<Long, TransactionDto> transactions =
+            new LinkedHashMap<>(1024, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public TransactionQueryCache(
+            @Value("${account.transaction-cache.max-weight:16777216}") long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /** 캐시 조회 (없으면 null) */
+    public TransactionDto get(Long transactionNo) {
+        TransactionDto transactionDto;
+        synchronized (this) {
+            transactionDto = transactions.get(transactionNo);
+        }
+        if (transactionDto == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return transactionDto;
+    }
+
+    /** 캐시 저장 */
+    public void put(Long transactionNo, TransactionDto transactionDto) {
+        long entryWeight = weigh(transactionDto);
+        if (entryWeight > maxWeight) {
+            return;
+        }
+        synchronized (this) {
+            TransactionDto previous = transactions.put(transactionNo, transactionDto);
+            if (previous != null) {
+                weight -= weigh(previous);
+            }
+            weight += entryWeight;
+
+            Iterator<Map.Entry<Long, TransactionDto>> eldest = transactions.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                weight -= weigh(eldest.next().getValue());
+                eldest.remove();
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /** 캐시 저장 (트랜잭션 안이면 commit 후 저장)
+     *  rollback 된 거래가 캐시에 남아 조회되지 않도록 한다. */
+    public void putAfterCommit(Long transactionNo, TransactionDto transactionDto) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(transactionNo, transactionDto);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        put(transactionNo, transactionDto);
+                    }
+                });
+    }
+
+    public synchronized TransactionCacheStatus getStatus() {
+        return TransactionCacheStatus.builder()
+                .size(transactions.size())
+                .weight(weight)
+                .maxWeight(maxWeight)
+                .hitCount(hitCount.sum())
+                .missCount(missCount.sum())
+                .evictionCount(evictionCount.sum())
+                .build();
+    }
+
+    private static long weigh(TransactionDto transactionDto) {
+        return BASE_WEIGHT
+                + length(transactionDto.getAccountNumber())
+                + length(transactionDto.getTransactionId());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountStatus;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceEngineEvent;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
@@ -13,12 +18,23 @@ import com.example.account.type.TransactionResultType;
 import com.example.account.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Set;
 
 import static com.example.account.type.ErrorCode.*;
 import static com.example.account.type.TransactionResultType.F;
@@ -33,6 +49,21 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionQueryCache transactionQueryCache;
+    private final LedgerService ledgerService;
+    private final LockService lockService;
+
+    // 거래내역 조회 최대 페이지 크기
+    private static final int MAX_HISTORY_SIZE = 100;
+    // 거래내역 cursor = Base64(거래일시 + "_" + transactionNo)
+    // 클라이언트는 cursor 내용을 해석하지 않고 그대로 다시 보낸다. (내부 pk(id)는 담지 않음)
+    private static final String CURSOR_SEPARATOR = "_";
+
+    // 조건부 update 한번으로 잔액을 차감하는 모드
+    // (조회 -> 검증 -> 변경을 DB의 update 한번으로 처리)
+    @Value("${account.debit.atomic:false}")
+    private boolean atomicDebit;
 
     /** 잔액 사용
      * 1. 사용자 존재여부 확인
@@ -47,20 +78,39 @@ public class TransactionService {
      * @param amount 사용금액
      * @return TransactionDto 거래정보
      */
+    // @AccountLock
+    // 동시성 이슈 해결을 위해 거래 시 Lock을 걸고 해제하도록 함.
+    // 하지만 단지 어노테이션만 붙여준다고 어떤 기능을 수행하는 것은 아니다.
+    // 어노테이션이 달려있는 부분에서 동작을 하게되는 AOP Aspect를 만들어 동시성 제어를 하도록 한다.
+    // Lock은 트랜잭션 안에서 점유하고 트랜잭션이 commit/rollback 된 후 해제된다. (점유시간 = 잔액변경 시간)
+    // 점유시간은 지정하지 않고 watchdog이 처리가 끝날 때까지 자동 연장하도록 하며,
+    // 대기시간은 짧게 두어 대기중인 요청이 쌓이지 않도록 한다.
+    // 조건부 update 모드(account.debit.atomic)에서는 update 한번으로 잔액을 확인하고 차감하므로 lock을 잡지 않는다.
     @Transactional // service 로직 진행 중 한 군데에서라도 오류가 발생하면 rollback
+    @AccountLock(tryLockTime = 1000L, skipOnAtomicDebit = true)
     public TransactionDto useBalance(Long userId,
                                      String accountNumber,
                                      Long amount) {
+        if (atomicDebit) {
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+
         // 1. 사용자 존재여부 확인
         AccountUser user = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
         // 2. 계좌 존재여부 확인
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        Account account = getLockedAccount(accountNumber);
         // 3. 사용자 아이디와 계좌 소유주 일치여부 확인
         //    계좌가 이미 해지 상태인지 확인
         //    거래금액이 잔액보다 큰지 확인
-        validateUseBalance(user, account, amount);
+        // 원장 모드 : 잔액을 변경하지 않고 원장에 사용금액 추가 (검증에서 구한 원장 위치에 이어서 추가)
+        if (ledgerService.isEnabled()) {
+            LedgerService.Position position = ledgerService.getPosition(account);
+            validateUseBalance(user, account, position.getBalance(), amount);
+            return saveAndGetTransaction(USE, S, amount, account,
+                    ledgerService.append(account, position, USE, -amount).getBalance());
+        }
+        validateUseBalance(user, account, account.getBalance(), amount);
 
         // 4. 잔액 사용(잔액 변경)
         // 잔액을 가져오고 값을 변경할 필요없이 해당 메서드 호출로 해결가능.
@@ -69,28 +119,224 @@ public class TransactionService {
 //        account.setBalance(accountBalance - amount);
 
         // 5. 신규 거래내역 저장 및 정보 전달
-        return TransactionDto.fromEntity(
-                saveAndGetTransaction(USE, S, amount, account)
-        );
+        return saveAndGetTransaction(USE, S, amount, account);
+    }
+
+    /** 잔액 사용 (조건부 update)
+     * 1. 소유주 일치, 사용중인 계좌, 잔액 충분 조건으로 잔액 차감 (update 한번)
+     * 2. 차감되지 않았다면 실패 사유 확인 (실패한 경우에만 조회)
+     * 3. 차감 후 잔액으로 신규 거래내역 저장 및 정보 전달
+     */
+    private TransactionDto useBalanceAtomically(Long userId,
+                                                String accountNumber,
+                                                Long amount) {
+        // 1. 조건부 잔액 차감 (lock을 잡지 않으므로 fencing token 확인 없음)
+        int updated = accountRepository.useBalanceIfSufficient(
+                accountNumber, userId, amount, LocalDateTime.now());
+
+        // 2. 차감실패 -> 기존 검증 로직으로 실패 사유 확인
+        if (updated == 0) {
+            throw useBalanceFailure(userId, accountNumber, amount);
+        }
+
+        // 3. 차감된 잔액으로 신규 거래내역 저장 및 정보 전달
+        //    (update 후 영속성 컨텍스트를 비웠기 때문에 변경된 잔액이 조회된다.)
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        return saveAndGetTransaction(USE, S, amount, account);
+    }
+
+    /** 계좌 lock을 점유한 요청의 계좌 조회
+     * Lock 저장소 장애로 대체 Lock(DB row lock)을 사용중이면 계좌 row를 잠그면서 조회하고,
+     * 조회한 계좌로 fencing token을 확인한다.
+     */
+    public Account getLockedAccount(String accountNumber) {
+        lockFallbackRow(accountNumber);
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        checkFencingToken(account);
+        return account;
+    }
+
+    // 대체 Lock(DB row lock)을 사용중이면 계좌 row 잠금 (계좌를 조회하기 전에 호출)
+    // 홀드 요청(HoldService)도 같은 계좌 lock을 사용하므로 같이 사용한다.
+    public void lockFallbackRow(String accountNumber) {
+        lockService.lockFallbackRow(accountNumber);
+    }
+
+    // 계좌 lock의 fencing token 확인
+    // 계좌를 마지막으로 변경한 요청의 token이 현재 요청의 token보다 크면
+    // lock이 만료된 사이 다른 요청이 lock을 점유해 잔액을 변경한 것이므로 거절한다.
+    // 통과하면 계좌에 현재 token을 기록해 잔액변경 update 에 함께 저장한다. (별도 update 없음)
+    // 조회 후 저장 전에 다른 요청이 계좌를 변경했다면 update 의 version 조건으로 실패한다. (낙관적 lock 충돌 -> 재시도)
+    // (lock을 점유하지 않은 경우(낙관적 lock 모드, 대체 Lock 등)에는 확인하지 않음)
+    // 원장 모드는 계좌 row를 변경하지 않고 원장 순번(unique)으로 동시 변경을 막으므로 token을 기록하지 않는다.
+    public void checkFencingToken(Account account) {
+        Long fencingToken = FencingTokenContext.get(account.getAccountNumber());
+        if (fencingToken == null || ledgerService.isEnabled()) {
+            return;
+        }
+        if (account.getFencingToken() != null && account.getFencingToken() > fencingToken) {
+            log.error("Stale fencing token : {} ({})", account.getAccountNumber(), fencingToken);
+            throw new AccountException(ACCOUNT_LOCK_EXPIRED);
+        }
+        account.setFencingToken(fencingToken);
+    }
+
+    /** 조건부 update 로 차감하지 못한 사유 확인 (실패한 경우에만 조회)
+     * 사용자, 계좌가 없거나 검증에 실패하면 해당 예외를 바로 던지고,
+     * 검증은 통과했지만 update 시점에는 잔액이 부족했던 경우 AMOUNT_EXCEED_BALANCE 반환
+     */
+    public AccountException useBalanceFailure(Long userId, String accountNumber, Long amount) {
+        AccountUser user = accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        long balance = balanceOf(account);
+        validateUseBalance(user, account, balance, amount);
+        return new AccountException(AMOUNT_EXCEED_BALANCE).withAccount(account.getId(), balance);
     }
 
-    private void validateUseBalance(AccountUser user, Account account, Long amount) {
+    /** 여러 요청의 잔액 사용을 한 트랜잭션으로 처리 (DebitGroupCommitService 에서 사용)
+     * 1. 요청 순서대로 조건부 update 로 잔액 차감 (조건을 만족하지 않으면 차감하지 않음)
+     * 2. 차감된 계좌를 한번에 조회해 거래 당시 잔액 계산
+     * 3. 거래내역을 한번에 저장 (JDBC batch insert, commit 한번)
+     * @param requests 잔액 사용 요청 (여러 계좌가 섞여있을 수 있음)
+     * @return 요청 순서와 같은 순서의 거래정보 (차감하지 못한 요청은 null)
+     */
+    @Transactional
+    public List<TransactionDto> useBalances(List<UseBalance.Request> requests) {
+        // 1. 조건부 잔액 차감
+        LocalDateTime now = LocalDateTime.now();
+        boolean[] debited = new boolean[requests.size()];
+        Set<String> accountNumbers = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UseBalance.Request request = requests.get(i);
+            debited[i] = accountRepository.useBalanceIfSufficient(request.getAccountNumber(),
+                    request.getUserId(), request.getAmount(), now) > 0;
+            if (debited[i]) {
+                accountNumbers.add(request.getAccountNumber());
+            }
+        }
+
+        // 2. 차감 후 잔액 조회 (계좌별 한번)
+        //    같은 계좌를 여러 번 차감한 경우 뒤에서부터 차감액을 더해가며 거래 당시 잔액을 구한다.
+        Map<String, Account> accounts = new HashMap<>();
+        Map<String, Long> balances = new HashMap<>();
+        for (Account account : accountRepository.findByAccountNumberIn(accountNumbers)) {
+            accounts.put(account.getAccountNumber(), account);
+            balances.put(account.getAccountNumber(), account.getBalance());
+        }
+        Transaction[] transactions = new Transaction[requests.size()];
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            if (!debited[i]) {
+                continue;
+            }
+            UseBalance.Request request = requests.get(i);
+            Long balance = balances.get(request.getAccountNumber());
+            transactions[i] = newTransaction(USE, S, request.getAmount(),
+                    accounts.get(request.getAccountNumber()), balance);
+            balances.put(request.getAccountNumber(), balance + request.getAmount());
+        }
+
+        // 3. 거래내역 일괄 저장
+        List<Transaction> saved = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            if (transaction != null) {
+                saved.add(transaction);
+            }
+        }
+        transactionRepository.saveAll(saved);
+
+        List<TransactionDto> results = new ArrayList<>(requests.size());
+        for (Transaction transaction : transactions) {
+            if (transaction == null) {
+                results.add(null);
+                continue;
+            }
+            TransactionDto transactionDto = TransactionDto.fromEntity(transaction);
+            transactionQueryCache.putAfterCommit(transaction.getTransactionNo(), transactionDto);
+            results.add(transactionDto);
+        }
+        return results;
+    }
+
+    /** 같은 계좌의 잔액 사용 일괄처리 (TransactionBatchService 에서 계좌별로 호출)
+     * 계좌 lock은 한번만 잡고, 계좌 조회도 한번만 한 뒤 요청 순서대로 잔액을 차감한다.
+     * 검증에 실패한 건은 같은 트랜잭션 안에서 실패거래(F)로 저장하고 다음 건을 계속 처리한다.
+     * @param accountNumber 계좌번호
+     * @param requests 계좌번호가 같은 잔액 사용 요청 (요청 순서대로)
+     * @return 요청 순서와 같은 순서의 거래결과
+     */
+    @Transactional
+    @AccountLock(tryLockTime = 1000L)
+    public List<UseBalance.Response> useBalanceGroup(String accountNumber,
+                                                     List<UseBalance.Request> requests) {
+        Account account = getLockedAccount(accountNumber);
+
+        // 원장 모드 : 원장 위치는 한번만 구하고 원장 추가 후 위치로 이어간다.
+        LedgerService.Position position = ledgerService.isEnabled()
+                ? ledgerService.getPosition(account) : null;
+
+        // 같은 사용자의 요청이 여러 건이면 사용자 조회는 한번만 한다.
+        Map<Long, AccountUser> users = new HashMap<>();
+        List<UseBalance.Response> responses = new ArrayList<>(requests.size());
+        for (UseBalance.Request request : requests) {
+            try {
+                AccountUser user = users.get(request.getUserId());
+                if (user == null) {
+                    user = accountUserRepository.findById(request.getUserId())
+                            .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+                    users.put(request.getUserId(), user);
+                }
+                if (position != null) {
+                    validateUseBalance(user, account, position.getBalance(), request.getAmount());
+                    position = ledgerService.append(account, position, USE, -request.getAmount());
+                    responses.add(UseBalance.Response.from(
+                            saveAndGetTransaction(USE, S, request.getAmount(), account,
+                                    position.getBalance())));
+                    continue;
+                }
+                validateUseBalance(user, account, account.getBalance(), request.getAmount());
+                account.useBalance(request.getAmount());
+                responses.add(UseBalance.Response.from(
+                        saveAndGetTransaction(USE, S, request.getAmount(), account)));
+            } catch (AccountException e) {
+                responses.add(UseBalance.Response.failed(request,
+                        saveAndGetTransaction(USE, F, request.getAmount(), account),
+                        e.getErrorCode()));
+            }
+        }
+        return responses;
+    }
+
+    // balance : 계좌 현재잔액 (원장 모드면 원장으로 계산한 잔액)
+    private void validateUseBalance(AccountUser user, Account account, long balance, Long amount) {
         // 사용자 아이디와 계좌 소유주가 다른 경우
+        // (실패거래 저장 시 다시 조회하지 않도록 계좌 id와 실패 시점 잔액을 담는다.)
         if(!Objects.equals(user.getId(), account.getAccountUser().getId())) {
-            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+            throw new AccountException(USER_ACCOUNT_UN_MATCH).withAccount(account.getId(), balance);
         }
 
         // 계좌가 이미 해지 상태인 경우 (사용중인 계좌가 아닌 경우)
         if(account.getAccountStatus() != AccountStatus.IN_USE) {
-            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED).withAccount(account.getId(), balance);
         }
 
-        // 거래금액이 잔액보다 큰 경우
-        if(account.getBalance() < amount) {
-            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        // 거래금액이 잔액보다 큰 경우 (홀드중인 금액은 사용할 수 없음)
+        if(balance - account.getHeldAmount() < amount) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE).withAccount(account.getId(), balance);
         }
     }
 
+    /** 홀드 매입 거래내역 저장 (HoldService 에서 사용)
+     * 잔액은 호출하는 쪽에서 Account.captureHold 로 변경한 뒤 호출한다.
+     */
+    @Transactional
+    public TransactionDto saveCaptureTransaction(Account account, Long amount) {
+        return saveAndGetTransaction(USE, S, amount, account);
+    }
+
     @Transactional
     public void saveFailedUseTransaction(String accountNumber, Long amount) {
         // 계좌 미존재시 거래기록 남기지 않음.
@@ -100,73 +346,248 @@ public class TransactionService {
         saveAndGetTransaction(USE, F, amount, account);
     }
 
-    private Transaction saveAndGetTransaction(
+    /** 같은 계좌의 잔액 사용 요청을 모두 실패거래로 저장 (계좌 lock 실패 등 일괄처리 자체가 실패한 경우)
+     * @return 저장된 실패거래 (계좌 미존재시 거래기록 남기지 않고 ACCOUNT_NOT_FOUND)
+     */
+    @Transactional
+    public List<TransactionDto> saveFailedUseTransactions(String accountNumber,
+                                                          List<Long> amounts) {
+        Account account  = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        List<TransactionDto> transactions = new ArrayList<>(amounts.size());
+        for (Long amount : amounts) {
+            transactions.add(saveAndGetTransaction(USE, F, amount, account));
+        }
+        return transactions;
+    }
+
+    /** 실패거래 일괄저장 (FailedTransactionJournal 에서 사용)
+     * 실패 시점에 조회한 계좌 id와 잔액이 있으면 그대로 사용한다. (계좌는 조회하지 않고 참조만 사용)
+     * 없는 실패거래만 계좌를 한번에 조회하고, 계좌가 없는 실패거래는 기록하지 않는다.
+     */
+    @Transactional
+    public void saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+        Set<String> accountNumbers = new HashSet<>();
+        for (FailedTransaction failedTransaction : failedTransactions) {
+            if (failedTransaction.getAccountId() == null) {
+                accountNumbers.add(failedTransaction.getAccountNumber());
+            }
+        }
+        Map<String, Account> accounts = new HashMap<>();
+        if (!accountNumbers.isEmpty()) {
+            for (Account account : accountRepository.findByAccountNumberIn(accountNumbers)) {
+                accounts.put(account.getAccountNumber(), account);
+            }
+        }
+
+        List<Transaction> transactions = new ArrayList<>(failedTransactions.size());
+        for (FailedTransaction failedTransaction : failedTransactions) {
+            Account account = failedTransaction.getAccountId() != null
+                    ? accountRepository.getReferenceById(failedTransaction.getAccountId())
+                    : accounts.get(failedTransaction.getAccountNumber());
+            if (account == null) {
+                continue;
+            }
+            long balanceSnapshot = failedTransaction.getBalanceSnapshot() != null
+                    ? failedTransaction.getBalanceSnapshot() : balanceOf(account);
+            Transaction transaction = newTransaction(failedTransaction.getTransactionType(), F,
+                    failedTransaction.getAmount(), account, balanceSnapshot);
+            transaction.setTransactedAt(failedTransaction.getTransactedAt());
+            transactions.add(transaction);
+        }
+        // 실패거래는 조회가 많지 않아 거래조회 캐시에 담지 않는다. (조회 시 캐시에 담김)
+        transactionRepository.saveAll(transactions);
+    }
+
+    /** 잔액 엔진 처리결과 DB 반영 (BalanceEngine 에서 사용)
+     * 1. 계좌 잔액을 계좌별 마지막 거래 후 잔액으로 변경
+     * 2. 거래내역 저장 (재시작 후 다시 전달된 거래 중 이미 저장된 거래는 제외)
+     * 잔액을 더하고 빼지 않고 엔진의 잔액으로 덮어쓰기 때문에 같은 거래를 다시 반영해도 결과가 같다.
+     */
+    @Transactional
+    public void saveEngineEvents(List<BalanceEngineEvent> events) {
+        Map<String, Long> lastBalances = new HashMap<>();
+        List<Long> transactionNos = new ArrayList<>(events.size());
+        for (BalanceEngineEvent event : events) {
+            lastBalances.put(event.getAccountNumber(), event.getBalanceAfter());
+            transactionNos.add(event.getTransactionNo());
+        }
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findByAccountNumberIn(lastBalances.keySet())) {
+            // 1. 계좌 잔액 변경
+            account.setBalance(lastBalances.get(account.getAccountNumber()));
+            accounts.put(account.getAccountNumber(), account);
+        }
+
+        // 2. 거래내역 저장
+        Set<Long> saved = new HashSet<>(transactionRepository.findTransactionNos(transactionNos));
+        List<Transaction> transactions = new ArrayList<>(events.size());
+        for (BalanceEngineEvent event : events) {
+            Account account = accounts.get(event.getAccountNumber());
+            if (account == null || saved.contains(event.getTransactionNo())) {
+                continue;
+            }
+            transactions.add(Transaction.builder()
+                    .transactionType(event.getTransactionType())
+                    .transactionResultType(S)
+                    .account(account)
+                    .amount(event.getAmount())
+                    .balanceSnapshot(event.getBalanceAfter())
+                    .transactionNo(event.getTransactionNo())
+                    .transactedAt(event.getTransactedAt())
+                    .cancelledTransactionNo(event.getCancelledTransactionNo())
+                    .build());
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    /** 원거래가 이미 사용 취소되었는지 (BalanceEngine 에서 사용)
+     * DB에 반영된 사용취소 거래만 확인한다. (반영 전 사용 취소는 엔진이 확인) */
+    @Transactional
+    public boolean isCancelled(long transactionNo) {
+        return transactionRepository.existsByCancelledTransactionNo(transactionNo);
+    }
+
+    // 계좌 현재잔액 (원장 모드면 원장으로 계산한 잔액)
+    private long balanceOf(Account account) {
+        return ledgerService.isEnabled()
+                ? ledgerService.getBalance(account) : account.getBalance();
+    }
+
+    private TransactionDto saveAndGetTransaction(
             TransactionType transactionType,
             TransactionResultType transactionResultType,
             Long amount,
             Account account) {
-        return transactionRepository.save(
-                Transaction.builder()
-                        .transactionType(transactionType)
-                        .transactionResultType(transactionResultType) // 실패
-                        .account(account)
-                        .amount(amount)
-                        .balanceSnapshot(account.getBalance())
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                        .transactedAt(LocalDateTime.now())
-                        .build()
+        return saveAndGetTransaction(transactionType, transactionResultType,
+                amount, account, balanceOf(account));
+    }
+
+    // 거래내역 저장 후 거래정보 반환 (거래조회 캐시에도 commit 후 저장)
+    private TransactionDto saveAndGetTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Long amount,
+            Account account,
+            long balanceSnapshot) {
+        Transaction transaction = transactionRepository.save(
+                newTransaction(transactionType, transactionResultType,
+                        amount, account, balanceSnapshot)
         );
-        // UUID.randomUUID().toString().replace("-", "")
-        // : UUID 사용
-        //   고유한 값 생성하는 방법 중 가장 검증이 많이되고 편리하고 쉬운 방법
-        //   생성된 UUID의 대시(-) 문자를 제거
+        TransactionDto transactionDto = TransactionDto.fromEntity(transaction);
+        transactionQueryCache.putAfterCommit(transaction.getTransactionNo(), transactionDto);
+        return transactionDto;
+    }
+
+    private Transaction newTransaction(
+            TransactionType transactionType,
+            TransactionResultType transactionResultType,
+            Long amount,
+            Account account,
+            Long balanceSnapshot) {
+        return Transaction.builder()
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType) // 실패
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionNo(transactionIdGenerator.nextId())
+                .transactedAt(LocalDateTime.now())
+                .build();
+        // 예전에는 UUID.randomUUID().toString().replace("-", "") 사용
+        // : 고유한 값 생성하는 방법 중 가장 검증이 많이되고 편리하고 쉬운 방법이지만
+        //   랜덤값이라 index 여기저기에 insert 되고 32자리 문자열이라 index도 크다.
+        //   -> 시간순으로 증가하는 64bit 값(TransactionIdGenerator)으로 변경
     }
 
     /** 잔액 사용 취소
-     *  1. transactionId에 해당하는 거래내역 존재여부 확인
-     *  2. 계좌 존재여부 확인
-     *  3. 거래와 계좌가 일치하지 않는 경우
+     *  1. transactionId에 해당하는 거래내역과 계좌를 한번에 조회 (거래내역 join 계좌)
+     *  2. 거래의 계좌와 요청 계좌가 다른 경우 (계좌가 없으면 ACCOUNT_NOT_FOUND)
      *     거래금액과 거래취소금액이 다른 경우 (부분취소불가)
      *     1년이 넘은 거래는 사용취소불가
-     *  4. 잔액 사용 취소(잔액 변경)
-     *  5. 거래내역 저장 및 정보 전달
+     *  3. 잔액 사용 취소(잔액 변경)
+     *  4. 거래내역 저장 및 정보 전달 (이미 취소된 거래면 저장 시 unique 제약조건으로 실패)
      * @param transactionId 거래내역ID
      * @param accountNumber 계좌번호
      * @param amount 취소금액
      * @return TransactionDto 거래정보
      */
     // 해당 계좌에서 거래(사용, 사용취소)가 진행중일 때 다른 거래 요청 처리X(동시처리방지)
+    // 취소는 실패하면 안되는 요청이라 조금 더 오래 기다리며 들어온 순서대로(fair) 처리한다.
+    // 점유시간은 고정하지 않는다. (watchdog 자동 연장)
+    // 고정하면 DB 지연 등으로 트랜잭션이 점유시간보다 길어질 때 lock이 먼저 풀려 fencing token 검증에서 실패한다.
     @Transactional
+    @AccountLock(tryLockTime = 3000L, fair = true)
     public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
-        // 1. transactionId에 해당하는 거래내역 존재여부 확인
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+        // 대체 Lock 사용중이면 거래내역(+ 계좌) 조회 전에 계좌 row를 잠근다.
+        lockFallbackRow(accountNumber);
 
-        // 2. 계좌 존재여부 확인
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        // 1. 거래내역 + 계좌 조회 (예전에는 계좌를 계좌번호로 한번 더 조회했다.)
+        Transaction transaction = findTransaction(transactionId);
+        Account account = transaction.getAccount();
 
-        // 3. 거래와 계좌가 일치하지 않는 경우
+        // 2. 거래와 계좌가 일치하지 않는 경우 (실패한 경우에만 계좌 존재여부 확인)
+        //    성공한 사용 거래가 아닌 경우
         //    거래금액과 거래취소금액이 다른 경우 (부분취소불가)
         //    1년이 넘은 거래는 사용취소불가
-        validateCancelBalance(transaction, account, amount);
+        if (!Objects.equals(account.getAccountNumber(), accountNumber)) {
+            if (!accountRepository.findByAccountNumber(accountNumber).isPresent()) {
+                throw new AccountException(ACCOUNT_NOT_FOUND);
+            }
+            throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
+        }
+        try {
+            validateCancelBalance(transaction, amount);
+        } catch (AccountException e) {
+            // 실패거래 저장 시 다시 조회하지 않도록 계좌 id와 실패 시점 잔액을 담는다.
+            throw e.withAccount(account.getId(), balanceOf(account));
+        }
+        checkFencingToken(account);
 
-        // 4. 잔액 사용 취소(잔액 변경)
+        // 원장 모드 : 잔액을 변경하지 않고 원장에 취소금액 추가
+        if (ledgerService.isEnabled()) {
+            return saveAndGetCancelTransaction(amount, account,
+                    ledgerService.append(account, CANCEL, amount), transaction.getTransactionNo());
+        }
+
+        // 3. 잔액 사용 취소(잔액 변경)
         account.cancelBalance(amount);
 
-        // 5. 거래내역 저장 및 정보 전달
-        return TransactionDto.fromEntity(
-            saveAndGetTransaction(CANCEL, S, amount, account)
-        );
+        // 4. 거래내역 저장 및 정보 전달
+        return saveAndGetCancelTransaction(amount, account,
+                account.getBalance(), transaction.getTransactionNo());
     }
 
-    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
+    // 사용취소 거래내역 저장 (취소한 원거래 연결)
+    // 바로 flush 해서 중복취소(cancelledTransactionNo unique 위반)를 이 자리에서 확인한다.
+    private TransactionDto saveAndGetCancelTransaction(Long amount,
+                                                      Account account,
+                                                      long balanceSnapshot,
+                                                      Long cancelledTransactionNo) {
+        Transaction cancel = newTransaction(CANCEL, S, amount, account, balanceSnapshot);
+        cancel.setCancelledTransactionNo(cancelledTransactionNo);
+        Transaction transaction;
+        try {
+            transaction = transactionRepository.saveAndFlush(cancel);
+        } catch (DataIntegrityViolationException e) {
+            throw new AccountException(TRANSACTION_ALREADY_CANCELLED);
+        }
+        TransactionDto transactionDto = TransactionDto.fromEntity(transaction);
+        transactionQueryCache.putAfterCommit(transaction.getTransactionNo(), transactionDto);
+        return transactionDto;
+    }
+
+    private void validateCancelBalance(Transaction transaction, Long amount) {
         // 실질적으로는 거래보다 거래취소가 훨씬 더 복잡하다. (현재는 굉장한 심플버전임.)
 
-        // 거래와 계좌가 일치하지 않는 경우
-        if(!Objects.equals(transaction.getAccount().getId(), account.getId())) {
-            throw new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
+        // 성공한 사용 거래가 아닌 경우
+        // (실패거래는 차감된 적 없는 금액이 입금되고, 취소거래를 다시 취소하면 중복취소 확인을 우회한다.)
+        if (transaction.getTransactionType() != USE
+                || transaction.getTransactionResultType() != S) {
+            throw new AccountException(TRANSACTION_NOT_CANCELLABLE);
         }
+
         // 거래금액과 거래취소금액이 다른 경우 (부분취소불가)
         if(!Objects.equals(transaction.getAmount(), amount)) {
             throw new AccountException(CANCEL_MUST_FULLY);
@@ -191,9 +612,97 @@ public class TransactionService {
     public TransactionDto queryTransaction(String transactionId) {
         // transactionId에 해당하는 거래내역 조회 -> 정보 반환
         // 거래 아이디에 해당하는 거래가 없는 경우 실패
-        return TransactionDto.fromEntity(
-                transactionRepository.findByTransactionId(transactionId)
-                    .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND))
-        );
+        // (Entity 없이 필요한 컬럼만 조회해 TransactionDto로 바로 받는다.)
+        Long transactionNo = Transaction.toTransactionNo(transactionId);
+        if (transactionNo == null) {
+            throw new AccountException(TRANSACTION_NOT_FOUND);
+        }
+
+        // 거래내역은 바뀌지 않으므로 캐시에 있으면 DB 조회 없이 반환
+        TransactionDto cached = transactionQueryCache.get(transactionNo);
+        if (cached != null) {
+            return cached;
+        }
+        TransactionDto transactionDto = transactionRepository.findDtoByTransactionNo(transactionNo)
+                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+        transactionQueryCache.put(transactionNo, transactionDto);
+        return transactionDto;
+    }
+
+    /** 계좌 거래내역 조회 (최신순, keyset 페이지)
+     * 1. 계좌 존재여부 확인
+     * 2. cursor가 없으면 첫 페이지, 있으면 cursor(이전 페이지 마지막 거래) 이후 거래 조회
+     * 3. 다음 페이지가 있으면 이번 페이지 마지막 거래로 nextCursor 생성
+     * @param accountNumber 계좌번호
+     * @param transactionType 거래종류 (null 이면 전체)
+     * @param resultType 거래결과 (null 이면 전체)
+     * @param cursor 이전 페이지 응답의 nextCursor (첫 페이지는 null)
+     * @param size 페이지 크기 (1 ~ 100)
+     * @return TransactionHistoryDto 거래내역 한 페이지
+     */
+    @Transactional
+    public TransactionHistoryDto getTransactionHistory(String accountNumber,
+                                                       TransactionType transactionType,
+                                                       TransactionResultType resultType,
+                                                       String cursor,
+                                                       int size) {
+        if (size < 1 || size > MAX_HISTORY_SIZE) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+        // 1. 계좌 존재여부 확인
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        // 2. 거래내역 조회 (다음 페이지 존재여부 확인을 위해 1건 더 조회)
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Transaction> transactions;
+        if (cursor == null) {
+            transactions = transactionRepository.findHistory(
+                    account.getId(), transactionType, resultType, pageable);
+        } else {
+            LocalDateTime transactedAt;
+            long transactionNo;
+            try {
+                String decoded = new String(
+                        Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf(CURSOR_SEPARATOR);
+                transactedAt = LocalDateTime.parse(decoded.substring(0, separator));
+                transactionNo = Long.parseLong(decoded.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new AccountException(INVALID_REQUEST);
+            }
+            transactions = transactionRepository.findHistoryBefore(
+                    account.getId(), transactionType, resultType, transactedAt, transactionNo, pageable);
+        }
+
+        // 3. 다음 페이지 cursor = 이번 페이지 마지막 거래의 (거래일시, transactionNo)
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            Transaction last = transactions.get(size - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getTransactedAt() + CURSOR_SEPARATOR + last.getTransactionNo())
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<TransactionDto> transactionDtos = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            transactionDtos.add(TransactionDto.fromEntity(transaction));
+        }
+        return TransactionHistoryDto.builder()
+                .accountNumber(accountNumber)
+                .transactions(transactionDtos)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // 거래 아이디 형식이 맞지 않으면 조회하지 않고 TRANSACTION_NOT_FOUND
+    private Transaction findTransaction(String transactionId) {
+        Long transactionNo = Transaction.toTransactionNo(transactionId);
+        if (transactionNo == null) {
+            throw new AccountException(TRANSACTION_NOT_FOUND);
+        }
+        return transactionRepository.findByTransactionNo(transactionNo)
+                .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
     }
 }
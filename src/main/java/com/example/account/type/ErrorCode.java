@@ -15,12 +15,24 @@ public enum ErrorCode {
     INVALID_REQUEST("잘못된 요청입니다."),
     USER_NOT_FOUND("사용자가 없습니다."),
     ACCOUNT_NOT_FOUND("계좌가 없습니다."),
+    ACCOUNT_NUMBER_EXHAUSTED("발급 가능한 계좌번호가 없습니다."),
     ACCOUNT_TRANSACTION_LOCK("해당 계좌는 사용중입니다."),
+    ACCOUNT_TRANSACTION_QUEUE_FULL("해당 계좌에 대기중인 거래가 너무 많습니다."),
+    ACCOUNT_LOCK_EXPIRED("계좌 Lock이 만료되어 거래를 처리할 수 없습니다."),
+    TRANSACTION_RESULT_UNKNOWN("거래 처리결과를 확인하지 못했습니다. 거래확인으로 결과를 확인해주세요."),
+    IDEMPOTENCY_KEY_IN_PROGRESS("같은 멱등키의 요청이 처리중입니다."),
+    IDEMPOTENCY_KEY_REUSED("다른 요청에 사용된 멱등키입니다."),
     TRANSACTION_NOT_FOUND("해당 거래가 없습니다."),
+    HOLD_NOT_FOUND("해당 홀드가 없습니다."),
+    HOLD_ACCOUNT_UN_MATCH("이 홀드는 해당 계좌의 홀드가 아닙니다."),
+    HOLD_NOT_ACTIVE("이미 매입, 해제 또는 만료된 홀드입니다."),
+    CAPTURE_EXCEED_HOLD("매입 금액이 홀드 금액보다 큽니다."),
     AMOUNT_EXCEED_BALANCE("거래 금액이 계좌 잔액보다 큽니다."),
     USER_ACCOUNT_UN_MATCH("사용자와 계좌의 소유주가 다릅니다."),
     TRANSACTION_ACCOUNT_UN_MATCH("이 거래는 해당 계좌에서 발생한 거래가 아닙니다."),
+    TRANSACTION_NOT_CANCELLABLE("성공한 사용 거래만 취소할 수 있습니다."),
     CANCEL_MUST_FULLY("부분 취소는 허용되지 않습니다."),
+    TRANSACTION_ALREADY_CANCELLED("이미 취소된 거래입니다."),
     TOO_OLD_ORDER_TO_CANCEL("1년이 지난 거래는 취소 불가합니다.."),
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
@@ -1,9 +1,12 @@
 -- application.yml 파일의 jpa: defer-datasource-initialization: true로 설정되어있어야 데이터 insert 수행.
 -- (테이블의 생성시점 이후에 데이터 insert가 발생할 수 있도록 함.)
 
-insert into account_user(id, name, created_at, updated_at)
-values(1, 'Pororo', now(), now());
-insert into account_user(id, name, created_at, updated_at)
-values(2, 'Lupi', now(), now());
-insert into account_user(id, name, created_at, updated_at)
-values(3, 'Eddie', now(), now());
+insert into account_user(id, name, account_count, created_at, updated_at)
+values(1, 'Pororo', 0, now(), now());
+insert into account_user(id, name, account_count, created_at, updated_at)
+values(2, 'Lupi', 0, now(), now());
+insert into account_user(id, name, account_count, created_at, updated_at)
+values(3, 'Eddie', 0, now(), now());
+
+-- 계좌번호 시퀀스는 AccountNumberAllocator가 처음 계좌번호를 발급할 때 만든다.
+-- (DB에 맞는 문법으로, 이미 발급된 계좌번호 다음 구간부터 시작)
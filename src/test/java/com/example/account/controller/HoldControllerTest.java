@@ -0,0 +1,162 @@
+package com.example.account.controller;
+
+import com.example.account.dto.CaptureHold;
+import com.example.account.dto.HoldBalance;
+import com.example.account.dto.HoldDto;
+import com.example.account.dto.ReleaseHold;
+import com.example.account.exception.AccountException;
+import com.example.account.service.HoldService;
+import com.example.account.service.OptimisticRetryService;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.domain.HoldStatus.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(HoldController.class)
+@Import(OptimisticRetryService.class)
+class HoldControllerTest {
+    @MockBean
+    private HoldService holdService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("홀드 - 홀드 아이디 반환")
+    void successHoldBalance() throws Exception {
+        // given
+        given(holdService.hold(anyLong(), anyString(), anyLong()))
+                .willReturn(HoldDto.builder()
+                        .accountNumber("1000000000")
+                        .holdId("holdId")
+                        .holdStatus(HELD)
+                        .amount(3000L)
+                        .heldAt(LocalDateTime.now())
+                        .expiresAt(LocalDateTime.now().plusDays(7))
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/hold")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new HoldBalance.Request(1L, "1000000000", 3000L)
+                ))
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+            .andExpect(jsonPath("$.holdId").value("holdId"))
+            .andExpect(jsonPath("$.amount").value(3000));
+    }
+
+    @Test
+    @DisplayName("홀드 금액 검증 실패 - 홀드하지 않음")
+    void holdBalanceFailed_invalidAmount() throws Exception {
+        // given
+        // when
+        // then
+        mockMvc.perform(post("/transaction/hold")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new HoldBalance.Request(1L, "1000000000", 1L)
+                ))
+            ).andDo(print())
+            .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+        verify(holdService, never()).hold(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("매입 - 매입 거래 아이디 반환")
+    void successCaptureHold() throws Exception {
+        // given
+        given(holdService.captureHold(anyString(), anyString(), anyLong()))
+                .willReturn(HoldDto.builder()
+                        .accountNumber("1000000000")
+                        .holdId("holdId")
+                        .holdStatus(CAPTURED)
+                        .amount(3000L)
+                        .capturedAmount(2000L)
+                        .closedAt(LocalDateTime.now())
+                        .transactionId("transactionId")
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/hold/capture")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new CaptureHold.Request("holdId", "1000000000", 2000L)
+                ))
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.holdId").value("holdId"))
+            .andExpect(jsonPath("$.transactionId").value("transactionId"))
+            .andExpect(jsonPath("$.amount").value(2000));
+    }
+
+    @Test
+    @DisplayName("이미 해제된 홀드 매입 - 실패 응답")
+    void captureHoldFailed_holdNotActive() throws Exception {
+        // given
+        given(holdService.captureHold(anyString(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.HOLD_NOT_ACTIVE));
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/hold/capture")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new CaptureHold.Request("holdId", "1000000000", 2000L)
+                ))
+            ).andDo(print())
+            .andExpect(jsonPath("$.errorCode").value("HOLD_NOT_ACTIVE"));
+    }
+
+    @Test
+    @DisplayName("해제 - 해제된 홀드금액 반환")
+    void successReleaseHold() throws Exception {
+        // given
+        given(holdService.releaseHold(anyString(), anyString()))
+                .willReturn(HoldDto.builder()
+                        .accountNumber("1000000000")
+                        .holdId("holdId")
+                        .holdStatus(RELEASED)
+                        .amount(3000L)
+                        .capturedAmount(0L)
+                        .closedAt(LocalDateTime.now())
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/hold/release")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new ReleaseHold.Request("holdId", "1000000000")
+                ))
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.holdId").value("holdId"))
+            .andExpect(jsonPath("$.amount").value(3000));
+    }
+}
@@ -2,22 +2,39 @@ package com.example.account.controller;
 
 import com.example.account.dto.CancelBalance;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
 import com.example.account.dto.UseBalance;
+import com.example.account.dto.UseBalanceBatch;
+import com.example.account.exception.AccountException;
+import com.example.account.service.BalanceEngine;
+import com.example.account.service.DebitGroupCommitService;
+import com.example.account.service.FailedTransactionJournal;
+import com.example.account.service.IdempotencyService;
+import com.example.account.service.OptimisticRetryService;
+import com.example.account.service.TransactionBatchService;
 import com.example.account.service.TransactionService;
+import com.example.account.type.ErrorCode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
+import static com.example.account.type.TransactionResultType.F;
 import static com.example.account.type.TransactionResultType.S;
 import static com.example.account.type.TransactionType.USE;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -25,16 +42,40 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
+@Import(OptimisticRetryService.class)
 class TransactionControllerTest {
     @MockBean // 가짜빈을 생성해 TransactionController에 주입
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionBatchService transactionBatchService;
+
+    @MockBean
+    private DebitGroupCommitService debitGroupCommitService;
+
+    @MockBean
+    private FailedTransactionJournal failedTransactionJournal;
+
+    @MockBean
+    private BalanceEngine balanceEngine;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
     private ObjectMapper objectMapper;
 
+    // 멱등키 처리는 요청을 그대로 실행하도록 둔다.
+    @BeforeEach
+    void setUp() throws Exception {
+        given(idempotencyService.execute(anyString(), any(), anyString(), any(), any()))
+                .willAnswer(invocation ->
+                        invocation.<IdempotencyService.Call<?, ?>>getArgument(4).call());
+    }
+
     @Test
     void successUseBalance() throws Exception {
         // given
@@ -63,6 +104,125 @@ class TransactionControllerTest {
             .andExpect(jsonPath("$.amount").value(12345));
     }
 
+    @Test
+    @DisplayName("잔액 엔진 모드 - 잔액 사용은 엔진이 처리")
+    void successUseBalance_engine() throws Exception {
+        // given
+        given(balanceEngine.isEnabled()).willReturn(true);
+        given(balanceEngine.useBalance(anyLong(), anyString(), anyLong()))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000000")
+                        .transactedAt(LocalDateTime.now())
+                        .amount(3000L)
+                        .transactionId("transactionId")
+                        .transactionResultType(S)
+                        .build());
+
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalance.Request(1L, "1000000000", 3000L)
+                ))
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+            .andExpect(jsonPath("$.transactionResult").value("S"))
+            .andExpect(jsonPath("$.transactionId").value("transactionId"))
+            .andExpect(jsonPath("$.amount").value(3000));
+        verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("그룹 커밋 응답 대기시간 초과 - 처리결과 미확인 응답, 실패거래로 저장하지 않음")
+    void useBalance_resultUnknown() throws Exception {
+        // given
+        given(debitGroupCommitService.isEnabled()).willReturn(true);
+        given(debitGroupCommitService.useBalance(anyLong(), anyString(), anyLong()))
+                .willThrow(new AccountException(ErrorCode.TRANSACTION_RESULT_UNKNOWN));
+
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalance.Request(1L, "1000000000", 3000L)
+                ))
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.errorCode").value("TRANSACTION_RESULT_UNKNOWN"));
+        verify(failedTransactionJournal, never()).record(any(), anyString(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("멱등키로 다시 들어온 요청 - 저장된 응답 반환, 잔액 사용 처리 안함")
+    void replayUseBalance_idempotencyKey() throws Exception {
+        // given
+        given(idempotencyService.execute(eq("use"), eq("retry-key-1"),
+                eq("1:1000000000:3000"), eq(UseBalance.Response.class), any()))
+                .willReturn(UseBalance.Response.builder()
+                        .accountNumber("1000000000")
+                        .transactionResult(S)
+                        .transactionId("transactionId")
+                        .amount(3000L)
+                        .build());
+
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use")
+                .header("Idempotency-Key", "retry-key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalance.Request(1L, "1000000000", 3000L)
+                ))
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transactionId").value("transactionId"))
+            .andExpect(jsonPath("$.amount").value(3000));
+        verify(transactionService, never()).useBalance(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    void successUseBalanceBatch() throws Exception {
+        // given
+        given(transactionBatchService.useBalances(anyList()))
+                .willReturn(Arrays.asList(
+                        UseBalance.Response.builder()
+                                .accountNumber("1000000000")
+                                .transactionResult(S)
+                                .transactionId("transactionId1")
+                                .amount(1000L)
+                                .build(),
+                        UseBalance.Response.builder()
+                                .accountNumber("1000000000")
+                                .transactionResult(F)
+                                .transactionId("transactionId2")
+                                .amount(2000L)
+                                .errorCode(ErrorCode.AMOUNT_EXCEED_BALANCE)
+                                .build()));
+
+        // when
+
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UseBalanceBatch.Request(Arrays.asList(
+                                new UseBalance.Request(1L, "1000000000", 1000L),
+                                new UseBalance.Request(1L, "1000000000", 2000L)))
+                ))
+            ).andDo(print())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.results[0].transactionResult").value("S"))
+            .andExpect(jsonPath("$.results[0].errorCode").doesNotExist())
+            .andExpect(jsonPath("$.results[1].transactionResult").value("F"))
+            .andExpect(jsonPath("$.results[1].errorCode").value("AMOUNT_EXCEED_BALANCE"));
+    }
+
     @Test
     void successCancelBalance() throws Exception {
         // given
@@ -120,4 +280,36 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.amount").value(54321));
     }
 
-}
\ No newline at end of file
+    @Test
+    void successGetTransactionHistory() throws Exception {
+        // given
+        given(transactionService.getTransactionHistory(
+                eq("1000000000"), eq(USE), isNull(), eq("cursor"), eq(10)))
+                .willReturn(TransactionHistoryDto.builder()
+                        .accountNumber("1000000000")
+                        .transactions(Arrays.asList(
+                                TransactionDto.builder()
+                                        .accountNumber("1000000000")
+                                        .transactionType(USE)
+                                        .transactionResultType(S)
+                                        .transactionId("transactionId")
+                                        .amount(1000L)
+                                        .transactedAt(LocalDateTime.now())
+                                        .build()))
+                        .nextCursor("nextCursor")
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(get("/account/1000000000/transactions")
+                        .param("transaction_type", "USE")
+                        .param("cursor", "cursor")
+                        .param("size", "10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountNumber").value("1000000000"))
+                .andExpect(jsonPath("$.transactions[0].transactionId").value("transactionId"))
+                .andExpect(jsonPath("$.transactions[0].amount").value(1000))
+                .andExpect(jsonPath("$.nextCursor").value("nextCursor"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountRepositoryCustomImplTest {
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<Account> query;
+
+    private AccountRepositoryCustomImpl accountRepository;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = new AccountRepositoryCustomImpl(entityManager, 100);
+    }
+
+    @Test
+    @DisplayName("두번째 조회부터 계좌번호 쿼리 없이 PK 조회")
+    void findByAccountNumber_cacheHit() {
+        // given
+        Account account = account(AccountStatus.IN_USE);
+        givenQueryResult(account);
+        given(entityManager.find(Account.class, 7L)).willReturn(account);
+
+        // when
+        accountRepository.findByAccountNumber("1000000000");
+        Optional<Account> cached = accountRepository.findByAccountNumber("1000000000");
+
+        // then
+        assertSame(account, cached.get());
+        verify(entityManager, times(1)).createQuery(anyString(), eq(Account.class));
+        verify(entityManager, times(1)).find(Account.class, 7L);
+    }
+
+    @Test
+    @DisplayName("해지된 계좌는 캐시하지 않음")
+    void findByAccountNumber_unregisteredNotCached() {
+        // given
+        givenQueryResult(account(AccountStatus.UNREGISTERED));
+
+        // when
+        accountRepository.findByAccountNumber("1000000000");
+        accountRepository.findByAccountNumber("1000000000");
+
+        // then
+        verify(entityManager, times(2)).createQuery(anyString(), eq(Account.class));
+        verify(entityManager, times(0)).find(any(), any());
+    }
+
+    @Test
+    @DisplayName("캐시 삭제 후 다시 계좌번호로 조회")
+    void evictAccountNumber() {
+        // given
+        givenQueryResult(account(AccountStatus.IN_USE));
+        accountRepository.findByAccountNumber("1000000000");
+
+        // when
+        accountRepository.evictAccountNumber("1000000000");
+        accountRepository.findByAccountNumber("1000000000");
+
+        // then
+        verify(entityManager, times(2)).createQuery(anyString(), eq(Account.class));
+        verify(entityManager, times(0)).find(any(), any());
+    }
+
+    @Test
+    @DisplayName("해당계좌없음 - 빈 결과")
+    void findByAccountNumber_notFound() {
+        // given
+        given(entityManager.createQuery(anyString(), eq(Account.class))).willReturn(query);
+        given(query.setParameter(anyString(), any())).willReturn(query);
+        given(query.getResultList()).willReturn(Collections.emptyList());
+
+        // when
+        // then
+        assertFalse(accountRepository.findByAccountNumber("1000000000").isPresent());
+    }
+
+    private void givenQueryResult(Account account) {
+        given(entityManager.createQuery(anyString(), eq(Account.class))).willReturn(query);
+        given(query.setParameter(anyString(), any())).willReturn(query);
+        given(query.getResultList()).willReturn(Collections.singletonList(account));
+    }
+
+    private static Account account(AccountStatus status) {
+        Account account = Account.builder()
+                .accountNumber("1000000000")
+                .accountStatus(status)
+                .build();
+        account.setId(7L);
+        return account;
+    }
+}
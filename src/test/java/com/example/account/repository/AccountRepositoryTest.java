@@ -0,0 +1,195 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.BalanceSnapshot;
+import com.example.account.domain.LedgerEntry;
+import com.example.account.dto.AccountDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.account.domain.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+// 실행되는 SQL 수를 Hibernate 통계로 확인
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AccountRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    @DisplayName("계좌목록조회 - 쿼리 1번, Entity 생성 없이 DTO 조회")
+    void findDtoByAccountUserId() {
+        // given
+        // 사용자는 data.sql에서 생성한 사용자 사용
+        AccountUser user = entityManager.find(AccountUser.class, 1L);
+        entityManager.persist(account(user, "1000000000", 1000L));
+        entityManager.persist(account(user, "1000000001", 2000L));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        List<AccountDto> accountDtos = accountRepository.findDtoByAccountUserId(1L);
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, accountDtos.size());
+        assertEquals(1L, accountDtos.get(0).getUserId());
+    }
+
+    @Test
+    @DisplayName("원장 모드 계좌목록조회 - snapshot + 이후 원장 합계를 쿼리 1번으로 계산")
+    void findLedgerDtoByAccountUserId() {
+        // given
+        AccountUser user = entityManager.find(AccountUser.class, 1L);
+        Account snapshotted = entityManager.persist(account(user, "1000000000", 10000L));
+        Account started = entityManager.persist(account(user, "1000000001", 2000L));
+        Account untouched = entityManager.persist(account(user, "1000000002", 3000L));
+        // 1000000000 : snapshot(seq 2, 잔액 8000) 이후 원장 -500 -> 7500 (snapshot 이전 원장은 더하지 않음)
+        entityManager.persist(ledgerEntry(snapshotted, 1L, -1000L));
+        entityManager.persist(ledgerEntry(snapshotted, 2L, -1000L));
+        entityManager.persist(snapshot(snapshotted, 1L, 9000L));
+        entityManager.persist(snapshot(snapshotted, 2L, 8000L));
+        entityManager.persist(ledgerEntry(snapshotted, 3L, -500L));
+        // 1000000001 : snapshot 없음 -> 시작잔액 2000 + 원장 -300 = 1700
+        entityManager.persist(ledgerEntry(started, 1L, -300L));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        List<AccountDto> accountDtos = accountRepository.findLedgerDtoByAccountUserId(1L);
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(3, accountDtos.size());
+        assertEquals(7500L, balanceOf(accountDtos, snapshotted.getAccountNumber()));
+        assertEquals(1700L, balanceOf(accountDtos, started.getAccountNumber()));
+        assertEquals(3000L, balanceOf(accountDtos, untouched.getAccountNumber()));
+    }
+
+    @Test
+    @DisplayName("계좌번호 조회 - 사용자는 LAZY로 조회하지 않음")
+    void findByAccountNumber_accountUserLazy() {
+        // given
+        AccountUser user = entityManager.find(AccountUser.class, 1L);
+        entityManager.persist(account(user, "1000000000", 1000L));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        Account account = accountRepository.findByAccountNumber("1000000000").get();
+
+        // then
+        assertEquals(1L, account.getAccountUser().getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("fencing token - 잔액변경 update 에 함께 저장 (별도 update 없음)")
+    void saveFencingToken_withBalanceUpdate() {
+        // given
+        AccountUser user = entityManager.find(AccountUser.class, 1L);
+        entityManager.persist(account(user, "1000000000", 1000L));
+        entityManager.flush();
+        entityManager.clear();
+        Account account = accountRepository.findByAccountNumber("1000000000").get();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        account.setBalance(500L);
+        account.setFencingToken(7L);
+        entityManager.flush();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        entityManager.clear();
+        Account saved = accountRepository.findByAccountNumber("1000000000").get();
+        assertEquals(500L, saved.getBalance());
+        assertEquals(7L, saved.getFencingToken());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("계좌번호 구간 시퀀스 - 이미 발급된 계좌번호 다음 구간부터 시작")
+    void createAccountNumberBlockSequence_aboveMaxAccountNumber() {
+        // given
+        // 시퀀스는 다른 트랜잭션에서 만들고 조회하므로 계좌도 commit 해둔다.
+        // (사용자는 data.sql에서 생성한 사용자)
+        AccountUser user = AccountUser.builder().build();
+        user.setId(1L);
+        Account saved = accountRepository.save(account(user, "1000000250", 1000L));
+        try {
+            // when
+            accountRepository.createAccountNumberBlockSequence(100);
+            long first = accountRepository.reserveAccountNumberBlock(100);
+            long second = accountRepository.reserveAccountNumberBlock(100);
+
+            // then
+            // 1000000250 이 속한 구간(1000000200 ~ 1000000299)의 다음 구간부터
+            assertEquals(1000000300L, first);
+            assertEquals(1000000400L, second);
+        } finally {
+            accountRepository.delete(saved);
+        }
+    }
+
+    private static LedgerEntry ledgerEntry(Account account, Long seq, Long amount) {
+        return LedgerEntry.builder()
+                .accountId(account.getId())
+                .seq(seq)
+                .transactionType(USE)
+                .amount(amount)
+                .build();
+    }
+
+    private static BalanceSnapshot snapshot(Account account, Long seq, Long balance) {
+        return BalanceSnapshot.builder()
+                .accountId(account.getId())
+                .seq(seq)
+                .balance(balance)
+                .build();
+    }
+
+    private static Long balanceOf(List<AccountDto> accountDtos, String accountNumber) {
+        return accountDtos.stream()
+                .filter(accountDto -> accountNumber.equals(accountDto.getAccountNumber()))
+                .findFirst()
+                .map(AccountDto::getBalance)
+                .orElse(null);
+    }
+
+    private static Account account(AccountUser user, String accountNumber, Long balance) {
+        return Account.builder()
+                .accountUser(user)
+                .accountNumber(accountNumber)
+                .accountStatus(IN_USE)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.TransactionDto;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.account.domain.AccountStatus.IN_USE;
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+// 실행되는 SQL 수를 Hibernate 통계로 확인
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransactionRepositoryTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Statistics statistics;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        // 사용자는 data.sql에서 생성한 사용자 사용
+        AccountUser user = entityManager.find(AccountUser.class, 1L);
+        account = entityManager.persist(Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(IN_USE)
+                .balance(9000L)
+                .build());
+        entityManager.persist(Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionNo(1L)
+                .transactedAt(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("거래조회 - 쿼리 1번, Entity 생성 없이 DTO 조회")
+    void findDtoByTransactionNo() {
+        // given
+        // when
+        TransactionDto transactionDto = transactionRepository.findDtoByTransactionNo(1L).get();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("1000000000", transactionDto.getAccountNumber());
+        assertEquals(Transaction.toTransactionId(1L), transactionDto.getTransactionId());
+        assertEquals(1000L, transactionDto.getAmount());
+    }
+
+    @Test
+    @DisplayName("거래취소용 조회 - 쿼리 1번으로 거래+계좌 조회, 사용자는 조회하지 않음")
+    void findByTransactionNo_withAccount() {
+        // given
+        // when
+        Transaction transaction = transactionRepository.findByTransactionNo(1L).get();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(Hibernate.isInitialized(transaction.getAccount()));
+        assertFalse(Hibernate.isInitialized(transaction.getAccount().getAccountUser()));
+        assertEquals(1L, transaction.getAccount().getAccountUser().getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("같은 거래를 두번 취소 - 두번째 취소거래 저장 시 unique 제약조건 위반")
+    void failSaveCancel_alreadyCancelled() {
+        // given
+        transactionRepository.saveAndFlush(cancelOf(1L, 2L));
+
+        // when
+        // then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> transactionRepository.saveAndFlush(cancelOf(1L, 3L)));
+    }
+
+    @Test
+    @DisplayName("원거래 취소여부 조회 - 사용취소 거래가 있는 원거래만 true")
+    void existsByCancelledTransactionNo() {
+        // given
+        transactionRepository.saveAndFlush(cancelOf(1L, 2L));
+
+        // when
+        // then
+        assertTrue(transactionRepository.existsByCancelledTransactionNo(1L));
+        assertFalse(transactionRepository.existsByCancelledTransactionNo(2L));
+    }
+
+    @Test
+    @DisplayName("거래 id 조회 - 계좌는 LAZY로 조회하지 않음")
+    void findById_accountLazy() {
+        // given
+        Long id = transactionRepository.findByTransactionNo(1L).get().getId();
+        entityManager.clear();
+        statistics.clear();
+
+        // when
+        Transaction transaction = transactionRepository.findById(id).get();
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(Hibernate.isInitialized(transaction.getAccount()));
+    }
+
+    @Test
+    @DisplayName("거래내역 keyset 페이지 - 이전 페이지 마지막 거래 이후부터 최신순 조회")
+    void findHistoryBefore() {
+        // given
+        // setUp()에서 저장한 거래보다 나중 거래
+        // 2, 3 / 4, 5 는 거래일시가 같아 transactionNo 순서로 구분한다.
+        LocalDateTime now = LocalDateTime.now().plusDays(1);
+        for (long i = 2; i <= 5; i++) {
+            entityManager.persist(Transaction.builder()
+                    .account(account)
+                    .transactionType(USE)
+                    .transactionResultType(S)
+                    .amount(1000L)
+                    .balanceSnapshot(9000L)
+                    .transactionNo(i)
+                    .transactedAt(now.plusSeconds(i / 2))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Transaction> firstPage = transactionRepository.findHistory(
+                account.getId(), USE, null, PageRequest.of(0, 3));
+        Transaction last = firstPage.get(2);
+        List<Transaction> secondPage = transactionRepository.findHistoryBefore(
+                account.getId(), USE, null, last.getTransactedAt(), last.getTransactionNo(),
+                PageRequest.of(0, 3));
+
+        // then
+        assertEquals(5L, firstPage.get(0).getTransactionNo());
+        assertEquals(4L, firstPage.get(1).getTransactionNo());
+        assertEquals(3L, firstPage.get(2).getTransactionNo());
+        // 같은 거래일시의 남은 거래(2)부터 이어서 조회
+        assertEquals(2L, secondPage.get(0).getTransactionNo());
+        assertEquals(1L, secondPage.get(1).getTransactionNo());
+        assertEquals(2, secondPage.size());
+    }
+
+    private Transaction cancelOf(Long cancelledTransactionNo, Long transactionNo) {
+        return Transaction.builder()
+                .account(entityManager.find(Account.class, account.getId()))
+                .transactionType(CANCEL)
+                .transactionResultType(S)
+                .amount(1000L)
+                .balanceSnapshot(10000L)
+                .transactionNo(transactionNo)
+                .cancelledTransactionNo(cancelledTransactionNo)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Test
+    @DisplayName("첫 계좌번호 - 시퀀스 시작값(1000000000)")
+    void firstAccountNumber() {
+        // given
+        given(accountRepository.reserveAccountNumberBlock(AccountNumberAllocator.BLOCK_SIZE))
+                .willReturn(1000000000L);
+
+        // when
+        String accountNumber = accountNumberAllocator.nextAccountNumber();
+
+        // then
+        assertEquals("1000000000", accountNumber);
+    }
+
+    @Test
+    @DisplayName("예약한 구간을 다 쓸 때까지 시퀀스 호출 없이 발급")
+    void allocateFromReservedBlock() {
+        // given
+        given(accountRepository.reserveAccountNumberBlock(AccountNumberAllocator.BLOCK_SIZE))
+                .willReturn(1000000000L, 1000000000L + AccountNumberAllocator.BLOCK_SIZE);
+
+        // when
+        String last = null;
+        for (int i = 0; i < AccountNumberAllocator.BLOCK_SIZE; i++) {
+            last = accountNumberAllocator.nextAccountNumber();
+        }
+        String next = accountNumberAllocator.nextAccountNumber();
+
+        // then
+        assertEquals("1000000099", last);
+        assertEquals("1000000100", next);
+        verify(accountRepository, times(2)).reserveAccountNumberBlock(AccountNumberAllocator.BLOCK_SIZE);
+    }
+
+    @Test
+    @DisplayName("동시 발급 - 중복 없음")
+    void allocateConcurrently() throws Exception {
+        // given
+        AtomicLong sequence = new AtomicLong(1000000000L);
+        given(accountRepository.reserveAccountNumberBlock(AccountNumberAllocator.BLOCK_SIZE))
+                .willAnswer(invocation ->
+                        sequence.getAndAdd(AccountNumberAllocator.BLOCK_SIZE));
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    accountNumbers.add(accountNumberAllocator.nextAccountNumber());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // then
+        assertEquals(8000, accountNumbers.size());
+    }
+
+    @Test
+    @DisplayName("시퀀스 없음 - 시퀀스를 만든 뒤 다시 예약")
+    void createSequenceWhenMissing() {
+        // given
+        given(accountRepository.reserveAccountNumberBlock(AccountNumberAllocator.BLOCK_SIZE))
+                .willThrow(new InvalidDataAccessResourceUsageException("sequence not found"))
+                .willReturn(1000000300L);
+
+        // when
+        String accountNumber = accountNumberAllocator.nextAccountNumber();
+
+        // then
+        assertEquals("1000000300", accountNumber);
+        verify(accountRepository, times(1))
+                .createAccountNumberBlockSequence(AccountNumberAllocator.BLOCK_SIZE);
+        verify(accountRepository, times(2))
+                .reserveAccountNumberBlock(AccountNumberAllocator.BLOCK_SIZE);
+    }
+
+    @Test
+    @DisplayName("10자리 초과 - 계좌번호 발급실패")
+    void accountNumberExhausted() {
+        // given
+        given(accountRepository.reserveAccountNumberBlock(AccountNumberAllocator.BLOCK_SIZE))
+                .willReturn(10000000000L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountNumberAllocator.nextAccountNumber());
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, exception.getErrorCode());
+    }
+}
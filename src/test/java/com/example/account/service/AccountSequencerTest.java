@@ -0,0 +1,143 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSequencerTest {
+    private final AccountSequencer accountSequencer = new AccountSequencer();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountSequencer, "capacity", 2);
+        ReflectionTestUtils.setField(accountSequencer, "maxTotal", 3);
+    }
+
+    @Test
+    void successEnterAndExit() {
+        // given
+        // when
+        accountSequencer.enter("1000000000", 1000L);
+        int depth = accountSequencer.getQueueDepth("1000000000");
+        accountSequencer.exit("1000000000");
+
+        // then
+        // 대기 요청이 없으면 계좌 대기열 제거
+        assertEquals(1, depth);
+        assertEquals(0, accountSequencer.getQueueDepth("1000000000"));
+        assertEquals(0, accountSequencer.getQueuedAccountCount());
+    }
+
+    @Test
+    @DisplayName("먼저 처리중인 요청이 끝나면 대기하던 요청이 이어서 처리")
+    void waitForTurn() throws Exception {
+        // given
+        List<String> processed = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        accountSequencer.enter("1000000000", 1000L);
+        CountDownLatch submitted = new CountDownLatch(1);
+        Future<?> waiting = executor.submit(() -> {
+            submitted.countDown();
+            accountSequencer.enter("1000000000", 1000L);
+            processed.add("second");
+            accountSequencer.exit("1000000000");
+        });
+        assertTrue(submitted.await(1, TimeUnit.SECONDS));
+
+        // when
+        processed.add("first");
+        accountSequencer.exit("1000000000");
+
+        // then
+        waiting.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("first", "second"), processed);
+        assertEquals(0, accountSequencer.getTotalQueueDepth());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 찬 경우 - 거절")
+    void failEnter_queueFull() throws Exception {
+        // given
+        // 처리중 1건 + 대기 1건 = capacity(2)
+        accountSequencer.enter("1000000000", 1000L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> waiting = executor.submit(() -> {
+            accountSequencer.enter("1000000000", 1000L);
+            accountSequencer.exit("1000000000");
+        });
+        while (accountSequencer.getQueueDepth("1000000000") < 2) {
+            Thread.sleep(10L);
+        }
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSequencer.enter("1000000000", 1000L));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL, exception.getErrorCode());
+        assertEquals(1L, accountSequencer.getRejectedCount());
+
+        accountSequencer.exit("1000000000");
+        waiting.get(1, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("전체 대기 요청 수가 가득 찬 경우 - 다른 계좌도 거절")
+    void failEnter_totalQueueFull() {
+        // given
+        // 계좌별로는 여유가 있지만 전체 대기 수 = max-total(3)
+        accountSequencer.enter("1000000000", 1000L);
+        accountSequencer.enter("1000000001", 1000L);
+        accountSequencer.enter("1000000002", 1000L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSequencer.enter("1000000003", 1000L));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_QUEUE_FULL, exception.getErrorCode());
+        assertEquals(3, accountSequencer.getTotalQueueDepth());
+        assertEquals(0, accountSequencer.getQueueDepth("1000000003"));
+
+        accountSequencer.exit("1000000000");
+        accountSequencer.exit("1000000001");
+        accountSequencer.exit("1000000002");
+        assertEquals(0, accountSequencer.getTotalQueueDepth());
+    }
+
+    @Test
+    @DisplayName("대기시간(tryLockTime) 안에 차례가 오지 않음 - 실패 후 대기열에서 빠짐")
+    void failEnter_waitTimeout() throws Exception {
+        // given
+        accountSequencer.enter("1000000000", 1000L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<AccountException> waiting = executor.submit(() -> assertThrows(
+                AccountException.class, () -> accountSequencer.enter("1000000000", 100L)));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK,
+                waiting.get(1, TimeUnit.SECONDS).getErrorCode());
+        assertEquals(1, accountSequencer.getQueueDepth("1000000000"));
+        assertEquals(1, accountSequencer.getTotalQueueDepth());
+
+        accountSequencer.exit("1000000000");
+        executor.shutdown();
+    }
+}
@@ -24,6 +24,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -35,6 +37,15 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private BalanceEngine balanceEngine;
+
     // accountRepository, accountUserRepository 두 개의 mock을 담는 accountService를 생성
     @InjectMocks
     private AccountService accountService;
@@ -49,11 +60,12 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
 
+        given(accountUserRepository.increaseAccountCount(anyLong(), anyInt()))
+                .willReturn(1);
         // 2. 계좌번호 생성 mocking
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.of(Account.builder()
-                                .accountNumber("1000000012").build()));
-        // 생성되어야 할 계좌번호 = 마지막 계좌번호 + 1이 되어야함을 확인
+        given(accountNumberAllocator.nextAccountNumber())
+                .willReturn("1000000013");
+        // 생성되어야 할 계좌번호 = 발급받은 계좌번호가 되어야함을 확인
         ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
 
         // 3. 계좌 저장 mocking
@@ -69,8 +81,10 @@ class AccountServiceTest {
         // then
         verify(accountRepository, times(1)).save(captor.capture());
         assertEquals(12L, accountDto.getUserId());
-        // 현재 계좌번호가 마지막계좌번호인 1000000012 +1인지 확인
+        // 발급받은 계좌번호로 저장했는지 확인
         assertEquals("1000000013", captor.getValue().getAccountNumber());
+        // 계좌 count 조회 없이 사용자의 계좌 수를 검사하며 +1 했는지 확인
+        verify(accountUserRepository, times(1)).increaseAccountCount(12L, 10);
     }
 
     @Test
@@ -92,40 +106,6 @@ class AccountServiceTest {
         assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
     }
 
-    @Test
-    @DisplayName("계좌번호 저장내역없음")
-    void createFirstAccount() {
-        // given
-        AccountUser user = AccountUser.builder()
-                .name("Pobi").build();
-        user.setId(15L);
-        // 1. 사용자 존재여부 확인 mocking
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-
-        // 2. 계좌번호 생성 mocking
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
-        // 생성되어야 할 계좌번호 = 마지막 계좌번호 + 1이 되어야함을 확인
-        ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
-
-        // 3. 계좌 저장 mocking
-        // 외부 의존성에 있는 accountRepository가 응답을 주지 않을 때 null 반환 -> 테스트 시 save 메서드에 대해서도 mocking필요
-        given(accountRepository.save(any()))
-                .willReturn(Account.builder()
-                        .accountUser(user)
-                        .accountNumber("1000000013").build());
-
-        // when
-        AccountDto accountDto = accountService.createAccount(1L, 1000L);
-
-        // then
-        verify(accountRepository, times(1)).save(captor.capture());
-        assertEquals(15L, accountDto.getUserId());
-        // 현재 계좌번호가 마지막계좌번호인 1000000012 +1인지 확인
-        assertEquals("1000000000", captor.getValue().getAccountNumber());
-    }
-
     @Test
     @DisplayName("유저당 최대 계좌 수인 10개 초과 - 계좌생성실패")
     void createAccount_maxAccountIs10() {
@@ -136,9 +116,9 @@ class AccountServiceTest {
         // 1. 사용자 존재여부 확인 mocking
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
-        // 2. 사용자의 계좌 수 확인 mocking
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(10);
+        // 2. 사용자의 계좌 수 확인 mocking (최대 계좌 수 도달 -> 변경된 row 없음)
+        given(accountUserRepository.increaseAccountCount(anyLong(), anyInt()))
+                .willReturn(0);
 
         // when
         AccountException exception = assertThrows(AccountException.class,
@@ -177,6 +157,8 @@ class AccountServiceTest {
         assertEquals(12L, accountDto.getUserId());
         assertEquals("1000000012", captor.getValue().getAccountNumber());
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
+        // 해지된 계좌는 계좌번호 캐시에서 삭제
+        verify(accountRepository, times(1)).evictAccountNumber("1000000002");
     }
 
     @Test
@@ -278,6 +260,62 @@ class AccountServiceTest {
         assertEquals(ErrorCode.BALANCE_NOT_EMPTY, exception.getErrorCode());
     }
 
+    @Test
+    @DisplayName("엔진 모드 - 엔진에서 해지 검증, DB 잔액(반영 전)은 보지 않음")
+    void deleteAccountSuccess_balanceEngine() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(balanceEngine.isEnabled()).willReturn(true);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(100L)
+                        .accountNumber("1000000012").build()));
+
+        // when
+        AccountDto accountDto = accountService.deleteAccount(12L, "1000000012");
+
+        // then
+        ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
+        verify(balanceEngine, times(1)).closeAccount(12L, "1000000012");
+        verify(accountRepository, times(1)).save(captor.capture());
+        assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
+        assertEquals(0L, accountDto.getBalance());
+    }
+
+    @Test
+    @DisplayName("엔진 모드 엔진 잔액있음 - 계좌해지실패")
+    void deleteAccountFailed_balanceEngineBalanceNotEmpty() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(12L);
+        given(balanceEngine.isEnabled()).willReturn(true);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(0L)
+                        .accountNumber("1000000012").build()));
+        willThrow(new AccountException(ErrorCode.BALANCE_NOT_EMPTY))
+                .given(balanceEngine).closeAccount(12L, "1000000012");
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(12L, "1000000012"));
+
+        // then
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, exception.getErrorCode());
+        verify(accountRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("이미해지된계좌 - 계좌해지실패")
     void deleteAccountFailed_AlreadyUnregistered() {
@@ -312,14 +350,14 @@ class AccountServiceTest {
         AccountUser user = AccountUser.builder()
                 .name("Pobi").build();
         user.setId(1L);
-        List<Account> accounts = Arrays.asList(
-                Account.builder()
-                        .accountUser(user)
+        List<AccountDto> accounts = Arrays.asList(
+                AccountDto.builder()
+                        .userId(1L)
                         .accountNumber("1111111111")
                         .balance(1000L)
                         .build(),
-                Account.builder()
-                        .accountUser(user)
+                AccountDto.builder()
+                        .userId(1L)
                         .accountNumber("2222222222")
                         .balance(2000L)
                         .build()
@@ -328,7 +366,7 @@ class AccountServiceTest {
         given(accountUserRepository.findById(anyLong()))
                 .willReturn(Optional.of(user));
         // 2. 사용자의 계좌목록 조회 mocking
-        given(accountRepository.findByAccountUser(any()))
+        given(accountRepository.findDtoByAccountUserId(1L))
                 .willReturn(accounts);
 
         // when
@@ -342,6 +380,35 @@ class AccountServiceTest {
         assertEquals(2000, accountDtos.get(1).getBalance());
     }
 
+    @Test
+    @DisplayName("원장 모드 - 계좌별 조회 없이 원장 잔액으로 계좌목록 조회")
+    void successGetAccountsByUserId_ledger() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        given(ledgerService.isEnabled()).willReturn(true);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findLedgerDtoByAccountUserId(1L))
+                .willReturn(Arrays.asList(
+                        AccountDto.builder()
+                                .userId(1L)
+                                .accountNumber("1111111111")
+                                .balance(700L) // 원장으로 계산한 잔액
+                                .build()));
+
+        // when
+        List<AccountDto> accountDtos = accountService.getAccountsByUserId(1L);
+
+        // then
+        assertEquals(1, accountDtos.size());
+        assertEquals(700L, accountDtos.get(0).getBalance());
+        verify(accountRepository, never()).findDtoByAccountUserId(anyLong());
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(ledgerService, never()).getBalance(any());
+    }
+
     @Test
     @DisplayName("해당유저없음 - 계좌조회실패")
     void getAccountsFailed_UserNotFound() {
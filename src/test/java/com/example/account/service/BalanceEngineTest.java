@@ -0,0 +1,389 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountStatus;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.BalanceEngineEvent;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceEngineTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    private final TransactionQueryCache transactionQueryCache = new TransactionQueryCache(1 << 20);
+
+    private final AtomicLong transactionNo = new AtomicLong(1000L);
+
+    @TempDir
+    Path tempDir;
+
+    private BalanceEngine balanceEngine;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (balanceEngine != null) {
+            balanceEngine.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("메모리 잔액으로 차례대로 차감하고 DB 반영 스레드로 전달")
+    void successUseBalance() {
+        // given
+        given(transactionIdGenerator.nextId()).willAnswer(invocation -> transactionNo.incrementAndGet());
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        balanceEngine = startEngine();
+
+        // when
+        TransactionDto first = balanceEngine.useBalance(1L, "1000000000", 3000L);
+        TransactionDto second = balanceEngine.useBalance(1L, "1000000000", 4000L);
+
+        // then
+        assertEquals(S, first.getTransactionResultType());
+        assertEquals(USE, first.getTransactionType());
+        assertEquals(7000L, first.getBalanceSnapshot());
+        assertEquals(3000L, second.getBalanceSnapshot());
+        // 계좌는 처음 한번만 DB에서 읽는다.
+        verify(accountRepository, times(1)).findByAccountNumber("1000000000");
+        // DB 반영 전에도 거래조회 캐시로 조회 가능
+        assertSame(second, transactionQueryCache.get(1002L));
+        verify(transactionService, timeout(2000).atLeastOnce()).saveEngineEvents(anyList());
+    }
+
+    @Test
+    @DisplayName("잔액 부족 - 잔액 사용 실패, 잔액은 그대로")
+    void failUseBalance_amountExceedBalance() {
+        // given
+        given(transactionIdGenerator.nextId()).willAnswer(invocation -> transactionNo.incrementAndGet());
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        balanceEngine = startEngine();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(1L, "1000000000", 10001L));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        // 실패거래는 엔진의 실패 시점 잔액으로 저장 (계좌 다시 조회하지 않음)
+        assertEquals(12L, exception.getAccountId());
+        assertEquals(10000L, exception.getBalance());
+        assertEquals(0L, balanceEngine.useBalance(1L, "1000000000", 10000L).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("계좌 소유주가 다름 - 잔액 사용 실패")
+    void failUseBalance_userUnMatch() {
+        // given
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        balanceEngine = startEngine();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(2L, "1000000000", 1000L));
+
+        // then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("계좌 없음 - 잔액 사용 실패")
+    void failUseBalance_accountNotFound() {
+        // given
+        given(accountRepository.findByAccountNumber(anyString())).willReturn(Optional.empty());
+        balanceEngine = startEngine();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(1L, "1000000000", 1000L));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("원거래와 계좌가 다름 - 잔액 사용 취소 실패")
+    void failCancelBalance_transactionAccountUnMatch() {
+        // given
+        String transactionId = Transaction.toTransactionId(1001L);
+        given(transactionService.queryTransaction(transactionId))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber("1000000012")
+                        .amount(1000L)
+                        .build());
+        balanceEngine = startEngine();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance(transactionId, "1000000000", 1000L));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_ACCOUNT_UN_MATCH, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("DB 반영 전 같은 거래를 다시 취소 - 엔진에서 중복취소 거절, 잔액은 한번만 증가")
+    void failCancelBalance_alreadyCancelledInEngine() {
+        // given
+        given(transactionIdGenerator.nextId()).willAnswer(invocation -> transactionNo.incrementAndGet());
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        // DB 반영이 끝나지 않은 상태 (원거래, 취소 모두 엔진에서만 확인할 수 있음)
+        willThrow(new IllegalStateException("db down"))
+                .given(transactionService).saveEngineEvents(anyList());
+        balanceEngine = startEngine();
+        TransactionDto used = balanceEngine.useBalance(1L, "1000000000", 3000L);
+        TransactionDto cancelled = balanceEngine.cancelBalance(used.getTransactionId(), "1000000000", 3000L);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance(used.getTransactionId(), "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELLED, exception.getErrorCode());
+        assertEquals(10000L, cancelled.getBalanceSnapshot());
+        assertEquals(0L, balanceEngine.useBalance(1L, "1000000000", 10000L).getBalanceSnapshot());
+        // DB에 반영하는 사용취소 거래에 원거래 번호를 전달
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BalanceEngineEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, timeout(2000).atLeastOnce()).saveEngineEvents(captor.capture());
+        assertTrue(captor.getAllValues().stream()
+                .flatMap(List::stream)
+                .anyMatch(event -> Long.valueOf(1001L).equals(event.getCancelledTransactionNo())));
+        // DB 반영 전 원거래는 DB에서 조회하지 않는다.
+        verify(transactionService, never()).queryTransaction(anyString());
+        verify(transactionService, never()).isCancelled(anyLong());
+    }
+
+    @Test
+    @DisplayName("DB에 반영된 취소가 있는 거래 - 엔진에 넘기지 않고 중복취소 거절")
+    void failCancelBalance_alreadyCancelledInDb() {
+        // given
+        TransactionDto used = TransactionDto.builder()
+                .accountNumber("1000000000")
+                .transactionType(USE)
+                .transactionResultType(S)
+                .amount(3000L)
+                .transactionId(Transaction.toTransactionId(1001L))
+                .transactedAt(LocalDateTime.now())
+                .build();
+        given(transactionService.queryTransaction(used.getTransactionId())).willReturn(used);
+        given(transactionService.isCancelled(1001L)).willReturn(true);
+        balanceEngine = startEngine();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance(used.getTransactionId(), "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELLED, exception.getErrorCode());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("DB 반영이 끝난 거래 - 엔진에서 지우고 사용 취소는 DB로 확인")
+    void failCancelBalance_alreadyCancelledAfterPersisted() throws InterruptedException {
+        // given
+        given(transactionIdGenerator.nextId()).willAnswer(invocation -> transactionNo.incrementAndGet());
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        balanceEngine = startEngine();
+        TransactionDto used = balanceEngine.useBalance(1L, "1000000000", 3000L);
+        awaitPersisted();
+        given(transactionService.queryTransaction(used.getTransactionId())).willReturn(used);
+        given(transactionService.isCancelled(1001L)).willReturn(true);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance(used.getTransactionId(), "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELLED, exception.getErrorCode());
+        Map<?, ?> unpersisted =
+                (Map<?, ?>) ReflectionTestUtils.getField(balanceEngine, "unpersistedTransactions");
+        assertTrue(unpersisted.isEmpty());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"USE, F", "CANCEL, S"})
+    @DisplayName("성공한 사용 거래가 아님(실패거래, 취소거래) - 엔진에 넘기지 않고 취소 거절")
+    void failCancelBalance_transactionNotCancellable(TransactionType transactionType,
+                                                      TransactionResultType transactionResultType) {
+        // given
+        TransactionDto original = TransactionDto.builder()
+                .accountNumber("1000000000")
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .amount(3000L)
+                .transactionId(Transaction.toTransactionId(1001L))
+                .transactedAt(LocalDateTime.now())
+                .build();
+        given(transactionService.queryTransaction(original.getTransactionId())).willReturn(original);
+        balanceEngine = startEngine();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.cancelBalance(original.getTransactionId(), "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_NOT_CANCELLABLE, exception.getErrorCode());
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("계좌 해지 - 메모리 잔액으로 검증하고 이후 잔액 사용 거절")
+    void successCloseAccount() {
+        // given
+        given(transactionIdGenerator.nextId()).willAnswer(invocation -> transactionNo.incrementAndGet());
+        // DB 잔액은 반영 전(10000)이지만 엔진 잔액은 0
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        balanceEngine = startEngine();
+        balanceEngine.useBalance(1L, "1000000000", 10000L);
+
+        // when
+        balanceEngine.closeAccount(1L, "1000000000");
+
+        // then
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.useBalance(1L, "1000000000", 0L));
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, exception.getErrorCode());
+        // 해지 취소(DB rollback)하면 다시 사용 가능
+        balanceEngine.reopenAccount(1L, "1000000000");
+        assertEquals(0L, balanceEngine.useBalance(1L, "1000000000", 0L).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("메모리 잔액 있음 - 계좌 해지 실패, 잔액 사용 가능")
+    void failCloseAccount_balanceNotEmpty() {
+        // given
+        given(transactionIdGenerator.nextId()).willAnswer(invocation -> transactionNo.incrementAndGet());
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        balanceEngine = startEngine();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> balanceEngine.closeAccount(1L, "1000000000"));
+
+        // then
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, exception.getErrorCode());
+        assertEquals(9000L, balanceEngine.useBalance(1L, "1000000000", 1000L).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("재시작 - DB 반영하지 못한 거래는 저널에서 복구해 다시 반영하고 잔액도 저널 기준")
+    void recoverFromJournal() throws InterruptedException {
+        // given
+        given(transactionIdGenerator.nextId()).willAnswer(invocation -> transactionNo.incrementAndGet());
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account(1L, 10000L, AccountStatus.IN_USE)));
+        willThrow(new IllegalStateException("DB down"))
+                .given(transactionService).saveEngineEvents(anyList());
+        balanceEngine = startEngine();
+        balanceEngine.useBalance(1L, "1000000000", 3000L);
+        balanceEngine.stop();
+        clearInvocations(transactionService);
+
+        // DB 잔액은 반영되지 않은 상태(10000)
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(Collections.singletonList(account(1L, 10000L, AccountStatus.IN_USE)));
+        doNothing().when(transactionService).saveEngineEvents(anyList());
+
+        // when
+        balanceEngine = startEngine();
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BalanceEngineEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, timeout(2000)).saveEngineEvents(captor.capture());
+        BalanceEngineEvent recovered = captor.getValue().get(0);
+        assertEquals(1001L, recovered.getTransactionNo());
+        assertEquals(7000L, recovered.getBalanceAfter());
+        // 저널의 잔액(7000)으로 이어서 처리하고 계좌를 다시 읽지 않는다.
+        assertEquals(0L, balanceEngine.useBalance(1L, "1000000000", 7000L).getBalanceSnapshot());
+        verify(accountRepository, times(1)).findByAccountNumber("1000000000");
+    }
+
+    // DB 반영 스레드가 저널 checkpoint 를 마지막 거래까지 옮길 때까지 대기
+    private void awaitPersisted() throws InterruptedException {
+        BalanceJournal journal = (BalanceJournal) ReflectionTestUtils.getField(balanceEngine, "journal");
+        long deadline = System.currentTimeMillis() + 2000L;
+        while (journal.getCheckpoint() < journal.getLastSeq()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10L);
+        }
+    }
+
+    private BalanceEngine startEngine() {
+        BalanceEngine engine = new BalanceEngine(accountRepository, transactionService,
+                transactionIdGenerator, transactionQueryCache);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "ringSize", 64);
+        ReflectionTestUtils.setField(engine, "journalPath",
+                tempDir.resolve("balance-engine.journal").toString());
+        ReflectionTestUtils.setField(engine, "journalSize", 1 << 16);
+        ReflectionTestUtils.setField(engine, "persistBatchSize", 100);
+        engine.start();
+        return engine;
+    }
+
+    private static Account account(Long userId, Long balance, AccountStatus status) {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(userId);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(status)
+                .balance(balance)
+                .build();
+        account.setId(12L);
+        return account;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceEngineEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceJournalTest {
+    private static final int JOURNAL_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("기록한 거래를 다시 열어서 순서대로 읽음")
+    void readAfterReopen() {
+        // given
+        Path path = tempDir.resolve("balance.journal");
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        try (BalanceJournal journal = BalanceJournal.open(path, JOURNAL_SIZE)) {
+            assertTrue(journal.readAll().isEmpty());
+            journal.append(event(1L, 7000L, now));
+            journal.append(BalanceEngineEvent.builder()
+                    .seq(2L)
+                    .transactionType(CANCEL)
+                    .transactionNo(102L)
+                    .accountNumber("1000000000")
+                    .amount(3000L)
+                    .balanceAfter(10000L)
+                    .transactedAt(now)
+                    .cancelledTransactionNo(101L)
+                    .build());
+            journal.force();
+        }
+
+        // when
+        List<BalanceEngineEvent> events;
+        long lastSeq;
+        try (BalanceJournal journal = BalanceJournal.open(path, JOURNAL_SIZE)) {
+            events = journal.readAll();
+            lastSeq = journal.getLastSeq();
+        }
+
+        // then
+        assertEquals(2, events.size());
+        assertEquals(2L, lastSeq);
+        assertEquals(USE, events.get(0).getTransactionType());
+        assertEquals(101L, events.get(0).getTransactionNo());
+        assertEquals("1000000000", events.get(0).getAccountNumber());
+        assertEquals(3000L, events.get(0).getAmount());
+        assertEquals(7000L, events.get(0).getBalanceAfter());
+        assertEquals(now, events.get(0).getTransactedAt());
+        assertNull(events.get(0).getCancelledTransactionNo());
+        assertEquals(CANCEL, events.get(1).getTransactionType());
+        assertEquals(10000L, events.get(1).getBalanceAfter());
+        assertEquals(101L, events.get(1).getCancelledTransactionNo());
+    }
+
+    @Test
+    @DisplayName("checkpoint는 다시 열어도 유지")
+    void keepCheckpoint() {
+        // given
+        Path path = tempDir.resolve("balance.journal");
+        try (BalanceJournal journal = BalanceJournal.open(path, JOURNAL_SIZE)) {
+            journal.append(event(1L, 7000L, LocalDateTime.now()));
+            journal.setCheckpoint(1L);
+        }
+
+        // when
+        // then
+        try (BalanceJournal journal = BalanceJournal.open(path, JOURNAL_SIZE)) {
+            assertEquals(1L, journal.getCheckpoint());
+            assertEquals(1, journal.readAll().size());
+        }
+    }
+
+    @Test
+    @DisplayName("reset 후에는 이전 거래를 읽지 않고 순번은 이어서 증가")
+    void resetJournal() {
+        // given
+        Path path = tempDir.resolve("balance.journal");
+        try (BalanceJournal journal = BalanceJournal.open(path, JOURNAL_SIZE)) {
+            journal.append(event(1L, 7000L, LocalDateTime.now()));
+            journal.append(event(2L, 4000L, LocalDateTime.now()));
+            journal.setCheckpoint(2L);
+
+            // when
+            journal.reset();
+            journal.append(event(3L, 1000L, LocalDateTime.now()));
+        }
+
+        // then
+        try (BalanceJournal journal = BalanceJournal.open(path, JOURNAL_SIZE)) {
+            List<BalanceEngineEvent> events = journal.readAll();
+            assertEquals(1, events.size());
+            assertEquals(3L, events.get(0).getSeq());
+            assertEquals(1000L, events.get(0).getBalanceAfter());
+        }
+    }
+
+    @Test
+    @DisplayName("DB 반영이 끝나지 않은 거래가 있으면 reset 불가")
+    void failReset_unpersisted() {
+        // given
+        Path path = tempDir.resolve("balance.journal");
+        try (BalanceJournal journal = BalanceJournal.open(path, JOURNAL_SIZE)) {
+            journal.append(event(1L, 7000L, LocalDateTime.now()));
+
+            // when
+            // then
+            assertThrows(IllegalStateException.class, journal::reset);
+        }
+    }
+
+    @Test
+    @DisplayName("저널이 가득 차면 기록 불가")
+    void failAppend_full() {
+        // given
+        Path path = tempDir.resolve("balance.journal");
+        try (BalanceJournal journal = BalanceJournal.open(path, 256)) {
+            long seq = 1L;
+            while (journal.hasRoom()) {
+                journal.append(event(seq++, 7000L, LocalDateTime.now()));
+            }
+
+            // when
+            // then
+            long nextSeq = seq;
+            assertThrows(IllegalStateException.class,
+                    () -> journal.append(event(nextSeq, 7000L, LocalDateTime.now())));
+        }
+    }
+
+    private static BalanceEngineEvent event(long seq, long balanceAfter, LocalDateTime transactedAt) {
+        return BalanceEngineEvent.builder()
+                .seq(seq)
+                .transactionType(USE)
+                .transactionNo(100L + seq)
+                .accountNumber("1000000000")
+                .amount(3000L)
+                .balanceAfter(balanceAfter)
+                .transactedAt(transactedAt)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.account.service;
+
+import com.example.account.aop.LockPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+// 드라이버별 예외(SQLState) 구분 확인
+// PostgreSQL 드라이버는 lock 대기시간 초과, 중복키 모두 SQLException(PSQLException) 하나로 던진다.
+@ExtendWith(MockitoExtension.class)
+class DatabaseLockProviderTest {
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private DatabaseLockProvider lockProvider;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        given(dataSource.getConnection()).willReturn(connection);
+        given(connection.prepareStatement(anyString())).willReturn(statement);
+        lockProvider = new DatabaseLockProvider(dataSource);
+    }
+
+    @Test
+    @DisplayName("lock 대기시간 초과(SQLState 55P03) - lock 실패, 커넥션 반환")
+    void failLock_lockNotAvailable() throws Exception {
+        // given
+        given(statement.executeQuery()).willThrow(new SQLException("lock timeout", "55P03"));
+
+        // when
+        boolean locked = lockProvider.tryLock("1000000000", LockPolicy.DEFAULT);
+
+        // then
+        assertFalse(locked);
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    @DisplayName("lock row 동시 생성(SQLState 23505) - 만들어진 row로 다시 lock")
+    void successLock_afterDuplicateKey() throws Exception {
+        // given
+        given(statement.executeQuery()).willReturn(resultSet);
+        given(resultSet.next()).willReturn(false, true);
+        given(statement.executeUpdate()).willThrow(new SQLException("duplicate key", "23505"));
+
+        // when
+        boolean locked = lockProvider.tryLock("1000000000", LockPolicy.DEFAULT);
+
+        // then
+        assertTrue(locked);
+        verify(connection, times(1)).rollback();
+        lockProvider.unlock("1000000000", LockPolicy.DEFAULT);
+        verify(connection, times(1)).commit();
+    }
+
+    @Test
+    @DisplayName("동시 생성 후 다시 조회해도 lock row 없음 - lock 실패(오류)")
+    void failLock_lockRowNotFoundAfterDuplicateKey() throws Exception {
+        // given
+        given(statement.executeQuery()).willReturn(resultSet);
+        given(resultSet.next()).willReturn(false, false);
+        given(statement.executeUpdate()).willThrow(new SQLException("duplicate key", "23505"));
+
+        // when
+        // then
+        assertThrows(IllegalStateException.class,
+                () -> lockProvider.tryLock("1000000000", LockPolicy.DEFAULT));
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    @DisplayName("분류되지 않은 DB 오류 - lock 저장소 오류로 전달")
+    void failLock_databaseError() throws Exception {
+        // given
+        given(statement.executeQuery()).willThrow(new SQLException("connection reset", "08006"));
+
+        // when
+        // then
+        assertThrows(IllegalStateException.class,
+                () -> lockProvider.tryLock("1000000000", LockPolicy.DEFAULT));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class DebitGroupCommitServiceTest {
+    @Mock
+    private TransactionService transactionService;
+
+    private DebitGroupCommitService debitGroupCommitService;
+
+    @BeforeEach
+    void setUp() {
+        debitGroupCommitService = new DebitGroupCommitService(transactionService);
+        ReflectionTestUtils.setField(debitGroupCommitService, "enabled", true);
+        // 테스트에서는 동시 요청이 확실히 한 그룹으로 모이도록 window를 길게 둔다.
+        ReflectionTestUtils.setField(debitGroupCommitService, "windowMicros", 200_000L);
+        ReflectionTestUtils.setField(debitGroupCommitService, "maxSize", 500);
+        ReflectionTestUtils.setField(debitGroupCommitService, "responseTimeoutMillis", 1000L);
+        debitGroupCommitService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        debitGroupCommitService.stop();
+    }
+
+    @Test
+    @DisplayName("동시에 들어온 요청을 모아 한번에 처리하고 각 요청에 결과 전달")
+    void groupConcurrentRequests() throws Exception {
+        // given
+        List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+        given(transactionService.useBalances(anyList()))
+                .willAnswer(invocation -> {
+                    List<UseBalance.Request> requests = invocation.getArgument(0);
+                    groupSizes.add(requests.size());
+                    return requests.stream()
+                            .map(request -> TransactionDto.builder()
+                                    .accountNumber(request.getAccountNumber())
+                                    .amount(request.getAmount())
+                                    .build())
+                            .collect(Collectors.toList());
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        // when
+        List<Future<TransactionDto>> futures = new ArrayList<>();
+        for (long amount = 1; amount <= 5; amount++) {
+            long requestAmount = amount * 1000L;
+            futures.add(executor.submit(() ->
+                    debitGroupCommitService.useBalance(1L, "1000000000", requestAmount)));
+        }
+
+        // then
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals((i + 1) * 1000L, futures.get(i).get(5, TimeUnit.SECONDS).getAmount());
+        }
+        // 5건이 1번(또는 window 경계에 걸린 경우 조금 더)의 트랜잭션으로 처리
+        assertEquals(5, groupSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(groupSizes.size() < 5);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("차감하지 못한 요청 - 실패 사유로 실패")
+    void notDebited_throwFailure() {
+        // given
+        given(transactionService.useBalances(anyList()))
+                .willAnswer(invocation -> {
+                    List<TransactionDto> results = new ArrayList<>();
+                    results.add(null);
+                    return results;
+                });
+        given(transactionService.useBalanceFailure(1L, "1000000000", 1000L))
+                .willReturn(new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> debitGroupCommitService.useBalance(1L, "1000000000", 1000L));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("commit 결과를 응답시간 안에 받지 못함 - 무한정 기다리지 않고 처리결과 미확인으로 응답")
+    void commitTimeout_fail() throws InterruptedException {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        given(transactionService.useBalances(anyList()))
+                .willAnswer(invocation -> {
+                    release.await();
+                    List<TransactionDto> results = new ArrayList<>();
+                    results.add(null);
+                    return results;
+                });
+
+        // when
+        AccountException exception;
+        try {
+            exception = assertThrows(AccountException.class,
+                    () -> debitGroupCommitService.useBalance(1L, "1000000000", 1000L));
+        } finally {
+            release.countDown();
+        }
+
+        // then
+        // 이후 commit 될 수 있으므로 실패(F)가 아니라 미확인
+        assertEquals(ErrorCode.TRANSACTION_RESULT_UNKNOWN, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("커밋 스레드 종료 후 요청 - 대기하지 않고 실패")
+    void afterStop_failWithoutWaiting() throws InterruptedException {
+        // given
+        debitGroupCommitService.stop();
+
+        // when
+        // then
+        assertTimeoutPreemptively(Duration.ofMillis(500), () ->
+                assertThrows(IllegalStateException.class,
+                        () -> debitGroupCommitService.useBalance(1L, "1000000000", 1000L)));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.account.service;
+
+import com.example.account.dto.FailedTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionJournalTest {
+    @Mock
+    private TransactionService transactionService;
+
+    private FailedTransactionJournal failedTransactionJournal;
+
+    // 저장 스레드가 저장한 실패거래 (저장 호출 단위)
+    private final List<List<FailedTransaction>> savedBatches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        failedTransactionJournal = new FailedTransactionJournal(transactionService);
+        ReflectionTestUtils.setField(failedTransactionJournal, "capacity", 2);
+        ReflectionTestUtils.setField(failedTransactionJournal, "batchSize", 500);
+    }
+
+    @Test
+    @DisplayName("기록한 실패거래는 종료 시 모두 저장")
+    void recordAndDrainOnStop() throws InterruptedException {
+        // given
+        willAnswer(invocation -> {
+            savedBatches.add(new ArrayList<>(invocation.getArgument(0)));
+            return null;
+        }).given(transactionService).saveFailedTransactions(anyList());
+        failedTransactionJournal.start();
+
+        // when
+        // 실패 시점에 조회한 계좌 id, 잔액이 있으면 같이 기록
+        failedTransactionJournal.record(USE, "1000000000", 1000L, 1L, 9000L);
+        failedTransactionJournal.record(CANCEL, "1000000000", 2000L, null, null);
+        failedTransactionJournal.stop();
+
+        // then
+        List<FailedTransaction> saved = new ArrayList<>();
+        savedBatches.forEach(saved::addAll);
+        assertEquals(2, saved.size());
+        assertEquals(USE, saved.get(0).getTransactionType());
+        assertEquals(1L, saved.get(0).getAccountId());
+        assertEquals(9000L, saved.get(0).getBalanceSnapshot());
+        assertEquals(CANCEL, saved.get(1).getTransactionType());
+        assertNull(saved.get(1).getAccountId());
+        assertEquals(0, failedTransactionJournal.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("저널이 가득 찬 경우 - 요청 스레드에서 직접 저장")
+    void journalFull_saveDirectly() throws InterruptedException {
+        // given
+        // 저장 스레드가 첫 저장에서 멈춰있는 동안 저널(capacity 2)을 가득 채운다.
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        String requestThread = Thread.currentThread().getName();
+        List<String> savedBy = new CopyOnWriteArrayList<>();
+        willAnswer(invocation -> {
+            savedBy.add(Thread.currentThread().getName());
+            if (!Thread.currentThread().getName().equals(requestThread)) {
+                saving.countDown();
+                release.await();
+            }
+            return null;
+        }).given(transactionService).saveFailedTransactions(anyList());
+        failedTransactionJournal.start();
+        failedTransactionJournal.record(USE, "1000000000", 1000L, null, null);
+        assertTrue(saving.await(1, TimeUnit.SECONDS));
+        failedTransactionJournal.record(USE, "1000000000", 1000L, null, null);
+        failedTransactionJournal.record(USE, "1000000000", 1000L, null, null);
+
+        // when
+        failedTransactionJournal.record(USE, "1000000000", 1000L, null, null);
+
+        // then
+        assertTrue(savedBy.contains(requestThread));
+        release.countDown();
+        failedTransactionJournal.stop();
+    }
+
+    @Test
+    @DisplayName("한번에 저장하다 실패 - 한 건씩 다시 저장해 실패거래를 잃지 않음")
+    void batchSaveFailed_saveOneByOne() throws InterruptedException {
+        // given
+        // 첫 저장에서 멈춰있는 동안 기록한 실패거래 2건을 한번에 저장하다 실패시킨다.
+        ReflectionTestUtils.setField(failedTransactionJournal, "capacity", 10);
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            List<FailedTransaction> batch = invocation.getArgument(0);
+            if (saving.getCount() > 0) {
+                saving.countDown();
+                release.await();
+            } else if (batch.size() > 1) {
+                throw new IllegalStateException("batch insert failed");
+            }
+            savedBatches.add(new ArrayList<>(batch));
+            return null;
+        }).given(transactionService).saveFailedTransactions(anyList());
+        failedTransactionJournal.start();
+        failedTransactionJournal.record(USE, "1000000000", 1000L, null, null);
+        assertTrue(saving.await(1, TimeUnit.SECONDS));
+        failedTransactionJournal.record(USE, "1000000001", 2000L, null, null);
+        failedTransactionJournal.record(CANCEL, "1000000002", 3000L, null, null);
+
+        // when
+        release.countDown();
+        failedTransactionJournal.stop();
+
+        // then
+        List<FailedTransaction> saved = new ArrayList<>();
+        savedBatches.forEach(saved::addAll);
+        assertEquals(3, saved.size());
+        assertEquals("1000000001", saved.get(1).getAccountNumber());
+        assertEquals("1000000002", saved.get(2).getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("저장 스레드 종료 후 기록 - 요청 스레드에서 직접 저장")
+    void recordAfterStop_saveDirectly() throws InterruptedException {
+        // given
+        willAnswer(invocation -> {
+            savedBatches.add(new ArrayList<>(invocation.getArgument(0)));
+            return null;
+        }).given(transactionService).saveFailedTransactions(anyList());
+        failedTransactionJournal.start();
+        failedTransactionJournal.stop();
+
+        // when
+        failedTransactionJournal.record(USE, "1000000000", 1000L, null, null);
+
+        // then
+        assertEquals(1, savedBatches.size());
+        assertEquals(0, failedTransactionJournal.getPendingCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.account.service;
+
+import com.example.account.config.LocalRedisConfig;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.TransactionDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 내장 Redis를 재시작(데이터 유실)해도 fencing token이 현재시각 이상으로 발급되어 (LockProvider.fencingTokenFloor)
+// 이미 거래한 계좌의 잔액 사용이 실패하지 않는지 확인
+@SpringBootTest
+class FencingTokenRedisRestartTest {
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LocalRedisConfig localRedisConfig;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Test
+    @DisplayName("Redis 재시작 후 잔액 사용 성공")
+    void useBalance_afterRedisRestart() throws InterruptedException {
+        // given
+        AccountDto account = accountService.createAccount(1L, 10000L);
+        transactionService.useBalance(1L, account.getAccountNumber(), 1000L);
+        transactionService.useBalance(1L, account.getAccountNumber(), 1000L);
+
+        // when
+        localRedisConfig.stopRedis();
+        localRedisConfig.startRedis();
+        awaitRedisReconnected();
+        TransactionDto transaction =
+                transactionService.useBalance(1L, account.getAccountNumber(), 1000L);
+
+        // then
+        assertEquals(7000L, transaction.getBalanceSnapshot());
+    }
+
+    // Redisson이 재시작된 Redis에 다시 연결될 때까지 대기 (재시작한 Redis는 비어있음)
+    private void awaitRedisReconnected() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15000L;
+        while (true) {
+            try {
+                redissonClient.getKeys().count();
+                return;
+            } catch (RuntimeException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(100L);
+            }
+        }
+    }
+}
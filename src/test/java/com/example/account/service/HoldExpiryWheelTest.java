@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.dto.HoldExpiry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HoldExpiryWheelTest {
+    private static final long TICK_MILLIS = 10L;
+
+    private final BlockingQueue<HoldExpiry> expired = new LinkedBlockingQueue<>();
+
+    private HoldExpiryWheel wheel;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("만료시각이 지난 홀드 - 다음 tick에 바로 넘김")
+    void expireOverdue() throws InterruptedException {
+        // given
+        wheel = new HoldExpiryWheel(TICK_MILLIS, 8);
+        wheel.start(expired::offer);
+
+        // when
+        wheel.schedule(expiry(1L, LocalDateTime.now().minusMinutes(1)));
+
+        // then
+        HoldExpiry holdExpiry = expired.poll(1, TimeUnit.SECONDS);
+        assertNotNull(holdExpiry);
+        assertEquals(1L, holdExpiry.getHoldNo());
+        assertEquals(0, wheel.getScheduledCount());
+    }
+
+    @Test
+    @DisplayName("만료시각 전에는 넘기지 않고, wheel 한 바퀴보다 먼 만료도 만료시각에 넘김")
+    void expireAtDeadline() throws InterruptedException {
+        // given
+        // wheel 한 바퀴 = 8칸 * 10ms = 80ms
+        wheel = new HoldExpiryWheel(TICK_MILLIS, 8);
+        List<Long> order = new CopyOnWriteArrayList<>();
+        wheel.start(holdExpiry -> {
+            order.add(holdExpiry.getHoldNo());
+            expired.offer(holdExpiry);
+        });
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime far = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(300));
+        LocalDateTime near = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(50));
+
+        // when
+        wheel.schedule(expiry(2L, far));
+        wheel.schedule(expiry(1L, near));
+
+        // then
+        HoldExpiry first = expired.poll(1, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertEquals(1L, first.getHoldNo());
+        assertFalse(LocalDateTime.now().isBefore(near));
+
+        HoldExpiry second = expired.poll(1, TimeUnit.SECONDS);
+        assertNotNull(second);
+        assertEquals(2L, second.getHoldNo());
+        assertFalse(LocalDateTime.now().isBefore(far));
+        assertEquals(2, order.size());
+    }
+
+    @Test
+    @DisplayName("시작 전에 등록한 만료 - 시작 후 처리")
+    void scheduleBeforeStart() throws InterruptedException {
+        // given
+        wheel = new HoldExpiryWheel(TICK_MILLIS, 8);
+        wheel.schedule(expiry(1L, LocalDateTime.now()));
+        assertEquals(1, wheel.getScheduledCount());
+
+        // when
+        wheel.start(expired::offer);
+
+        // then
+        assertNotNull(expired.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("wheel 크기가 2의 제곱수가 아님 - 생성 실패")
+    void failInvalidWheelSize() {
+        // given
+        // when
+        // then
+        assertThrows(IllegalStateException.class, () -> new HoldExpiryWheel(TICK_MILLIS, 10));
+    }
+
+    private static HoldExpiry expiry(Long holdNo, LocalDateTime expiresAt) {
+        return new HoldExpiry(holdNo, "1000000000", expiresAt);
+    }
+}
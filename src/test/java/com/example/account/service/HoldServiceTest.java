@@ -0,0 +1,327 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.Hold;
+import com.example.account.domain.Transaction;
+import com.example.account.dto.HoldDto;
+import com.example.account.dto.HoldExpiry;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.HoldRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static com.example.account.domain.AccountStatus.IN_USE;
+import static com.example.account.domain.HoldStatus.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+    private static final long HOLD_NO = 4096L;
+    private static final String HOLD_ID = Transaction.toTransactionId(HOLD_NO);
+
+    @Mock
+    private HoldRepository holdRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private HoldExpiryWheel holdExpiryWheel;
+
+    @InjectMocks
+    private HoldService holdService;
+
+    @Test
+    @DisplayName("홀드 - 사용가능 잔액에서 홀드금액만큼 잡아두고 만료 등록")
+    void successHold() {
+        // given
+        Account account = account(10000L, 0L);
+        given(accountUserRepository.findById(1L))
+                .willReturn(Optional.of(account.getAccountUser()));
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+        given(transactionIdGenerator.nextId()).willReturn(HOLD_NO);
+        given(holdRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+        ReflectionTestUtils.setField(holdService, "expireSeconds", 600L);
+
+        ArgumentCaptor<HoldExpiry> captor = ArgumentCaptor.forClass(HoldExpiry.class);
+
+        // when
+        HoldDto holdDto = holdService.hold(1L, "1000000000", 3000L);
+
+        // then
+        assertEquals(HOLD_ID, holdDto.getHoldId());
+        assertEquals(HELD, holdDto.getHoldStatus());
+        assertEquals(3000L, holdDto.getAmount());
+        assertEquals(holdDto.getHeldAt().plusSeconds(600L), holdDto.getExpiresAt());
+        // 잔액은 그대로, 사용가능 잔액만 줄어든다.
+        assertEquals(10000L, account.getBalance());
+        assertEquals(7000L, account.getAvailableBalance());
+        verify(holdExpiryWheel).scheduleAfterCommit(captor.capture());
+        assertEquals(HOLD_NO, captor.getValue().getHoldNo());
+        assertEquals(holdDto.getExpiresAt(), captor.getValue().getExpiresAt());
+    }
+
+    @Test
+    @DisplayName("홀드금액>사용가능 잔액 - 홀드 실패")
+    void holdFailed_AmountExceedBalance() {
+        // given
+        Account account = account(10000L, 8000L);
+        given(accountUserRepository.findById(1L))
+                .willReturn(Optional.of(account.getAccountUser()));
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(account));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> holdService.hold(1L, "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(8000L, account.getHeldAmount());
+        verify(holdRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("원장 모드 - 홀드 사용불가")
+    void holdFailed_ledger() {
+        // given
+        ReflectionTestUtils.setField(holdService, "ledger", true);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> holdService.hold(1L, "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("부분매입 - 매입금액만 차감하고 남은 홀드금액은 해제")
+    void successCaptureHold_partial() {
+        // given
+        Account account = account(10000L, 3000L);
+        Hold hold = hold(account, 3000L, LocalDateTime.now().plusMinutes(10));
+        given(holdRepository.findByHoldNo(HOLD_NO)).willReturn(Optional.of(hold));
+        given(transactionService.saveCaptureTransaction(account, 2000L))
+                .willReturn(TransactionDto.builder()
+                        .transactionId("transactionId")
+                        .build());
+
+        // when
+        HoldDto holdDto = holdService.captureHold(HOLD_ID, "1000000000", 2000L);
+
+        // then
+        assertEquals(CAPTURED, holdDto.getHoldStatus());
+        assertEquals(2000L, holdDto.getCapturedAmount());
+        assertEquals("transactionId", holdDto.getTransactionId());
+        assertEquals(8000L, account.getBalance());
+        assertEquals(0L, account.getHeldAmount());
+        verify(transactionService).lockFallbackRow("1000000000");
+        verify(transactionService).checkFencingToken(account);
+    }
+
+    @Test
+    @DisplayName("매입금액>홀드금액 - 매입 실패")
+    void captureHoldFailed_CaptureExceedHold() {
+        // given
+        Account account = account(10000L, 3000L);
+        given(holdRepository.findByHoldNo(HOLD_NO))
+                .willReturn(Optional.of(hold(account, 3000L, LocalDateTime.now().plusMinutes(10))));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> holdService.captureHold(HOLD_ID, "1000000000", 3001L));
+
+        // then
+        assertEquals(ErrorCode.CAPTURE_EXCEED_HOLD, exception.getErrorCode());
+        assertEquals(10000L, account.getBalance());
+        verify(transactionService, never()).saveCaptureTransaction(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("만료시각이 지난 홀드 - 매입 실패")
+    void captureHoldFailed_Expired() {
+        // given
+        Account account = account(10000L, 3000L);
+        given(holdRepository.findByHoldNo(HOLD_NO))
+                .willReturn(Optional.of(hold(account, 3000L, LocalDateTime.now().minusSeconds(1))));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> holdService.captureHold(HOLD_ID, "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.HOLD_NOT_ACTIVE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("홀드와 계좌가 다름 - 매입 실패")
+    void captureHoldFailed_HoldAccountUnMatch() {
+        // given
+        Account account = account(10000L, 3000L);
+        given(holdRepository.findByHoldNo(HOLD_NO))
+                .willReturn(Optional.of(hold(account, 3000L, LocalDateTime.now().plusMinutes(10))));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> holdService.captureHold(HOLD_ID, "1000000012", 3000L));
+
+        // then
+        assertEquals(ErrorCode.HOLD_ACCOUNT_UN_MATCH, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("홀드 아이디 형식 오류 - 조회하지 않고 매입 실패")
+    void captureHoldFailed_InvalidHoldId() {
+        // given
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> holdService.captureHold("not-a-hold-id", "1000000000", 3000L));
+
+        // then
+        assertEquals(ErrorCode.HOLD_NOT_FOUND, exception.getErrorCode());
+        verify(holdRepository, never()).findByHoldNo(anyLong());
+    }
+
+    @Test
+    @DisplayName("해제 - 홀드금액 전체 해제, 잔액은 그대로")
+    void successReleaseHold() {
+        // given
+        Account account = account(10000L, 3000L);
+        given(holdRepository.findByHoldNo(HOLD_NO))
+                .willReturn(Optional.of(hold(account, 3000L, LocalDateTime.now().plusMinutes(10))));
+
+        // when
+        HoldDto holdDto = holdService.releaseHold(HOLD_ID, "1000000000");
+
+        // then
+        assertEquals(RELEASED, holdDto.getHoldStatus());
+        assertEquals(10000L, account.getBalance());
+        assertEquals(0L, account.getHeldAmount());
+    }
+
+    @Test
+    @DisplayName("이미 매입한 홀드 - 해제 실패")
+    void releaseHoldFailed_HoldNotActive() {
+        // given
+        Account account = account(10000L, 0L);
+        Hold hold = hold(account, 3000L, LocalDateTime.now().plusMinutes(10));
+        hold.close(CAPTURED, 3000L, LocalDateTime.now());
+        given(holdRepository.findByHoldNo(HOLD_NO)).willReturn(Optional.of(hold));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> holdService.releaseHold(HOLD_ID, "1000000000"));
+
+        // then
+        assertEquals(ErrorCode.HOLD_NOT_ACTIVE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("만료 - 만료시각이 지난 홀드 자동해제")
+    void successExpireHold() {
+        // given
+        Account account = account(10000L, 3000L);
+        Hold hold = hold(account, 3000L, LocalDateTime.now().minusSeconds(1));
+        given(holdRepository.findByHoldNo(HOLD_NO)).willReturn(Optional.of(hold));
+
+        // when
+        boolean expired = holdService.expireHold(HOLD_NO, "1000000000");
+
+        // then
+        assertTrue(expired);
+        assertEquals(EXPIRED, hold.getHoldStatus());
+        assertEquals(0L, account.getHeldAmount());
+    }
+
+    @Test
+    @DisplayName("만료 - 이미 해제된 홀드는 그대로")
+    void expireHold_alreadyReleased() {
+        // given
+        Account account = account(10000L, 0L);
+        Hold hold = hold(account, 3000L, LocalDateTime.now().minusSeconds(1));
+        hold.close(RELEASED, 0L, LocalDateTime.now());
+        given(holdRepository.findByHoldNo(HOLD_NO)).willReturn(Optional.of(hold));
+
+        // when
+        boolean expired = holdService.expireHold(HOLD_NO, "1000000000");
+
+        // then
+        assertFalse(expired);
+        assertEquals(RELEASED, hold.getHoldStatus());
+        assertEquals(0L, account.getHeldAmount());
+    }
+
+    @Test
+    @DisplayName("만료 - 아직 만료시각 전이면 다시 등록")
+    void expireHold_notYetExpired() {
+        // given
+        Account account = account(10000L, 3000L);
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(10);
+        given(holdRepository.findByHoldNo(HOLD_NO))
+                .willReturn(Optional.of(hold(account, 3000L, expiresAt)));
+
+        ArgumentCaptor<HoldExpiry> captor = ArgumentCaptor.forClass(HoldExpiry.class);
+
+        // when
+        boolean expired = holdService.expireHold(HOLD_NO, "1000000000");
+
+        // then
+        assertFalse(expired);
+        assertEquals(3000L, account.getHeldAmount());
+        verify(holdExpiryWheel).scheduleAfterCommit(captor.capture());
+        assertEquals(expiresAt, captor.getValue().getExpiresAt());
+    }
+
+    private static Account account(Long balance, long heldAmount) {
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        return Account.builder()
+                .accountUser(user)
+                .accountNumber("1000000000")
+                .accountStatus(IN_USE)
+                .balance(balance)
+                .heldAmount(heldAmount)
+                .build();
+    }
+
+    private static Hold hold(Account account, Long amount, LocalDateTime expiresAt) {
+        return Hold.builder()
+                .account(account)
+                .holdNo(HOLD_NO)
+                .amount(amount)
+                .holdStatus(HELD)
+                .heldAt(expiresAt.minusMinutes(30))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.account.service;
+
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RBucket<String> bucket;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redissonClient.<String>getBucket(anyString(), eq(StringCodec.INSTANCE)))
+                .thenReturn(bucket);
+        idempotencyService = new IdempotencyService(redissonClient, objectMapper, 100, 60L, 5L);
+    }
+
+    @Test
+    @DisplayName("멱등키 없음 - 저장하지 않고 처리")
+    void executeWithoutKey() {
+        // given
+        // when
+        UseBalance.Response response = idempotencyService.execute(
+                "use", null, "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        assertEquals("transactionId", response.getTransactionId());
+        assertEquals(1, calls.get());
+        verifyNoInteractions(redissonClient);
+    }
+
+    @Test
+    @DisplayName("같은 멱등키로 다시 들어온 요청 - 처리하지 않고 처음 응답 반환")
+    void replaySameKey() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(true);
+        UseBalance.Response first = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // when
+        UseBalance.Response replayed = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        assertEquals(1, calls.get());
+        assertEquals(first.getTransactionId(), replayed.getTransactionId());
+        assertEquals(first.getTransactedAt(), replayed.getTransactedAt());
+        // 처리 결과는 Redis에도 저장 (다른 서버로 재시도가 들어오는 경우)
+        verify(bucket).set(contains("\"completed\":true"), eq(60L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("다른 서버에서 처리한 요청 - Redis에 저장된 응답 반환")
+    void replayFromRedis() throws Exception {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(false);
+        given(bucket.get()).willReturn(objectMapper.writeValueAsString(
+                new IdempotencyService.IdempotencyRecord("1:1000000000:1000", true,
+                        objectMapper.writeValueAsString(UseBalance.Response.builder()
+                                .accountNumber("1000000000")
+                                .transactionResult(S)
+                                .transactionId("storedTransactionId")
+                                .amount(1000L)
+                                .build()),
+                        null)));
+
+        // when
+        UseBalance.Response response = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        assertEquals(0, calls.get());
+        assertEquals("storedTransactionId", response.getTransactionId());
+    }
+
+    @Test
+    @DisplayName("같은 멱등키를 다른 요청에 사용 - 실패")
+    void failReuseKey() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(true);
+        idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute("use", "key-1", "1:1000000000:2000",
+                        UseBalance.Response.class, this::useBalance));
+
+        // then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("처리중인 멱등키로 다시 들어온 요청 - 실패")
+    void failKeyInProgress() throws Exception {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(false);
+        given(bucket.get()).willReturn(objectMapper.writeValueAsString(
+                new IdempotencyService.IdempotencyRecord("1:1000000000:1000", false, null, null)));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute("use", "key-1", "1:1000000000:1000",
+                        UseBalance.Response.class, this::useBalance));
+
+        // then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS, exception.getErrorCode());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    @DisplayName("실패한 요청을 다시 보냄 - 처리하지 않고 같은 실패 반환")
+    void replayFailure() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(true);
+        assertThrows(AccountException.class, () -> idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class,
+                () -> fail(ErrorCode.AMOUNT_EXCEED_BALANCE)));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute("use", "key-1", "1:1000000000:1000",
+                        UseBalance.Response.class, this::useBalance));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Lock 획득 실패 - 저장하지 않아 다시 보내면 처리")
+    void retryAfterLockFailure() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(true);
+        assertThrows(AccountException.class, () -> idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class,
+                () -> fail(ErrorCode.ACCOUNT_TRANSACTION_LOCK)));
+
+        // when
+        UseBalance.Response response = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        assertEquals("transactionId", response.getTransactionId());
+        assertEquals(2, calls.get());
+        verify(bucket).delete();
+    }
+
+    @Test
+    @DisplayName("예상하지 못한 오류 - 출금이 반영됐을 수 있어 키를 지우지 않고 결과 확인 필요로 응답")
+    void unknownResultAfterUnexpectedError() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(true);
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class,
+                () -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("commit failed");
+                }));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute("use", "key-1", "1:1000000000:1000",
+                        UseBalance.Response.class, this::useBalance));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_RESULT_UNKNOWN, exception.getErrorCode());
+        assertEquals(1, calls.get());
+        verify(bucket, never()).delete();
+        verify(bucket).set(contains("TRANSACTION_RESULT_UNKNOWN"), eq(60L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("응답 타임아웃 - 결과 확인 필요를 저장하고 다시 처리하지 않음")
+    void unknownResultAfterTimeout() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(true);
+        assertThrows(AccountException.class, () -> idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class,
+                () -> fail(ErrorCode.TRANSACTION_RESULT_UNKNOWN)));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> idempotencyService.execute("use", "key-1", "1:1000000000:1000",
+                        UseBalance.Response.class, this::useBalance));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_RESULT_UNKNOWN, exception.getErrorCode());
+        assertEquals(1, calls.get());
+        verify(bucket, never()).delete();
+    }
+
+    @Test
+    @DisplayName("확인하는 사이 Redis 키 만료 - 덮어쓰지 않고 다시 처리중 표시")
+    void beginAfterExpiredWhileChecking() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(false, true);
+        given(bucket.get()).willReturn(null);
+
+        // when
+        UseBalance.Response response = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        assertEquals("transactionId", response.getTransactionId());
+        assertEquals(1, calls.get());
+        verify(bucket, times(2)).trySet(contains("\"completed\":false"), eq(5L), eq(TimeUnit.SECONDS));
+        verify(bucket, never()).set(contains("\"completed\":false"), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("노드 내부 저장 결과 보관시간 만료 - 없는 키로 보고 다시 처리")
+    void localRecordExpired() throws Exception {
+        // given
+        idempotencyService = new IdempotencyService(redissonClient, objectMapper, 100, 1L, 1L);
+        given(bucket.trySet(anyString(), eq(1L), eq(TimeUnit.SECONDS))).willReturn(true);
+        idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+        Thread.sleep(1100L);
+
+        // when
+        idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        assertEquals(2, calls.get());
+        verify(bucket, times(2)).trySet(anyString(), eq(1L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("처리결과 Redis 저장 실패 - 처리중 표시는 짧은 시간 후 만료, 이 서버는 저장된 응답 반환")
+    void completeFailedOnRedis() {
+        // given
+        given(bucket.trySet(anyString(), eq(5L), eq(TimeUnit.SECONDS))).willReturn(true);
+        doThrow(new RedisException("down")).when(bucket).set(anyString(), anyLong(), any());
+
+        // when
+        UseBalance.Response first = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+        UseBalance.Response replayed = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        // 처리중 표시는 결과 보관시간(60초)이 아니라 처리중 유지시간(5초)으로만 남는다.
+        verify(bucket).trySet(contains("\"completed\":false"), eq(5L), eq(TimeUnit.SECONDS));
+        verify(bucket, never()).trySet(anyString(), eq(60L), any());
+        verify(bucket).set(contains("\"completed\":true"), eq(60L), eq(TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(first.getTransactionId(), replayed.getTransactionId());
+    }
+
+    @Test
+    @DisplayName("처리중 유지시간이 결과 보관시간보다 김 - 생성 실패")
+    void failInvalidProcessingTtl() {
+        // given
+        // when
+        // then
+        assertThrows(IllegalStateException.class,
+                () -> new IdempotencyService(redissonClient, objectMapper, 100, 60L, 120L));
+    }
+
+    @Test
+    @DisplayName("Redis 장애 - 노드 내부 저장소로 처리")
+    void executeWhenRedisUnavailable() {
+        // given
+        given(bucket.trySet(anyString(), anyLong(), any())).willThrow(new RedisException("down"));
+        doThrow(new RedisException("down")).when(bucket).set(anyString(), anyLong(), any());
+
+        // when
+        UseBalance.Response first = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+        UseBalance.Response replayed = idempotencyService.execute(
+                "use", "key-1", "1:1000000000:1000", UseBalance.Response.class, this::useBalance);
+
+        // then
+        assertEquals(1, calls.get());
+        assertEquals(first.getTransactionId(), replayed.getTransactionId());
+    }
+
+    private UseBalance.Response useBalance() {
+        calls.incrementAndGet();
+        return UseBalance.Response.builder()
+                .accountNumber("1000000000")
+                .transactionResult(S)
+                .transactionId("transactionId")
+                .amount(1000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private UseBalance.Response fail(ErrorCode errorCode) {
+        calls.incrementAndGet();
+        throw new AccountException(errorCode);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceSnapshot;
+import com.example.account.domain.LedgerEntry;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.BalanceSnapshotRepository;
+import com.example.account.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerReplayServiceTest {
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @InjectMocks
+    private LedgerReplayService ledgerReplayService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledgerReplayService, "replayThreads", 2);
+    }
+
+    @Test
+    @DisplayName("전체 원장 재생 - 계좌별 병렬, 원장을 나눠서 끝까지 조회")
+    void replay_fromStart() {
+        // given
+        given(accountRepository.findById(1L)).willReturn(Optional.of(account(1L, 10000L)));
+        given(accountRepository.findById(2L)).willReturn(Optional.of(account(2L, 3000L)));
+        given(accountRepository.findById(3L)).willReturn(Optional.empty());
+
+        // 1번 계좌 : 1000건(-1) + 1건(+5)
+        List<LedgerEntry> firstPage = new ArrayList<>();
+        for (long seq = 1; seq <= LedgerReplayService.REPLAY_PAGE_SIZE; seq++) {
+            firstPage.add(entry(1L, seq, -1L));
+        }
+        given(ledgerEntryRepository.findByAccountIdAndSeqGreaterThanOrderBySeq(eq(1L), eq(0L), any()))
+                .willReturn(firstPage);
+        given(ledgerEntryRepository.findByAccountIdAndSeqGreaterThanOrderBySeq(
+                eq(1L), eq((long) LedgerReplayService.REPLAY_PAGE_SIZE), any()))
+                .willReturn(Collections.singletonList(
+                        entry(1L, LedgerReplayService.REPLAY_PAGE_SIZE + 1L, 5L)));
+        // 2번 계좌 : 원장 없음
+        given(ledgerEntryRepository.findByAccountIdAndSeqGreaterThanOrderBySeq(eq(2L), eq(0L), any()))
+                .willReturn(Collections.emptyList());
+
+        // when
+        Map<Long, Long> balances = ledgerReplayService.replay(Arrays.asList(1L, 2L, 3L), false);
+
+        // then
+        assertEquals(2, balances.size());
+        assertEquals(10000L - LedgerReplayService.REPLAY_PAGE_SIZE + 5L, balances.get(1L));
+        assertEquals(3000L, balances.get(2L));
+        assertFalse(balances.containsKey(3L));
+    }
+
+    @Test
+    @DisplayName("snapshot부터 재생 - snapshot 이후 원장만 조회")
+    void replay_fromSnapshot() {
+        // given
+        given(accountRepository.findById(1L)).willReturn(Optional.of(account(1L, 10000L)));
+        given(balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(1L))
+                .willReturn(Optional.of(BalanceSnapshot.builder()
+                        .accountId(1L).seq(100L).balance(4000L).build()));
+        given(ledgerEntryRepository.findByAccountIdAndSeqGreaterThanOrderBySeq(eq(1L), eq(100L), any()))
+                .willReturn(Arrays.asList(entry(1L, 101L, -1000L), entry(1L, 102L, 500L)));
+
+        // when
+        Map<Long, Long> balances = ledgerReplayService.replay(Collections.singletonList(1L), true);
+
+        // then
+        assertEquals(3500L, balances.get(1L));
+    }
+
+    private static Account account(Long id, Long balance) {
+        Account account = Account.builder()
+                .accountNumber("100000000" + id)
+                .balance(balance)
+                .build();
+        account.setId(id);
+        return account;
+    }
+
+    private static LedgerEntry entry(Long accountId, long seq, long amount) {
+        return LedgerEntry.builder()
+                .accountId(accountId)
+                .seq(seq)
+                .transactionType(USE)
+                .amount(amount)
+                .build();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceSnapshot;
+import com.example.account.domain.LedgerEntry;
+import com.example.account.dto.LedgerTail;
+import com.example.account.repository.BalanceSnapshotRepository;
+import com.example.account.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledgerService, "enabled", true);
+        ReflectionTestUtils.setField(ledgerService, "snapshotInterval", 100);
+        account = Account.builder()
+                .accountNumber("1000000000")
+                .balance(10000L) // 시작잔액
+                .build();
+        account.setId(1L);
+    }
+
+    @Test
+    @DisplayName("snapshot 없음 - 시작잔액 + 전체 원장")
+    void getBalance_withoutSnapshot() {
+        // given
+        given(balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(1L))
+                .willReturn(Optional.empty());
+        given(ledgerEntryRepository.findTail(1L, 0L))
+                .willReturn(new LedgerTail(-3000L, 5L));
+
+        // when
+        // then
+        assertEquals(7000L, ledgerService.getBalance(account));
+    }
+
+    @Test
+    @DisplayName("snapshot 있음 - snapshot 잔액 + snapshot 이후 원장")
+    void getBalance_withSnapshot() {
+        // given
+        given(balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(1L))
+                .willReturn(Optional.of(BalanceSnapshot.builder()
+                        .accountId(1L).seq(100L).balance(5000L).build()));
+        given(ledgerEntryRepository.findTail(1L, 100L))
+                .willReturn(new LedgerTail(1000L, 102L));
+
+        // when
+        // then
+        assertEquals(6000L, ledgerService.getBalance(account));
+    }
+
+    @Test
+    @DisplayName("원장 추가 - 다음 순번으로 저장, snapshot-interval 마다 snapshot 저장")
+    void append_snapshotAtInterval() {
+        // given
+        ReflectionTestUtils.setField(ledgerService, "snapshotInterval", 2);
+        given(balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(1L))
+                .willReturn(Optional.empty());
+        given(ledgerEntryRepository.findTail(1L, 0L))
+                .willReturn(new LedgerTail(-1000L, 1L));
+        ArgumentCaptor<LedgerEntry> entryCaptor = ArgumentCaptor.forClass(LedgerEntry.class);
+        ArgumentCaptor<BalanceSnapshot> snapshotCaptor = ArgumentCaptor.forClass(BalanceSnapshot.class);
+
+        // when
+        long balance = ledgerService.append(account, USE, -500L);
+
+        // then
+        assertEquals(8500L, balance);
+        verify(ledgerEntryRepository, times(1)).save(entryCaptor.capture());
+        assertEquals(2L, entryCaptor.getValue().getSeq());
+        assertEquals(-500L, entryCaptor.getValue().getAmount());
+        verify(balanceSnapshotRepository, times(1)).save(snapshotCaptor.capture());
+        assertEquals(2L, snapshotCaptor.getValue().getSeq());
+        assertEquals(8500L, snapshotCaptor.getValue().getBalance());
+    }
+
+    @Test
+    @DisplayName("원장 추가 - snapshot-interval 전에는 snapshot 저장하지 않음")
+    void append_withoutSnapshot() {
+        // given
+        given(balanceSnapshotRepository.findFirstByAccountIdOrderBySeqDesc(1L))
+                .willReturn(Optional.empty());
+        given(ledgerEntryRepository.findTail(1L, 0L))
+                .willReturn(new LedgerTail(null, null));
+
+        // when
+        long balance = ledgerService.append(account, USE, -500L);
+
+        // then
+        assertEquals(9500L, balance);
+        verify(balanceSnapshotRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("원장 추가 - 이미 구한 원장 위치에 이어서 추가, 잔액을 다시 계산하지 않음")
+    void append_fromPosition() {
+        // given
+        LedgerService.Position position = new LedgerService.Position(5L, 7000L);
+
+        // when
+        LedgerService.Position next = ledgerService.append(account, position, USE, -500L);
+        LedgerService.Position last = ledgerService.append(account, next, USE, -1000L);
+
+        // then
+        assertEquals(6L, next.getSeq());
+        assertEquals(6500L, next.getBalance());
+        assertEquals(7L, last.getSeq());
+        assertEquals(5500L, last.getBalance());
+        verify(ledgerEntryRepository, times(2)).save(any());
+        verifyNoInteractions(balanceSnapshotRepository);
+        verify(ledgerEntryRepository, never()).findTail(anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("조건부 update 모드와 같이 사용 - 시작 실패")
+    void validateMode_atomicDebit() {
+        // given
+        ReflectionTestUtils.setField(ledgerService, "atomicDebit", true);
+
+        // when
+        // then
+        assertThrows(IllegalStateException.class, () -> ledgerService.validateMode());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalLockServiceTest {
+    private final LocalLockService localLockService = new LocalLockService();
+
+    @Test
+    void successGetLock() {
+        // given
+        // when
+        // then
+        assertDoesNotThrow(() -> localLockService.lock("1000000000"));
+        localLockService.unlock("1000000000");
+    }
+
+    @Test
+    @DisplayName("다른 스레드가 같은 계좌 lock 점유중 - lock 실패")
+    void failGetLock_heldByOtherThread() throws Exception {
+        // given
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> holder = executor.submit(() -> {
+            localLockService.lock("1000000000");
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                localLockService.unlock("1000000000");
+            }
+        });
+        assertTrue(locked.await(1, TimeUnit.SECONDS));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> localLockService.lock("1000000000"));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("lock 해제 후 다른 스레드에서 다시 lock 가능")
+    void lockAgainAfterUnlock() throws Exception {
+        // given
+        localLockService.lock("1000000000");
+        localLockService.unlock("1000000000");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<?> other = executor.submit(() -> {
+            localLockService.lock("1000000000");
+            localLockService.unlock("1000000000");
+        });
+
+        // then
+        assertDoesNotThrow(() -> other.get(1, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("다른 계좌 lock 점유중 - 기다리지 않고 lock 성공")
+    void successGetLock_otherAccountLocked() throws Exception {
+        // given
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> holder = executor.submit(() -> {
+            localLockService.lock("1000000000");
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                localLockService.unlock("1000000000");
+            }
+        });
+        assertTrue(locked.await(1, TimeUnit.SECONDS));
+
+        // when
+        boolean result = localLockService.tryLock("1000000001", 0L);
+
+        // then
+        assertTrue(result);
+        localLockService.unlock("1000000001");
+
+        release.countDown();
+        holder.get(1, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("재진입 lock 모두 해제 - 계좌 lock 객체 제거")
+    void removeLockAfterUnlock() throws Exception {
+        // given
+        localLockService.lock("1000000000");
+        localLockService.lock("1000000000");
+
+        // when
+        localLockService.unlock("1000000000");
+        int countAfterFirstUnlock = localLockService.getLockCount();
+        localLockService.unlock("1000000000");
+
+        // then
+        assertEquals(1, countAfterFirstUnlock);
+        assertEquals(0, localLockService.getLockCount());
+    }
+}
@@ -1,34 +1,85 @@
 package com.example.account.service;
 
+import com.example.account.aop.AccountLock;
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.LockPolicy;
 import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.stream.Stream;
 
 import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class LockAopAspectTest {
+    @Mock
+    private LocalLockService localLockService;
+
     @Mock
     private LockService lockService;
 
+    @Mock
+    private AccountSequencer accountSequencer;
+
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private MethodSignature methodSignature;
+
      @InjectMocks
     private LockAopAspect lockAopAspect;
 
+    // @AccountLock 설정값을 읽어오기 위한 테스트용 메서드
+    static class LockedMethods {
+        @AccountLock(tryLockTime = 3000L, leaseTime = 5000L, fair = true)
+        void cancel(AccountLockIdInterface request) {
+        }
+
+        @AccountLock
+        void use(Long userId, String accountNumber, Long amount) {
+        }
+
+        @AccountLock(skipOnAtomicDebit = true)
+        void atomicUse(Long userId, String accountNumber, Long amount) {
+        }
+    }
+
+    // lock을 잡지 않는 테스트(낙관적 lock 모드)도 있어 lenient 로 설정
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        lenient().when(proceedingJoinPoint.getSignature()).thenReturn(methodSignature);
+        lenient().when(methodSignature.getMethod())
+                .thenReturn(LockedMethods.class.getDeclaredMethod("cancel", AccountLockIdInterface.class));
+    }
+
      @Test
      @DisplayName("정상적 lock(), unlock(), 수행")
      void lockAndUnlock() throws Throwable {
@@ -40,15 +91,18 @@ class LockAopAspectTest {
                  ArgumentCaptor.forClass(String.class);
          UseBalance.Request request =
                  new UseBalance.Request(123L, accountNumber, 1000L);
+         lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
 
          // when
-         lockAopAspect.aroundMethod(proceedingJoinPoint, request);
+         lockAopAspect.aroundMethod(proceedingJoinPoint);
 
          // then
+         verify(localLockService, times(1)).lock(accountNumber, 3000L);
+         verify(localLockService, times(1)).unlock(accountNumber);
          verify(lockService, times(1))
-                 .lock(lockArgumentCaptor.capture());
+                 .lock(lockArgumentCaptor.capture(), any());
          verify(lockService, times(1))
-                 .unlock(unlockArgumentCaptor.capture());
+                 .unlock(unlockArgumentCaptor.capture(), any());
          assertEquals(accountNumber, lockArgumentCaptor.getValue());
          assertEquals(accountNumber, unlockArgumentCaptor.getValue());
      }
@@ -64,20 +118,246 @@ class LockAopAspectTest {
                 ArgumentCaptor.forClass(String.class);
         UseBalance.Request request =
                 new UseBalance.Request(123L, accountNumber, 1000L);
+        lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
 
         given(proceedingJoinPoint.proceed())
                 .willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK));
 
         // when
         assertThrows(AccountException.class, () ->
-            lockAopAspect.aroundMethod(proceedingJoinPoint, request));
+            lockAopAspect.aroundMethod(proceedingJoinPoint));
 
         // then
+        verify(localLockService, times(1)).lock(accountNumber, 3000L);
+        verify(localLockService, times(1)).unlock(accountNumber);
         verify(lockService, times(1))
-                .lock(lockArgumentCaptor.capture());
+                .lock(lockArgumentCaptor.capture(), any());
         verify(lockService, times(1))
-                .unlock(unlockArgumentCaptor.capture());
+                .unlock(unlockArgumentCaptor.capture(), any());
         assertEquals(accountNumber, lockArgumentCaptor.getValue());
         assertEquals(accountNumber, unlockArgumentCaptor.getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("@AccountLock 설정값으로 lock 수행")
+    void lockWithAnnotationPolicy() throws Throwable {
+        // given
+        String accountNumber = "1000000000";
+        ArgumentCaptor<LockPolicy> policyCaptor =
+                ArgumentCaptor.forClass(LockPolicy.class);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, accountNumber, 1000L);
+        lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint);
+        lockAopAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        verify(lockService, times(2)).lock(anyString(), policyCaptor.capture());
+        assertEquals(3000L, policyCaptor.getValue().getWaitTime());
+        assertEquals(5000L, policyCaptor.getValue().getLeaseTime());
+        assertTrue(policyCaptor.getValue().isFair());
+        // 메서드별로 한번만 만들어 캐싱한 정책을 재사용
+        assertSame(policyCaptor.getAllValues().get(0), policyCaptor.getAllValues().get(1));
+    }
+
+    @Test
+    @DisplayName("노드 내부 lock 실패 시 Redis lock 시도하지 않음")
+    void localLockFailed_skipRedisLock() throws Throwable {
+        // given
+        String accountNumber = "1000000000";
+        UseBalance.Request request =
+                new UseBalance.Request(123L, accountNumber, 1000L);
+        lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
+
+        willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK))
+                .given(localLockService).lock(anyString(), anyLong());
+
+        // when
+        assertThrows(AccountException.class, () ->
+                lockAopAspect.aroundMethod(proceedingJoinPoint));
+
+        // then
+        verify(lockService, never()).lock(anyString(), any());
+        verify(lockService, never()).unlock(anyString(), any());
+        verify(localLockService, never()).unlock(anyString());
+        verify(proceedingJoinPoint, never()).proceed();
+    }
+
+    @Test
+    @DisplayName("낙관적 lock 모드 - lock 없이 로직 수행")
+    void optimisticMode_skipLock() throws Throwable {
+        // given
+        ReflectionTestUtils.setField(lockAopAspect, "optimistic", true);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1000000000", 1000L);
+        lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(localLockService, never()).lock(anyString(), anyLong());
+        verify(lockService, never()).lock(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("조건부 update 모드 - 잔액 사용은 lock 없이 로직 수행")
+    void atomicDebitMode_skipLock() throws Throwable {
+        // given
+        ReflectionTestUtils.setField(lockAopAspect, "atomicDebit", true);
+        given(methodSignature.getMethod())
+                .willReturn(LockedMethods.class.getDeclaredMethod(
+                        "atomicUse", Long.class, String.class, Long.class));
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verifyNoInteractions(localLockService, lockService, accountSequencer);
+    }
+
+    @Test
+    @DisplayName("조건부 update 모드 - lock 생략 설정이 없는 메서드는 lock 수행")
+    void atomicDebitMode_lockOtherMethods() throws Throwable {
+        // given
+        ReflectionTestUtils.setField(lockAopAspect, "atomicDebit", true);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1000000000", 1000L);
+        given(proceedingJoinPoint.getArgs()).willReturn(new Object[]{request});
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        verify(lockService, times(1)).lock(eq("1000000000"), any());
+        verify(lockService, times(1)).unlock(eq("1000000000"), any());
+    }
+
+    @Test
+    @DisplayName("순서대기열 모드 - 노드 내부 Lock 대신 대기열 사용")
+    void sequencerMode_enterAndExitQueue() throws Throwable {
+        // given
+        ReflectionTestUtils.setField(lockAopAspect, "sequencer", true);
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1000000000", 1000L);
+        lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
+        given(proceedingJoinPoint.proceed())
+                .willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+
+        // when
+        assertThrows(AccountException.class, () ->
+                lockAopAspect.aroundMethod(proceedingJoinPoint));
+
+        // then
+        verify(accountSequencer, times(1)).enter("1000000000", 3000L);
+        verify(accountSequencer, times(1)).exit("1000000000");
+        verify(lockService, times(1)).unlock(anyString(), any());
+        verify(localLockService, never()).lock(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("accountNumber 인자로 계좌번호 확인 - service 메서드에 @AccountLock 사용")
+    void lockWithAccountNumberArgument() throws Throwable {
+        // given
+        given(methodSignature.getMethod())
+                .willReturn(LockedMethods.class.getDeclaredMethod(
+                        "use", Long.class, String.class, Long.class));
+        given(proceedingJoinPoint.getArgs())
+                .willReturn(new Object[]{123L, "2000000000", 1000L});
+
+        // when
+        lockAopAspect.aroundMethod(proceedingJoinPoint);
+
+        // then
+        verify(localLockService, times(1)).lock("2000000000", 1000L);
+        verify(lockService, times(1)).lock(eq("2000000000"), any());
+        verify(lockService, times(1)).unlock(eq("2000000000"), any());
+        verify(localLockService, times(1)).unlock("2000000000");
+    }
+
+    @Test
+    @DisplayName("이미 시작된 트랜잭션 안에서 호출 - 트랜잭션 종료 후 unlock() 수행")
+    void unlockAfterTransactionCompletion() throws Throwable {
+        // given
+        UseBalance.Request request =
+                new UseBalance.Request(123L, "1000000000", 1000L);
+        given(proceedingJoinPoint.getArgs()).willReturn(new Object[]{request});
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            lockAopAspect.aroundMethod(proceedingJoinPoint);
+
+            // then
+            // 메서드가 끝나도 트랜잭션이 끝나기 전까지는 lock 유지
+            verify(lockService, never()).unlock(anyString(), any());
+            verify(localLockService, never()).unlock(anyString());
+
+            // commit 후 unlock
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_COMMITTED));
+            verify(lockService, times(1)).unlock(eq("1000000000"), any());
+            verify(localLockService, times(1)).unlock("1000000000");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    static Stream<LockProviderFixture> lockProviders() {
+        return LockProviderFixture.all();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("lockProviders")
+    @DisplayName("LockProvider 별 lock(), unlock() 수행")
+    void lockAndUnlock_eachProvider(LockProviderFixture fixture) throws Throwable {
+        try (fixture) {
+            // given
+            fixture.givenLockAvailable();
+            LockAopAspect aspect = new LockAopAspect(
+                    localLockService,
+                    LockProviderFixture.newLockService(fixture.provider()),
+                    accountSequencer);
+            UseBalance.Request request =
+                    new UseBalance.Request(123L, "1000000000", 1000L);
+            lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
+
+            // when
+            aspect.aroundMethod(proceedingJoinPoint);
+
+            // then
+            verify(proceedingJoinPoint, times(1)).proceed();
+            fixture.assertReleased();
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("lockProviders")
+    @DisplayName("LockProvider 별 lock 실패 시 로직 수행하지 않음")
+    void lockFailed_eachProvider(LockProviderFixture fixture) throws Throwable {
+        try (fixture) {
+            // given
+            fixture.givenLockHeldByOther();
+            LockAopAspect aspect = new LockAopAspect(
+                    localLockService,
+                    LockProviderFixture.newLockService(fixture.provider()),
+                    accountSequencer);
+            UseBalance.Request request =
+                    new UseBalance.Request(123L, "1000000000", 1000L);
+            lenient().when(proceedingJoinPoint.getArgs()).thenReturn(new Object[]{request});
+
+            // when
+            AccountException exception = assertThrows(AccountException.class, () ->
+                    aspect.aroundMethod(proceedingJoinPoint));
+
+            // then
+            assertEquals(ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+            verify(proceedingJoinPoint, never()).proceed();
+            verify(localLockService, times(1)).unlock("1000000000");
+        }
+    }
+}
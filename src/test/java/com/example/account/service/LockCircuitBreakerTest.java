@@ -0,0 +1,101 @@
+package com.example.account.service;
+
+import com.example.account.config.LocalRedisConfig;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// 실제 Redis(embedded)를 띄운 뒤 중간에 종료/재시작하면서 차단기 동작을 확인한다.
+class LockCircuitBreakerTest {
+    private final LocalRedisConfig localRedis = new LocalRedisConfig();
+    private RedissonClient redissonClient;
+    private LockCircuitBreaker lockCircuitBreaker;
+    private LockService lockService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int port = findFreePort();
+        ReflectionTestUtils.setField(localRedis, "redisPort", port);
+        localRedis.startRedis();
+
+        Config config = new Config();
+        config.useSingleServer()
+                .setAddress("redis://127.0.0.1:" + port)
+                .setConnectTimeout(500)
+                .setTimeout(500)
+                .setRetryAttempts(0)
+                .setRetryInterval(100);
+        redissonClient = Redisson.create(config);
+
+        LockProvider lockProvider = new RedissonLockProvider(redissonClient);
+        lockCircuitBreaker = new LockCircuitBreaker(lockProvider);
+        ReflectionTestUtils.setField(lockCircuitBreaker, "failureThreshold", 1);
+        ReflectionTestUtils.setField(lockCircuitBreaker, "probeInterval", 100L);
+        lockCircuitBreaker.startProbe();
+        lockService = new LockService(
+                lockProvider, lockCircuitBreaker, mock(AccountRepository.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        lockCircuitBreaker.stopProbe();
+        redissonClient.shutdown();
+        localRedis.stopRedis();
+    }
+
+    @Test
+    @DisplayName("Redis 종료 - 차단 후 바로 실패, Redis 재시작 - 차단 해제")
+    void openOnRedisDown_closeOnRedisUp() throws InterruptedException {
+        // given
+        lockService.lock("1000000000");
+        lockService.unlock("1000000000");
+
+        // when
+        localRedis.stopRedis();
+
+        // then
+        // Redis 오류를 무시하고 lock 없이 진행하지 않는다.
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1000000000"));
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertTrue(lockCircuitBreaker.isOpen());
+
+        // 차단 중에는 Redis를 호출하지 않고 바로 실패
+        assertTimeoutPreemptively(Duration.ofMillis(200), () ->
+                assertThrows(AccountException.class, () -> lockService.lock("1000000000")));
+
+        // when
+        localRedis.startRedis();
+
+        // then
+        // 백그라운드 확인으로 차단 해제 후 다시 lock 가능
+        long deadline = System.currentTimeMillis() + 15000L;
+        while (lockCircuitBreaker.isOpen() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100L);
+        }
+        assertEquals(LockCircuitBreaker.State.CLOSED, lockCircuitBreaker.getState());
+        assertDoesNotThrow(() -> lockService.lock("1000000000"));
+        lockService.unlock("1000000000");
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
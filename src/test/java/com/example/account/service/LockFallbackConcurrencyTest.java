@@ -0,0 +1,95 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.repository.AccountRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+
+// Redis 장애로 차단기가 열린 뒤 database 대체 Lock(Account row lock)만으로
+// 같은 계좌의 동시 잔액 사용이 하나씩 처리되는지 확인한다.
+// - 노드 내부 Lock은 mocking 해 여러 서버에서 동시에 들어온 요청처럼 DB row lock으로만 경쟁시킨다.
+// - 다른 @SpringBootTest 컨텍스트의 내장 Redis와 포트가 겹치지 않도록 다른 포트를 사용한다.
+@SpringBootTest(properties = {
+        "spring.redis.port=6380",
+        "account.lock.fallback=database",
+        "account.lock.circuit-breaker.failure-threshold=1",
+        "account.lock.circuit-breaker.probe-interval=60000"})
+class LockFallbackConcurrencyTest {
+    private static final int REQUEST_COUNT = 20;
+    private static final long INITIAL_BALANCE = 10000L;
+    private static final long USE_AMOUNT = 100L;
+
+    @MockBean
+    private LockProvider lockProvider;
+
+    @MockBean
+    private LocalLockService localLockService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LockCircuitBreaker lockCircuitBreaker;
+
+    @Test
+    @DisplayName("차단 중 database 대체 Lock - 같은 계좌 동시 잔액 사용을 하나씩 처리해 잔액 일치")
+    void concurrentUseBalance_withDatabaseFallback() throws Exception {
+        // given
+        given(lockProvider.tryLock(anyString(), any()))
+                .willThrow(new IllegalStateException("redis down"));
+        String accountNumber = accountService.createAccount(2L, INITIAL_BALANCE).getAccountNumber();
+        // 첫 요청에서 Redis 오류 -> 차단 후 대체 Lock으로 처리
+        transactionService.useBalance(2L, accountNumber, USE_AMOUNT);
+        assertTrue(lockCircuitBreaker.isOpen());
+
+        ExecutorService executor = Executors.newFixedThreadPool(REQUEST_COUNT);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return transactionService.useBalance(2L, accountNumber, USE_AMOUNT)
+                        .getBalanceSnapshot();
+            }));
+        }
+
+        // when
+        start.countDown();
+        Set<Long> balanceSnapshots = new HashSet<>();
+        for (Future<Long> result : results) {
+            balanceSnapshots.add(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // then
+        // 모든 요청이 성공하고, 요청마다 이전 요청이 차감한 잔액에서 차감 (같은 잔액에서 동시에 차감하지 않음)
+        assertEquals(REQUEST_COUNT, balanceSnapshots.size());
+        Account account = accountRepository.findByAccountNumber(accountNumber).get();
+        assertEquals(INITIAL_BALANCE - (REQUEST_COUNT + 1) * USE_AMOUNT, account.getBalance());
+        assertTrue(lockCircuitBreaker.isOpen());
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.account.service;
+
+import com.example.account.repository.AccountRepository;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// LockServiceTest, LockAopAspectTest를 redis, local, database 세 가지 LockProvider에 대해
+// 동일하게 수행하기 위한 테스트용 LockProvider 준비 클래스.
+// redis, database는 외부 자원을 mocking하고 local은 실제 JVM 내부 Lock을 사용한다.
+abstract class LockProviderFixture implements AutoCloseable {
+    private final String name;
+
+    LockProviderFixture(String name) {
+        this.name = name;
+    }
+
+    static Stream<LockProviderFixture> all() {
+        return Stream.of(new Redis(), new Local(), new Database());
+    }
+
+    // 차단기가 닫혀있는(정상) 상태의 LockService
+    // fencing token은 LockProvider에서 발급
+    static LockService newLockService(LockProvider provider) {
+        return new LockService(provider, new LockCircuitBreaker(provider),
+                mock(AccountRepository.class));
+    }
+
+    abstract LockProvider provider();
+
+    // 다른 요청이 lock을 점유하지 않은 상태
+    abstract void givenLockAvailable() throws Exception;
+
+    // 다른 요청(스레드)이 lock을 점유하고 있는 상태
+    abstract void givenLockHeldByOther() throws Exception;
+
+    // lock이 실제로 해제되었는지 확인
+    abstract void assertReleased() throws Exception;
+
+    @Override
+    public void close() throws Exception {
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    static class Redis extends LockProviderFixture {
+        private final RedissonClient redissonClient = mock(RedissonClient.class);
+        private final RLock rLock = mock(RLock.class);
+        private final RScript rScript = mock(RScript.class);
+
+        Redis() {
+            super("redis");
+            lenient().when(redissonClient.getLock(anyString())).thenReturn(rLock);
+            lenient().when(redissonClient.getFairLock(anyString())).thenReturn(rLock);
+            // fencing token 발급 스크립트 (token 1 발급)
+            lenient().when(redissonClient.getScript(any())).thenReturn(rScript);
+            lenient().when(rScript.eval(any(RScript.Mode.class), anyString(),
+                    any(RScript.ReturnType.class), anyList(), any())).thenReturn(1L);
+        }
+
+        @Override
+        LockProvider provider() {
+            return new RedissonLockProvider(redissonClient);
+        }
+
+        @Override
+        void givenLockAvailable() throws Exception {
+            lenient().when(rLock.tryLock(anyLong(), anyLong(), any())).thenReturn(true); // lock 성공
+        }
+
+        @Override
+        void givenLockHeldByOther() throws Exception {
+            lenient().when(rLock.tryLock(anyLong(), anyLong(), any())).thenReturn(false); // lock 실패
+        }
+
+        @Override
+        void assertReleased() {
+            verify(rLock, times(1)).unlock();
+        }
+    }
+
+    static class Local extends LockProviderFixture {
+        private final LocalLockService localLockService = new LocalLockService();
+        private final ExecutorService executor = Executors.newSingleThreadExecutor();
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        Local() {
+            super("local");
+        }
+
+        @Override
+        LockProvider provider() {
+            return new LocalLockProvider(localLockService);
+        }
+
+        @Override
+        void givenLockAvailable() {
+        }
+
+        @Override
+        void givenLockHeldByOther() throws Exception {
+            CountDownLatch locked = new CountDownLatch(1);
+            executor.submit(() -> {
+                localLockService.lock("1000000000");
+                locked.countDown();
+                try {
+                    release.await();
+                } finally {
+                    localLockService.unlock("1000000000");
+                }
+                return null;
+            });
+            assertTrue(locked.await(1, TimeUnit.SECONDS));
+        }
+
+        @Override
+        void assertReleased() throws Exception {
+            // 다른 스레드에서 바로 lock을 얻을 수 있어야 함
+            assertTrue(executor.submit(() -> {
+                boolean locked = localLockService.tryLock("1000000000", 0L);
+                if (locked) {
+                    localLockService.unlock("1000000000");
+                }
+                return locked;
+            }).get(1, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public void close() {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    static class Database extends LockProviderFixture {
+        private final DataSource dataSource = mock(DataSource.class);
+        private final Connection connection = mock(Connection.class);
+        private final PreparedStatement statement = mock(PreparedStatement.class);
+        private final ResultSet resultSet = mock(ResultSet.class);
+
+        Database() {
+            super("database");
+            try {
+                lenient().when(dataSource.getConnection()).thenReturn(connection);
+                lenient().when(connection.prepareStatement(anyString())).thenReturn(statement);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        LockProvider provider() {
+            return new DatabaseLockProvider(dataSource);
+        }
+
+        @Override
+        void givenLockAvailable() throws Exception {
+            lenient().when(statement.executeQuery()).thenReturn(resultSet);
+            lenient().when(resultSet.next()).thenReturn(true); // lock row 조회 + 잠금 성공
+            lenient().when(resultSet.getLong(1)).thenReturn(1L); // lock row에서 fencing token 발급
+        }
+
+        @Override
+        void givenLockHeldByOther() throws Exception {
+            // lock 대기시간 초과
+            lenient().when(statement.executeQuery()).thenThrow(new SQLTimeoutException());
+        }
+
+        @Override
+        void assertReleased() throws Exception {
+            verify(connection, times(1)).commit();
+            verify(connection, times(1)).close();
+        }
+    }
+}
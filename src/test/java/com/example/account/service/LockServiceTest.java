@@ -1,63 +1,291 @@
 package com.example.account.service;
 
+import com.example.account.aop.LockPolicy;
 import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
 import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
-@ExtendWith(MockitoExtension.class)
+// LockService는 LockProvider 구현체(redis, local, database)에 관계없이 동일하게 동작해야 하므로
+// 세 가지 구현체 모두에 대해 같은 테스트를 수행한다.
 class LockServiceTest {
-    @Mock
-    private RedissonClient redissonClient;
 
-    // 우리가 LockService에서 만든 Bean은 아니지만
-    // RLock이 동작을 어떻게 해주는지에 따라서 lock(), unlock() 메서드의
-    // 로직이 변화하기 때문에 RLock을 mocking해 RLock의 동작을 원하는대로 변경하도록 한다.
-    @Mock
-    private RLock rLock;
+    static Stream<LockProviderFixture> lockProviders() {
+        return LockProviderFixture.all();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("lockProviders")
+    void successGetLock(LockProviderFixture fixture) throws Exception {
+        try (fixture) {
+            // given
+            fixture.givenLockAvailable();
+            LockService lockService = LockProviderFixture.newLockService(fixture.provider());
+
+            // when
+
+            // then
+            // 아래의 방식으로 테스트코드를 짜는 것은 권장하지않는다.
+            // 하지만 실무적으로 가끔 어쩔 수 없는 경우가 있기도 하다.
+            // 따라서 명시적으로 리턴을 주는 방식으로 메서드를 만들어서 할 수도 있을 것 같다.
+            assertDoesNotThrow(() -> lockService.lock("1000000000"));
+            lockService.unlock("1000000000");
+            fixture.assertReleased();
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("lockProviders")
+    void issueFencingToken_whileLocked(LockProviderFixture fixture) throws Exception {
+        try (fixture) {
+            // given
+            fixture.givenLockAvailable();
+            LockService lockService = LockProviderFixture.newLockService(fixture.provider());
+
+            // when
+            lockService.lock("1000000000");
+            Long fencingToken = FencingTokenContext.get("1000000000");
+            lockService.unlock("1000000000");
+
+            // then
+            // lock 점유중에는 token이 있고 해제 후에는 제거된다.
+            assertNotNull(fencingToken);
+            assertNull(FencingTokenContext.get("1000000000"));
+        }
+    }
+
+    @Test
+    @DisplayName("Redis 오류 - lock 없이 진행하지 않고 실패, 연속 오류 시 Redis 호출 차단")
+    void redisError_failAndOpenCircuit() throws InterruptedException {
+        // given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock rLock = mock(RLock.class);
+        given(redissonClient.getLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willThrow(new IllegalStateException("redis down"));
+        LockService lockService =
+                LockProviderFixture.newLockService(new RedissonLockProvider(redissonClient));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lock("1000000000"));
+        assertThrows(AccountException.class, () -> lockService.lock("1000000000"));
+
+        // then
+        // 기본 차단기(failureThreshold 미설정)는 첫 오류에 차단 -> 두번째 요청은 Redis 호출하지 않음
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(rLock, times(1)).tryLock(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("차단 중 database 대체 Lock - 트랜잭션 시작 후 Account row lock 사용, unlock 시 Redis 호출하지 않음")
+    void circuitOpen_fallbackToAccountRowLock() {
+        // given
+        LockProvider lockProvider = mock(LockProvider.class);
+        LockCircuitBreaker lockCircuitBreaker = mock(LockCircuitBreaker.class);
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        given(lockCircuitBreaker.isOpen()).willReturn(true);
+        LockService lockService =
+                new LockService(lockProvider, lockCircuitBreaker, accountRepository);
+        ReflectionTestUtils.setField(lockService, "fallback", "database");
+
+        // when
+        // lock은 트랜잭션 시작 전에 점유 (DB 커넥션 사용 없음)
+        lockService.lock("1000000000");
+        verifyNoInteractions(accountRepository);
+
+        boolean rowLocked;
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            rowLocked = lockService.lockFallbackRow("1000000000");
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        lockService.unlock("1000000000");
+
+        // then
+        assertTrue(rowLocked);
+        verify(accountRepository, times(1)).findForUpdateByAccountNumber("1000000000");
+        verifyNoInteractions(lockProvider);
+        // 해제 후에는 대체 Lock 사용 표시도 제거
+        assertFalse(lockService.lockFallbackRow("1000000000"));
+    }
+
+    @Test
+    @DisplayName("차단 중 database 대체 Lock - 트랜잭션 없이 row lock 시도하면 실패")
+    void fallbackRowLock_failWithoutTransaction() {
+        // given
+        LockProvider lockProvider = mock(LockProvider.class);
+        LockCircuitBreaker lockCircuitBreaker = mock(LockCircuitBreaker.class);
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        given(lockCircuitBreaker.isOpen()).willReturn(true);
+        LockService lockService =
+                new LockService(lockProvider, lockCircuitBreaker, accountRepository);
+        ReflectionTestUtils.setField(lockService, "fallback", "database");
+        lockService.lock("1000000000");
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockService.lockFallbackRow("1000000000"));
 
-    @InjectMocks
-    private LockService lockService;
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(accountRepository, never()).findForUpdateByAccountNumber(anyString());
+        lockService.unlock("1000000000");
+    }
 
     @Test
-    void successGetLock() throws InterruptedException {
+    void successGetLock_reuseLockHandle() throws InterruptedException {
         // given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock rLock = mock(RLock.class);
         given(redissonClient.getLock(anyString()))
                 .willReturn(rLock);
         given(rLock.tryLock(anyLong(), anyLong(), any()))
-                .willReturn(true); // lock 성공
+                .willReturn(true);
+        RScript rScript = mock(RScript.class);
+        given(redissonClient.getScript(any()))
+                .willReturn(rScript);
+        given(rScript.eval(any(RScript.Mode.class), anyString(),
+                any(RScript.ReturnType.class), anyList(), any()))
+                .willReturn(1L);
+        RedissonLockProvider lockProvider = new RedissonLockProvider(redissonClient);
+        LockService lockService = LockProviderFixture.newLockService(lockProvider);
+        ThreadLocal<?> heldLocks =
+                (ThreadLocal<?>) ReflectionTestUtils.getField(lockProvider, "heldLocks");
+        Object heldLocksBefore = heldLocks.get();
 
         // when
+        lockService.lock("1000000000");
+        lockService.unlock("1000000000");
 
         // then
-        // 아래의 방식으로 테스트코드를 짜는 것은 권장하지않는다.
-        // 하지만 실무적으로 가끔 어쩔 수 없는 경우가 있기도 하다.
-        // 따라서 명시적으로 리턴을 주는 방식으로 메서드를 만들어서 할 수도 있을 것 같다.
-        assertDoesNotThrow(() -> lockService.lock("1000000000"));
+        // 점유 시 가져온 RLock으로 해제 (getLock은 한번만 호출, 점유는 tryLock 한번)
+        verify(redissonClient, times(1)).getLock("ACLK:1000000000");
+        verify(rLock, times(1)).tryLock(anyLong(), anyLong(), any());
+        verify(rLock, times(1)).unlock();
+        // fencing token 발급 스크립트 한번
+        verify(redissonClient, times(1)).getScript(any());
+        verifyNoMoreInteractions(redissonClient);
+        // 점유중인 lock을 담는 Map은 해제 후에도 재사용
+        assertSame(heldLocksBefore, heldLocks.get());
     }
 
     @Test
-    void failGetLock() throws InterruptedException {
+    void fencingTokenFailed_releaseLock() throws InterruptedException {
         // given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock rLock = mock(RLock.class);
+        RScript rScript = mock(RScript.class);
         given(redissonClient.getLock(anyString()))
                 .willReturn(rLock);
         given(rLock.tryLock(anyLong(), anyLong(), any()))
-                .willReturn(false); // lock 실패
+                .willReturn(true);
+        given(redissonClient.getScript(any()))
+                .willReturn(rScript);
+        given(rScript.eval(any(RScript.Mode.class), anyString(),
+                any(RScript.ReturnType.class), anyList(), any()))
+                .willThrow(new IllegalStateException("redis down"));
+        LockService lockService =
+                LockProviderFixture.newLockService(new RedissonLockProvider(redissonClient));
 
         // when
         AccountException exception = assertThrows(AccountException.class,
                 () -> lockService.lock("1000000000"));
 
         // then
+        // token 없이 거래하지 않도록 점유한 lock은 바로 해제
         assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(rLock, times(1)).unlock();
+        assertNull(FencingTokenContext.get("1000000000"));
+    }
+
+    @Test
+    @DisplayName("Lock 저장소 재시작 (발급한 token 유실) - 이전 token보다 큰 token 발급")
+    void issueFencingToken_afterProviderRestart() throws InterruptedException {
+        // given
+        LockService before =
+                LockProviderFixture.newLockService(new LocalLockProvider(new LocalLockService()));
+        before.lock("1000000000");
+        Long beforeToken = FencingTokenContext.get("1000000000");
+        before.unlock("1000000000");
+        before.lock("1000000000");
+        Long nextToken = FencingTokenContext.get("1000000000");
+        before.unlock("1000000000");
+        Thread.sleep(2L);
+
+        // when
+        // 카운터가 비어있는 새 저장소
+        LockService after =
+                LockProviderFixture.newLockService(new LocalLockProvider(new LocalLockService()));
+        after.lock("1000000000");
+        Long afterToken = FencingTokenContext.get("1000000000");
+        after.unlock("1000000000");
+
+        // then
+        assertTrue(nextToken > beforeToken);
+        assertTrue(afterToken > nextToken);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("lockProviders")
+    void failGetLock(LockProviderFixture fixture) throws Exception {
+        try (fixture) {
+            // given
+            fixture.givenLockHeldByOther();
+            LockService lockService = LockProviderFixture.newLockService(fixture.provider());
+
+            // when
+            AccountException exception = assertThrows(AccountException.class,
+                    () -> lockService.lock("1000000000"));
+
+            // then
+            assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        }
+    }
+
+    @Test
+    void successGetFairLock_withPolicy() throws InterruptedException {
+        // given
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        RLock rLock = mock(RLock.class);
+        given(redissonClient.getFairLock(anyString()))
+                .willReturn(rLock);
+        given(rLock.tryLock(anyLong(), anyLong(), any()))
+                .willReturn(true);
+        LockService lockService =
+                LockProviderFixture.newLockService(new RedissonLockProvider(redissonClient));
+
+        // when
+        lockService.lock("1000000000", new LockPolicy(3000L, 5000L, true));
+
+        // then
+        // @AccountLock 에 설정한 대기시간, 점유시간 그대로 사용
+        verify(rLock, times(1))
+                .tryLock(3000L, 5000L, TimeUnit.MILLISECONDS);
+        verify(redissonClient, never()).getLock(anyString());
+        lockService.unlock("1000000000", new LockPolicy(3000L, 5000L, true));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryServiceTest {
+    private final OptimisticRetryService optimisticRetryService = new OptimisticRetryService();
+
+    @Test
+    @DisplayName("version 충돌 후 재시도 성공")
+    void successAfterConflict() {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        String result = optimisticRetryService.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "success";
+        });
+
+        // then
+        assertEquals("success", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    @DisplayName("재시도 횟수 초과 - 거래실패")
+    void failedRetryExhausted() {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryService.execute(() -> {
+                    attempts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    @DisplayName("비즈니스 예외는 재시도하지 않음")
+    void noRetryForAccountException() {
+        // given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> optimisticRetryService.execute(() -> {
+                    attempts.incrementAndGet();
+                    throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
+                }));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(1, attempts.get());
+    }
+}
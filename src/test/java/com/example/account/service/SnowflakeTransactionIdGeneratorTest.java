@@ -0,0 +1,57 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    @Test
+    @DisplayName("연속 생성 - 중복 없이 증가")
+    void nextId_increasingAndUnique() {
+        // given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator();
+        Set<Long> ids = new HashSet<>();
+        long last = -1L;
+
+        // when
+        // then
+        for (int i = 0; i < 10000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            assertTrue(ids.add(id));
+            last = id;
+        }
+    }
+
+    @Test
+    @DisplayName("서버번호가 아이디에 포함")
+    void nextId_containsNodeId() {
+        // given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", 513L);
+
+        // when
+        long id = generator.nextId();
+
+        // then
+        assertEquals(513L, (id >>> 12) & 1023L);
+    }
+
+    @Test
+    @DisplayName("서버번호 범위 초과 - 시작 실패")
+    void validateNodeId_outOfRange() {
+        // given
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", 1024L);
+
+        // when
+        // then
+        assertThrows(IllegalStateException.class, generator::validateNodeId);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.UseBalance;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.account.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static com.example.account.type.TransactionResultType.F;
+import static com.example.account.type.TransactionResultType.S;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+    @Mock
+    private TransactionService transactionService;
+
+    private TransactionBatchService transactionBatchService;
+
+    @BeforeEach
+    void setUp() {
+        transactionBatchService =
+                new TransactionBatchService(transactionService, new OptimisticRetryService());
+    }
+
+    @Test
+    @DisplayName("계좌별로 묶어 계좌당 한번씩 처리하고 결과는 요청 순서대로 반환")
+    void groupByAccount_keepRequestOrder() {
+        // given
+        given(transactionService.useBalanceGroup(anyString(), anyList()))
+                .willAnswer(invocation -> {
+                    List<UseBalance.Request> requests = invocation.getArgument(1);
+                    return requests.stream()
+                            .map(request -> UseBalance.Response.builder()
+                                    .accountNumber(request.getAccountNumber())
+                                    .transactionResult(S)
+                                    .amount(request.getAmount())
+                                    .build())
+                            .collect(Collectors.toList());
+                });
+
+        // when
+        List<UseBalance.Response> responses = transactionBatchService.useBalances(Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(2L, "2000000000", 200L),
+                new UseBalance.Request(1L, "1000000000", 300L)));
+
+        // then
+        verify(transactionService, times(1)).useBalanceGroup(eq("1000000000"), anyList());
+        verify(transactionService, times(1)).useBalanceGroup(eq("2000000000"), anyList());
+        assertEquals(Arrays.asList(100L, 200L, 300L), responses.stream()
+                .map(UseBalance.Response::getAmount)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("계좌 lock 실패 - 해당 계좌 요청은 모두 실패거래로 저장")
+    void groupFailed_saveFailedTransactions() {
+        // given
+        given(transactionService.useBalanceGroup(anyString(), anyList()))
+                .willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+        given(transactionService.saveFailedUseTransactions(anyString(), anyList()))
+                .willReturn(Arrays.asList(
+                        TransactionDto.builder().transactionId("t1").transactionResultType(F).build(),
+                        TransactionDto.builder().transactionId("t2").transactionResultType(F).build()));
+
+        // when
+        List<UseBalance.Response> responses = transactionBatchService.useBalances(Arrays.asList(
+                new UseBalance.Request(1L, "1000000000", 100L),
+                new UseBalance.Request(1L, "1000000000", 300L)));
+
+        // then
+        verify(transactionService, times(1))
+                .saveFailedUseTransactions("1000000000", Arrays.asList(100L, 300L));
+        assertEquals("t1", responses.get(0).getTransactionId());
+        assertEquals("t2", responses.get(1).getTransactionId());
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, responses.get(1).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("계좌 미존재 - 실패거래 없이 실패 결과만 반환")
+    void accountNotFound_noFailedTransaction() {
+        // given
+        given(transactionService.useBalanceGroup(anyString(), anyList()))
+                .willThrow(new AccountException(ACCOUNT_NOT_FOUND));
+        given(transactionService.saveFailedUseTransactions(anyString(), anyList()))
+                .willThrow(new AccountException(ACCOUNT_NOT_FOUND));
+
+        // when
+        List<UseBalance.Response> responses = transactionBatchService.useBalances(
+                Collections.singletonList(new UseBalance.Request(1L, "1000000000", 100L)));
+
+        // then
+        assertEquals(F, responses.get(0).getTransactionResult());
+        assertNull(responses.get(0).getTransactionId());
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, responses.get(0).getErrorCode());
+    }
+}
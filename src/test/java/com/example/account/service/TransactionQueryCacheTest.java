@@ -0,0 +1,88 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionCacheStatus;
+import com.example.account.dto.TransactionDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+import static com.example.account.type.TransactionResultType.S;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionQueryCacheTest {
+    // 거래 1건 크기 = 256 + 계좌번호(10) + 거래아이디(16) = 282
+    private static final long ENTRY_WEIGHT = 282L;
+
+    @Test
+    @DisplayName("저장한 거래 조회 - hit, 없는 거래 조회 - miss")
+    void getAndPut() {
+        // given
+        TransactionQueryCache cache = new TransactionQueryCache(ENTRY_WEIGHT * 10);
+        TransactionDto transactionDto = transactionDto(1L);
+        cache.put(1L, transactionDto);
+
+        // when
+        TransactionDto hit = cache.get(1L);
+        TransactionDto miss = cache.get(2L);
+
+        // then
+        assertSame(transactionDto, hit);
+        assertNull(miss);
+        TransactionCacheStatus status = cache.getStatus();
+        assertEquals(1, status.getSize());
+        assertEquals(ENTRY_WEIGHT, status.getWeight());
+        assertEquals(1, status.getHitCount());
+        assertEquals(1, status.getMissCount());
+    }
+
+    @Test
+    @DisplayName("최대 크기 초과 - 가장 오래 조회되지 않은 거래부터 삭제")
+    void evictLeastRecentlyUsed() {
+        // given
+        TransactionQueryCache cache = new TransactionQueryCache(ENTRY_WEIGHT * 2);
+        cache.put(1L, transactionDto(1L));
+        cache.put(2L, transactionDto(2L));
+        cache.get(1L);
+
+        // when
+        cache.put(3L, transactionDto(3L));
+
+        // then
+        assertNotNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        assertEquals(1, cache.getStatus().getEvictionCount());
+        assertEquals(ENTRY_WEIGHT * 2, cache.getStatus().getWeight());
+    }
+
+    @Test
+    @DisplayName("트랜잭션 안에서 저장 - commit 후 캐시에 저장")
+    void putAfterCommit() {
+        // given
+        TransactionQueryCache cache = new TransactionQueryCache(ENTRY_WEIGHT * 10);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            cache.putAfterCommit(1L, transactionDto(1L));
+
+            // then
+            assertEquals(0, cache.getStatus().getSize());
+            for (TransactionSynchronization synchronization
+                    : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            assertEquals(1, cache.getStatus().getSize());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static TransactionDto transactionDto(long transactionNo) {
+        return new TransactionDto("1000000000", USE, S, 1000L, 9000L,
+                transactionNo, LocalDateTime.now());
+    }
+}
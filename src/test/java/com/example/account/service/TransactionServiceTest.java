@@ -4,22 +4,36 @@ import com.example.account.domain.Account;
 import com.example.account.domain.AccountStatus;
 import com.example.account.domain.AccountUser;
 import com.example.account.domain.Transaction;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionHistoryDto;
+import com.example.account.dto.UseBalance;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
 import com.example.account.repository.TransactionRepository;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResultType;
+import com.example.account.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.example.account.domain.AccountStatus.IN_USE;
 import static com.example.account.type.TransactionResultType.F;
@@ -29,6 +43,7 @@ import static com.example.account.type.TransactionType.USE;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -47,6 +62,18 @@ class TransactionServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private TransactionQueryCache transactionQueryCache;
+
+    @Mock
+    private LockService lockService;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -76,7 +103,7 @@ class TransactionServiceTest {
                         .account(account)
                         .transactionType(USE)
                         .transactionResultType(S)
-                        .transactionId("transactionId")
+                        .transactionNo(1L)
                         .transactedAt(LocalDateTime.now())
                         .amount(USE_AMOUNT)
                         .balanceSnapshot(BALANCE)
@@ -212,6 +239,7 @@ class TransactionServiceTest {
                 .accountStatus(IN_USE)
                 .balance(100L)
                 .accountNumber("1000000012").build();
+        account.setId(12L);
 
         // 1. 사용자 존재여부 확인 mocking
         given(accountUserRepository.findById(anyLong()))
@@ -228,6 +256,358 @@ class TransactionServiceTest {
         // then
         assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
         verify(transactionRepository, times(0)).save(any());
+        // 실패거래 저장 시 다시 조회하지 않도록 계좌 id와 실패 시점 잔액을 담는다.
+        assertEquals(12L, exception.getAccountId());
+        assertEquals(100L, exception.getBalance());
+    }
+
+    @Test
+    @DisplayName("거래금액>잔액-홀드금액 - 잔액사용실패")
+    void useBalanceFailed_AmountExceedAvailableBalance() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .heldAmount(9500L)
+                .accountNumber("1000000012").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000000", USE_AMOUNT));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(10000L, account.getBalance());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("원장 모드 - 계좌 잔액은 변경하지 않고 원장 추가")
+    void successUseBalance_ledger() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L) // 시작잔액
+                .accountNumber("1000000012").build();
+        given(ledgerService.isEnabled()).willReturn(true);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        // 원장으로 계산한 현재잔액 5000 -> 1000 사용 후 4000
+        LedgerService.Position position = new LedgerService.Position(3L, 5000L);
+        given(ledgerService.getPosition(account)).willReturn(position);
+        given(ledgerService.append(account, position, USE, -USE_AMOUNT))
+                .willReturn(new LedgerService.Position(4L, 4000L));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        // when
+        transactionService.useBalance(1L, "1000000012", USE_AMOUNT);
+
+        // then
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(4000L, captor.getValue().getBalanceSnapshot());
+        assertEquals(10000L, account.getBalance());
+        // 잔액 계산은 검증과 원장 추가를 합쳐 한번만 한다.
+        verify(ledgerService, times(1)).getPosition(account);
+        verify(ledgerService, never()).getBalance(any());
+    }
+
+    @Test
+    @DisplayName("원장 모드 - 원장 잔액 부족이면 사용실패")
+    void useBalanceFailed_ledger_AmountExceedBalance() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L) // 시작잔액
+                .accountNumber("1000000012").build();
+        given(ledgerService.isEnabled()).willReturn(true);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(ledgerService.getPosition(account)).willReturn(new LedgerService.Position(3L, 500L));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000012", USE_AMOUNT));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(ledgerService, times(0)).append(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("조건부 update 모드 - 잔액사용성공")
+    void successUseBalance_atomicDebit() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "atomicDebit", true);
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        // update 후 다시 조회한 계좌 (차감된 잔액)
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(BALANCE)
+                .accountNumber("1000000012").build();
+
+        // 1. 조건부 잔액 차감 mocking (1건 변경 = 차감성공)
+        given(accountRepository.useBalanceIfSufficient(
+                anyString(), anyLong(), anyLong(), any()))
+                .willReturn(1);
+
+        // 2. 차감된 계좌 조회 mocking
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        // 3. 신규 거래내역 저장 mocking
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        // when
+        TransactionDto transactionDto = transactionService.useBalance(
+                1L, "1000000012", USE_AMOUNT);
+
+        // then
+        // 사용자 조회, 검증용 조회 없이 update 한번으로 차감
+        verify(accountUserRepository, times(0)).findById(anyLong());
+        verify(transactionRepository, times(1)).save(captor.capture());
+        assertEquals(USE_AMOUNT, captor.getValue().getAmount());
+        assertEquals(BALANCE, captor.getValue().getBalanceSnapshot());
+        assertEquals(S, transactionDto.getTransactionResultType());
+        assertEquals(USE, transactionDto.getTransactionType());
+    }
+
+    @Test
+    @DisplayName("조건부 update 모드 거래금액>잔액 - 잔액사용실패")
+    void useBalanceFailed_atomicDebit_AmountExceedBalance() {
+        // given
+        ReflectionTestUtils.setField(transactionService, "atomicDebit", true);
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(100L)
+                .accountNumber("1000000012").build();
+
+        // 1. 조건부 잔액 차감 mocking (0건 변경 = 차감실패)
+        given(accountRepository.useBalanceIfSufficient(
+                anyString(), anyLong(), anyLong(), any()))
+                .willReturn(0);
+
+        // 2. 실패 사유 확인용 조회 mocking
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, "1000000012", USE_AMOUNT));
+
+        // then
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("lock이 만료된 요청(오래된 fencing token) - 잔액 사용 실패")
+    void useBalanceFailed_staleFencingToken() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .fencingToken(2L)
+                .accountNumber("1000000012").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        // 이미 더 큰 token(2)으로 잔액이 변경된 계좌
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        FencingTokenContext.set("1000000012", 1L);
+
+        // when
+        AccountException exception;
+        try {
+            exception = assertThrows(AccountException.class,
+                    () -> transactionService.useBalance(1L, "1000000012", USE_AMOUNT));
+        } finally {
+            FencingTokenContext.clear("1000000012");
+        }
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_LOCK_EXPIRED, exception.getErrorCode());
+        assertEquals(10000L, account.getBalance());
+        verify(transactionRepository, times(0)).save(any());
+    }
+
+    @Test
+    @DisplayName("fencing token - 잔액 사용 시 계좌에 현재 token 기록 (잔액변경 update 에 함께 저장)")
+    void successUseBalance_recordFencingToken() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L)
+                .fencingToken(1L)
+                .accountNumber("1000000012").build();
+
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        FencingTokenContext.set("1000000012", 2L);
+
+        // when
+        try {
+            transactionService.useBalance(1L, "1000000012", USE_AMOUNT);
+        } finally {
+            FencingTokenContext.clear("1000000012");
+        }
+
+        // then
+        assertEquals(2L, account.getFencingToken());
+        assertEquals(10000L - USE_AMOUNT, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("같은 계좌 일괄 사용 - 잔액부족 건만 실패거래로 저장하고 나머지는 순서대로 차감")
+    void useBalanceGroup_partialFailure() {
+        // given
+        AccountUser user = AccountUser.builder()
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(3000L)
+                .accountNumber("1000000012").build();
+
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(transactionRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<Transaction> captor = ArgumentCaptor.forClass(Transaction.class);
+
+        // when
+        List<UseBalance.Response> responses = transactionService.useBalanceGroup(
+                "1000000012", Arrays.asList(
+                        new UseBalance.Request(1L, "1000000012", 2000L),
+                        new UseBalance.Request(1L, "1000000012", 2000L),
+                        new UseBalance.Request(1L, "1000000012", 1000L)));
+
+        // then
+        // 계좌, 사용자 조회는 한번씩만
+        verify(accountRepository, times(1)).findByAccountNumber(anyString());
+        verify(accountUserRepository, times(1)).findById(anyLong());
+        verify(transactionRepository, times(3)).save(captor.capture());
+        assertEquals(S, responses.get(0).getTransactionResult());
+        assertEquals(F, responses.get(1).getTransactionResult());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, responses.get(1).getErrorCode());
+        assertEquals(S, responses.get(2).getTransactionResult());
+        assertEquals(F, captor.getAllValues().get(1).getTransactionResultType());
+        assertEquals(0L, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("실패거래 일괄저장 - 실패 시점 계좌 id, 잔액이 있으면 계좌를 다시 조회하지 않음")
+    void saveFailedTransactions_recordedAccount() {
+        // given
+        Account recorded = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(5000L) // 저장 시점 잔액 (실패 시점 이후 변경됨)
+                .accountNumber("1000000012").build();
+        recorded.setId(12L);
+        Account unresolved = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(3000L)
+                .accountNumber("1000000013").build();
+        given(accountRepository.getReferenceById(12L)).willReturn(recorded);
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(unresolved));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> captor = ArgumentCaptor.forClass(List.class);
+        LocalDateTime failedAt = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
+
+        // when
+        transactionService.saveFailedTransactions(Arrays.asList(
+                new FailedTransaction(USE, "1000000012", 1000L, failedAt, 12L, 800L),
+                new FailedTransaction(CANCEL, "1000000013", 2000L, failedAt, null, null)));
+
+        // then
+        // 계좌 id를 모르는 실패거래의 계좌만 조회
+        verify(accountRepository).findByAccountNumberIn(Set.of("1000000013"));
+        verify(transactionRepository).saveAll(captor.capture());
+        List<Transaction> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        assertSame(recorded, saved.get(0).getAccount());
+        assertEquals(800L, saved.get(0).getBalanceSnapshot()); // 실패 시점 잔액
+        assertEquals(F, saved.get(0).getTransactionResultType());
+        assertEquals(failedAt, saved.get(0).getTransactedAt());
+        assertSame(unresolved, saved.get(1).getAccount());
+        assertEquals(3000L, saved.get(1).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("여러 요청 한번에 차감 - 거래 당시 잔액 계산, 차감하지 못한 요청은 null")
+    void useBalances_balanceSnapshotPerRequest() {
+        // given
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .balance(7000L) // 차감 후 잔액 (10000 - 1000 - 2000)
+                .accountNumber("1000000012").build();
+        given(accountRepository.useBalanceIfSufficient(anyString(), anyLong(), anyLong(), any()))
+                .willReturn(1, 0, 1);
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(account));
+
+        // when
+        List<TransactionDto> results = transactionService.useBalances(Arrays.asList(
+                new UseBalance.Request(1L, "1000000012", 1000L),
+                new UseBalance.Request(1L, "1000000012", 50000L),
+                new UseBalance.Request(1L, "1000000012", 2000L)));
+
+        // then
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        assertEquals(9000L, results.get(0).getBalanceSnapshot());
+        assertNull(results.get(1));
+        assertEquals(7000L, results.get(2).getBalanceSnapshot());
     }
 
     @Test
@@ -253,7 +633,7 @@ class TransactionServiceTest {
                         .account(account)
                         .transactionType(USE)
                         .transactionResultType(S)
-                        .transactionId("transactionId")
+                        .transactionNo(1L)
                         .transactedAt(LocalDateTime.now())
                         .amount(USE_AMOUNT)
                         .balanceSnapshot(BALANCE)
@@ -289,27 +669,23 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionIdForCancel")
+                .transactionNo(2L)
                 .transactedAt(LocalDateTime.now())
                 .amount(USE_AMOUNT)
                 .balanceSnapshot(BALANCE)
                 .build();
 
-        // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
+        // 1. 거래내역 + 계좌 조회 mocking
+        given(transactionRepository.findByTransactionNo(anyLong()))
                 .willReturn(Optional.of(transaction));
 
-        // 2. 계좌 존재여부 확인 mocking
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-
-        // 3. 신규 거래내역 저장 mocking
-        given(transactionRepository.save(any()))
+        // 2. 신규 거래내역 저장 mocking
+        given(transactionRepository.saveAndFlush(any()))
                 .willReturn(Transaction.builder()
                         .account(account)
                         .transactionType(CANCEL)
                         .transactionResultType(S)
-                        .transactionId("transactionIdForCancel")
+                        .transactionNo(2L)
                         .transactedAt(LocalDateTime.now())
                         .amount(CANCEL_AMOUNT)
                         .balanceSnapshot(10000L)
@@ -319,11 +695,14 @@ class TransactionServiceTest {
 
         // when
         TransactionDto transactionDto = transactionService.cancelBalance(
-                "transactionIdForCancel", "1000000000", CANCEL_AMOUNT);
+                Transaction.toTransactionId(2L), "1000000012", CANCEL_AMOUNT);
 
         // then
-        verify(transactionRepository, times(1)).save(captor.capture());
+        // 계좌는 거래내역과 함께 조회되므로 따로 조회하지 않는다.
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(transactionRepository, times(1)).saveAndFlush(captor.capture());
         assertEquals(CANCEL_AMOUNT, captor.getValue().getAmount());
+        assertEquals(2L, captor.getValue().getCancelledTransactionNo()); // 취소한 원거래
         assertEquals(10000L + CANCEL_AMOUNT, captor.getValue().getBalanceSnapshot());
 
         assertEquals(S, transactionDto.getTransactionResultType());
@@ -332,17 +711,59 @@ class TransactionServiceTest {
         assertEquals(CANCEL_AMOUNT, transactionDto.getAmount()); //사용취소금액
     }
 
+    @Test
+    @DisplayName("이미 취소된 거래 - 잔액사용취소실패")
+    void cancelBalanceFailed_AlreadyCancelled() {
+        // given
+        AccountUser user = AccountUser.builder() // 사용자추가
+                .name("Pobi").build();
+        user.setId(1L);
+        Account account = Account.builder() // 계좌생성
+                .accountUser(user)
+                .accountStatus(IN_USE)
+                .balance(10000L) // 기존잔액
+                .accountNumber("1000000012").build();
+        Transaction transaction = Transaction.builder() // 잔액사용
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionNo(2L)
+                .transactedAt(LocalDateTime.now())
+                .amount(CANCEL_AMOUNT)
+                .balanceSnapshot(BALANCE)
+                .build();
+
+        // 1. 거래내역 + 계좌 조회 mocking
+        given(transactionRepository.findByTransactionNo(anyLong()))
+                .willReturn(Optional.of(transaction));
+
+        // 2. 취소거래 저장 시 원거래(cancelledTransactionNo) unique 제약조건 위반
+        given(transactionRepository.saveAndFlush(any()))
+                .willThrow(new DataIntegrityViolationException("duplicate cancel"));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance(
+                        Transaction.toTransactionId(2L),
+                        "1000000012",
+                        CANCEL_AMOUNT)
+        );
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_ALREADY_CANCELLED, exception.getErrorCode());
+    }
+
     @Test
     @DisplayName("해당사용거래내역없음 - 잔액사용취소실패")
     void cancelBalanceFailed_TransactionNotFound() {
         // given
         // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findByTransactionNo(anyLong()))
                 .willReturn(Optional.empty());
 
         // when
         AccountException exception = assertThrows(AccountException.class,
-                () -> transactionService.cancelBalance("transactionId", "1000000000", USE_AMOUNT));
+                () -> transactionService.cancelBalance(Transaction.toTransactionId(1L), "1000000000", USE_AMOUNT));
 
         // then
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
@@ -353,16 +774,18 @@ class TransactionServiceTest {
     void cancelBalanceFailed_AccountNotFound() {
         // given
         // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.of(Transaction.builder().build()));
+        given(transactionRepository.findByTransactionNo(anyLong()))
+                .willReturn(Optional.of(Transaction.builder()
+                        .account(Account.builder().accountNumber("1000000012").build())
+                        .build()));
 
-        // 2. 계좌 존재여부 확인 mocking
+        // 2. 계좌 존재여부 확인 mocking (거래의 계좌와 요청 계좌가 다른 경우에만 조회)
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.empty());
 
         // when
         AccountException exception = assertThrows(AccountException.class,
-                () -> transactionService.cancelBalance("transactionId", "1000000000", USE_AMOUNT));
+                () -> transactionService.cancelBalance(Transaction.toTransactionId(1L), "1000000000", USE_AMOUNT));
 
         // then
         assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
@@ -391,14 +814,14 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionIdForCancel")
+                .transactionNo(2L)
                 .transactedAt(LocalDateTime.now())
                 .amount(CANCEL_AMOUNT)
                 .balanceSnapshot(BALANCE)
                 .build();
 
         // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findByTransactionNo(anyLong()))
                 .willReturn(Optional.of(transaction)); // transaction은 account 계좌정보사용
 
         // 2. 계좌 존재여부 확인 mocking
@@ -408,7 +831,7 @@ class TransactionServiceTest {
         // when
         AccountException exception = assertThrows(AccountException.class,
                 () -> transactionService.cancelBalance(
-                        "transactionIdForCancel",
+                        Transaction.toTransactionId(2L),
                         "1000000000",
                         CANCEL_AMOUNT)
         );
@@ -434,25 +857,21 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionIdForCancel")
+                .transactionNo(2L)
                 .transactedAt(LocalDateTime.now())
                 .amount(CANCEL_AMOUNT + 1000L)
                 .balanceSnapshot(BALANCE)
                 .build();
 
-        // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
+        // 1. 거래내역 + 계좌 조회 mocking
+        given(transactionRepository.findByTransactionNo(anyLong()))
                 .willReturn(Optional.of(transaction));
 
-        // 2. 계좌 존재여부 확인 mocking
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-
         // when
         AccountException exception = assertThrows(AccountException.class,
                 () -> transactionService.cancelBalance(
-                        "transactionIdForCancel",
-                        "1000000000",
+                        Transaction.toTransactionId(2L),
+                        "1000000012",
                         CANCEL_AMOUNT)
         );
 
@@ -477,25 +896,21 @@ class TransactionServiceTest {
                 .account(account)
                 .transactionType(USE)
                 .transactionResultType(S)
-                .transactionId("transactionIdForCancel")
+                .transactionNo(2L)
                 .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
                 .amount(CANCEL_AMOUNT)
                 .balanceSnapshot(BALANCE)
                 .build();
 
-        // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
+        // 1. 거래내역 + 계좌 조회 mocking
+        given(transactionRepository.findByTransactionNo(anyLong()))
                 .willReturn(Optional.of(transaction));
 
-        // 2. 계좌 존재여부 확인 mocking
-        given(accountRepository.findByAccountNumber(anyString()))
-                .willReturn(Optional.of(account));
-
         // when
         AccountException exception = assertThrows(AccountException.class,
                 () -> transactionService.cancelBalance(
-                        "transactionIdForCancel",
-                        "1000000000",
+                        Transaction.toTransactionId(2L),
+                        "1000000012",
                         CANCEL_AMOUNT)
         );
 
@@ -503,8 +918,11 @@ class TransactionServiceTest {
         assertEquals(ErrorCode.TOO_OLD_ORDER_TO_CANCEL, exception.getErrorCode());
     }
 
-    @Test
-    void successQueryTransaction() {
+    @ParameterizedTest
+    @CsvSource({"USE, F", "CANCEL, S"})
+    @DisplayName("성공한 사용 거래가 아님(실패거래, 취소거래) - 잔액사용취소실패")
+    void cancelBalanceFailed_TransactionNotCancellable(TransactionType transactionType,
+                                                       TransactionResultType transactionResultType) {
         // given
         AccountUser user = AccountUser.builder() // 사용자추가
                 .name("Pobi").build();
@@ -514,29 +932,71 @@ class TransactionServiceTest {
                 .accountStatus(IN_USE)
                 .balance(10000L) // 기존잔액
                 .accountNumber("1000000012").build();
-        account.setId(1L);
-        Transaction transaction = Transaction.builder() // 잔액사용
+        Transaction transaction = Transaction.builder()
                 .account(account)
-                .transactionType(USE)
-                .transactionResultType(S)
-                .transactionId("transactionId")
-                .transactedAt(LocalDateTime.now().minusYears(1).minusDays(1))
+                .transactionType(transactionType)
+                .transactionResultType(transactionResultType)
+                .transactionNo(2L)
+                .transactedAt(LocalDateTime.now())
                 .amount(CANCEL_AMOUNT)
                 .balanceSnapshot(BALANCE)
                 .build();
 
-        // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
+        // 1. 거래내역 + 계좌 조회 mocking
+        given(transactionRepository.findByTransactionNo(anyLong()))
                 .willReturn(Optional.of(transaction));
 
         // when
-        TransactionDto transactionDto = transactionService.queryTransaction("trxId");
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.cancelBalance(
+                        Transaction.toTransactionId(2L),
+                        "1000000012",
+                        CANCEL_AMOUNT)
+        );
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_NOT_CANCELLABLE, exception.getErrorCode());
+        assertEquals(10000L, account.getBalance());
+        verify(transactionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void successQueryTransaction() {
+        // given
+        // 1. 거래내역 존재여부 확인 mocking (조회 쿼리 결과를 TransactionDto로 바로 받음)
+        given(transactionRepository.findDtoByTransactionNo(anyLong()))
+                .willReturn(Optional.of(new TransactionDto(
+                        "1000000012", USE, S, CANCEL_AMOUNT, BALANCE, 1L,
+                        LocalDateTime.now().minusYears(1).minusDays(1))));
+
+        // when
+        TransactionDto transactionDto = transactionService.queryTransaction(Transaction.toTransactionId(1L));
 
         // then
         assertEquals(USE, transactionDto.getTransactionType());
         assertEquals(S, transactionDto.getTransactionResultType());
         assertEquals(CANCEL_AMOUNT, transactionDto.getAmount());
-        assertEquals("transactionId", transactionDto.getTransactionId());
+        assertEquals("1000000012", transactionDto.getAccountNumber());
+        assertEquals(Transaction.toTransactionId(1L), transactionDto.getTransactionId());
+        // 조회한 거래는 캐시에 저장
+        verify(transactionQueryCache, times(1)).put(1L, transactionDto);
+    }
+
+    @Test
+    @DisplayName("캐시된 거래 - DB 조회 없이 거래조회")
+    void queryTransaction_cacheHit() {
+        // given
+        TransactionDto cached = new TransactionDto(
+                "1000000012", USE, S, CANCEL_AMOUNT, BALANCE, 1L, LocalDateTime.now());
+        given(transactionQueryCache.get(1L))
+                .willReturn(cached);
+
+        // when
+        TransactionDto transactionDto = transactionService.queryTransaction(Transaction.toTransactionId(1L));
+
+        // then
+        assertSame(cached, transactionDto);
+        verify(transactionRepository, times(0)).findDtoByTransactionNo(anyLong());
     }
 
     @Test
@@ -544,15 +1004,135 @@ class TransactionServiceTest {
     void queryTransactionFailed_TransactionNotFound() {
         // given
         // 1. 거래내역 존재여부 확인 mocking
-        given(transactionRepository.findByTransactionId(anyString()))
+        given(transactionRepository.findDtoByTransactionNo(anyLong()))
                 .willReturn(Optional.empty());
 
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.queryTransaction(Transaction.toTransactionId(1L)));
+
+        // then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("거래 아이디 형식 오류 - 조회하지 않고 거래조회실패")
+    void queryTransactionFailed_InvalidTransactionId() {
+        // given
         // when
         AccountException exception = assertThrows(AccountException.class,
                 () -> transactionService.queryTransaction("transactionId"));
 
         // then
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        verify(transactionRepository, times(0)).findDtoByTransactionNo(anyLong());
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("거래 아이디 <-> 거래번호 변환")
+    void transactionIdRoundTrip() {
+        // given
+        long transactionNo = 0x0123456789abcdefL;
+
+        // when
+        String transactionId = Transaction.toTransactionId(transactionNo);
+
+        // then
+        assertEquals("0123456789abcdef", transactionId);
+        assertEquals(transactionNo, Transaction.toTransactionNo(transactionId));
+        assertEquals("0000000000000001", Transaction.toTransactionId(1L));
+        assertNull(Transaction.toTransactionNo("123"));
+        assertNull(Transaction.toTransactionNo("xyzxyzxyzxyzxyzx"));
+    }
+
+    @Test
+    @DisplayName("거래내역 조회 - 다음 페이지가 있으면 마지막 거래로 cursor 생성")
+    void getTransactionHistory_nextCursor() {
+        // given
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.findHistory(eq(1L), isNull(), isNull(), any()))
+                .willReturn(Arrays.asList(
+                        historyTransaction(account, 30L, now),
+                        historyTransaction(account, 20L, now.minusSeconds(1)),
+                        historyTransaction(account, 10L, now.minusSeconds(2))));
+
+        // when
+        TransactionHistoryDto history = transactionService.getTransactionHistory(
+                "1000000012", null, null, null, 2);
+
+        // then
+        assertEquals(2, history.getTransactions().size());
+        assertEquals(Transaction.toTransactionId(30L),
+                history.getTransactions().get(0).getTransactionId());
+        // cursor는 (거래일시, transactionNo)를 Base64로 감싼 값 (내부 id는 담지 않음)
+        assertEquals(cursor("2024-01-01T09:59:59_20"), history.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("거래내역 조회 - cursor 이후 거래 조회, 마지막 페이지")
+    void getTransactionHistory_withCursor() {
+        // given
+        Account account = Account.builder()
+                .accountStatus(IN_USE)
+                .accountNumber("1000000012").build();
+        account.setId(1L);
+        LocalDateTime cursorAt = LocalDateTime.of(2024, 1, 1, 9, 59, 59);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionRepository.findHistoryBefore(
+                eq(1L), eq(USE), eq(S), eq(cursorAt), eq(20L), any()))
+                .willReturn(Arrays.asList(
+                        historyTransaction(account, 10L, cursorAt.minusSeconds(1))));
+
+        // when
+        TransactionHistoryDto history = transactionService.getTransactionHistory(
+                "1000000012", USE, S, cursor("2024-01-01T09:59:59_20"), 2);
+
+        // then
+        assertEquals(1, history.getTransactions().size());
+        assertNull(history.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("잘못된 cursor - 거래내역 조회실패")
+    void getTransactionHistoryFailed_InvalidCursor() {
+        // given
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder().accountNumber("1000000012").build()));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory(
+                        "1000000012", null, null, "cursor", 20));
+
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    private static Transaction historyTransaction(Account account, Long transactionNo,
+                                                  LocalDateTime transactedAt) {
+        Transaction transaction = Transaction.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResultType(S)
+                .transactionNo(transactionNo)
+                .amount(USE_AMOUNT)
+                .balanceSnapshot(BALANCE)
+                .transactedAt(transactedAt)
+                .build();
+        // 내부 id는 transactionNo와 다른 값 (cursor에 쓰이지 않는지 확인)
+        transaction.setId(transactionNo + 1000L);
+        return transaction;
+    }
+
+    private static String cursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}